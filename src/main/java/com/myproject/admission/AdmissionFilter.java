@@ -0,0 +1,170 @@
+package com.socialhub.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Admission control in front of the API. Each client (known API key, or remote address otherwise) gets a token bucket
+// per configured route and is answered 429 once it runs dry. Requests that pass then need a slot of the adaptive
+// concurrency limit and are answered 503 when the service is saturated, before they reach the connection pool.
+@Slf4j
+public class AdmissionFilter extends OncePerRequestFilter {
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+    private final List<RouteLimit> routes = new ArrayList<>();
+    private final ConcurrencyLimit concurrency;
+    private final Counter admitted;
+    private final Counter shed;
+
+    private record RouteLimit(String name, PathPattern pattern, TokenBuckets buckets, Counter rejected) {
+    }
+
+    public AdmissionFilter(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        long now = System.nanoTime();
+        this.apiKeyHeader = properties.apiKeyHeader();
+        this.apiKeys = properties.apiKeys();
+        for (AdmissionProperties.Route route : properties.routes()) {
+            // rate 0 leaves a route unlimited, e.g. to exempt a path from a broader pattern further down
+            TokenBuckets buckets = route.rate() > 0
+                    ? new TokenBuckets(route.rate(), route.burst(), properties.maxClients(), now) : null;
+            Counter rejected = Counter.builder("admission.requests")
+                    .description("Requests that passed or were turned away by admission control")
+                    .tag("outcome", "rate_limited")
+                    .tag("route", route.name())
+                    .register(meterRegistry);
+            routes.add(new RouteLimit(route.name(), PathPatternParser.defaultInstance.parse(route.pattern()), buckets, rejected));
+            if (buckets != null) {
+                Gauge.builder("admission.clients", buckets, TokenBuckets::size)
+                        .description("Clients with a token bucket that is not full")
+                        .tag("route", route.name())
+                        .register(meterRegistry);
+            }
+        }
+        AdmissionProperties.Concurrency limit = properties.concurrency();
+        this.concurrency = limit.enabled()
+                ? new ConcurrencyLimit(limit.initialLimit(), limit.minLimit(), limit.maxLimit(),
+                        limit.latencyThreshold().toNanos(), limit.backoff(), limit.window().toNanos(), now)
+                : null;
+        this.admitted = Counter.builder("admission.requests")
+                .description("Requests that passed or were turned away by admission control")
+                .tag("outcome", "admitted")
+                .tag("route", "all")
+                .register(meterRegistry);
+        this.shed = Counter.builder("admission.requests")
+                .description("Requests that passed or were turned away by admission control")
+                .tag("outcome", "shed")
+                .tag("route", "all")
+                .register(meterRegistry);
+        if (concurrency != null) {
+            Gauge.builder("admission.concurrency.limit", concurrency, ConcurrencyLimit::limit)
+                    .description("Current adaptive limit on requests in flight")
+                    .register(meterRegistry);
+            Gauge.builder("admission.concurrency.in-flight", concurrency, ConcurrencyLimit::inFlight)
+                    .description("Admitted requests in flight")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long started = System.nanoTime();
+        RouteLimit route = routeFor(request);
+        if (route != null && route.buckets() != null) {
+            long wait = route.buckets().tryAcquire(clientKey(request), started);
+            if (wait > 0) {
+                route.rejected().increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L)),
+                        "Rate limit exceeded");
+                return;
+            }
+        }
+        if (concurrency == null) {
+            admitted.increment();
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!concurrency.tryAcquire()) {
+            shed.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "Service temporarily overloaded");
+            return;
+        }
+        admitted.increment();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long now = System.nanoTime();
+            // Long-polls, streams and exports hand the work to another thread, their latency is not a load signal
+            concurrency.release(now - started, !request.isAsyncStarted(), now);
+        }
+    }
+
+    // Idle buckets are full again, dropping them loses nothing
+    @Scheduled(fixedDelayString = "${app.admission.eviction-interval-ms:30000}")
+    public void evictIdleClients() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (RouteLimit route : routes) {
+            if (route.buckets() != null) {
+                evicted += route.buckets().evictIdle(now);
+            }
+        }
+        log.debug("Evicted {} idle rate limit buckets", evicted);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    private RouteLimit routeFor(HttpServletRequest request) {
+        if (routes.isEmpty()) {
+            return null;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (RouteLimit route : routes) {
+            if (route.pattern().matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // An unchecked key would let a client get a fresh bucket with every new key, and fill the bucket table so that
+    // everyone else ends up in the shared overflow bucket
+    private String clientKey(HttpServletRequest request) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        if (apiKey != null && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        // Behind a proxy, server.forward-headers-strategy makes this the original client address
+        return request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+}
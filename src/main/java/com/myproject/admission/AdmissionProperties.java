@@ -0,0 +1,38 @@
+package com.socialhub.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+// app.admission.* in application.properties, routes are matched in order and the first match applies
+@ConfigurationProperties(prefix = "app.admission")
+public record AdmissionProperties(
+        @DefaultValue("X-API-Key") String apiKeyHeader,
+        // Keys issued to clients, a request with any other key is limited by its address
+        Set<String> apiKeys,
+        @DefaultValue("100000") int maxClients,
+        List<Route> routes,
+        @DefaultValue Concurrency concurrency) {
+
+    public AdmissionProperties {
+        apiKeys = apiKeys != null ? Set.copyOf(apiKeys) : Set.of();
+        routes = routes != null ? routes : List.of();
+    }
+
+    // rate = requests per second per client, burst = requests a client may send at once after being idle
+    public record Route(String name, String pattern, double rate, @DefaultValue("1") int burst) {
+    }
+
+    public record Concurrency(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("50") int initialLimit,
+            @DefaultValue("5") int minLimit,
+            @DefaultValue("500") int maxLimit,
+            @DefaultValue("200ms") Duration latencyThreshold,
+            @DefaultValue("0.9") double backoff,
+            @DefaultValue("100ms") Duration window) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.socialhub.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Adaptive limit on requests in flight (AIMD). Every window the mean latency of completed requests is compared with
+// the threshold: above it the limit is cut by the backoff factor, below it the limit grows by one if it was reached.
+// When the database slows down, latency rises and the limit shrinks, so excess requests are shed straight away
+// instead of queueing for connections.
+final class ConcurrencyLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoff;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private volatile int limit;
+    private final LongAdder windowLatency = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowEnd;
+
+    ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos, double backoff,
+                     long windowNanos, long now) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoff = backoff;
+        this.windowNanos = windowNanos;
+        this.windowEnd = new AtomicLong(now + windowNanos);
+    }
+
+    boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        peakInFlight.accumulateAndGet(current + 1, Math::max);
+        return true;
+    }
+
+    // sample = false for requests whose latency says nothing about the database, e.g. ones that went async
+    void release(long latencyNanos, boolean sample, long now) {
+        inFlight.decrementAndGet();
+        if (sample) {
+            windowLatency.add(latencyNanos);
+            windowSamples.increment();
+        }
+        long end = windowEnd.get();
+        // Exactly one releasing thread closes the window
+        if (now - end >= 0 && windowEnd.compareAndSet(end, now + windowNanos)) {
+            adjust();
+        }
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void adjust() {
+        long samples = windowSamples.sumThenReset();
+        long latency = windowLatency.sumThenReset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (samples == 0) {
+            return;
+        }
+        if (latency / samples > latencyThresholdNanos) {
+            limit = Math.max(minLimit, (int) (limit * backoff));
+        } else if (peak >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
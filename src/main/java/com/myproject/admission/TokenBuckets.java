@@ -0,0 +1,53 @@
+package com.socialhub.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-client token buckets in the GCRA form: each client is a single "theoretical arrival time" updated with one CAS,
+// so admission never takes a lock. A bucket whose arrival time has passed is full again and indistinguishable from a
+// new one, which makes evicting idle clients free of side effects. Memory is bounded by maxClients; once full, new
+// clients share one overflow bucket until the next eviction makes room.
+final class TokenBuckets {
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final int maxClients;
+    private final ConcurrentHashMap<String, AtomicLong> arrivals = new ConcurrentHashMap<>();
+    private final AtomicLong overflow;
+
+    TokenBuckets(double ratePerSecond, int burst, int maxClients, long now) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        this.toleranceNanos = emissionIntervalNanos * Math.max(burst, 1);
+        this.maxClients = maxClients;
+        this.overflow = new AtomicLong(now);
+    }
+
+    // 0 when the request is admitted, otherwise the nanoseconds until the client may try again
+    long tryAcquire(String client, long now) {
+        AtomicLong arrival = arrivals.get(client);
+        if (arrival == null) {
+            arrival = arrivals.size() < maxClients ? arrivals.computeIfAbsent(client, key -> new AtomicLong(now)) : overflow;
+        }
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long wait = next - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // A request racing with the eviction of its (already full) bucket at worst gets one extra token
+    int evictIdle(long now) {
+        int before = arrivals.size();
+        arrivals.values().removeIf(arrival -> arrival.get() - now <= 0);
+        return before - arrivals.size();
+    }
+
+    int size() {
+        return arrivals.size();
+    }
+}
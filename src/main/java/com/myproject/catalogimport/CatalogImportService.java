@@ -0,0 +1,557 @@
+package com.socialhub.catalogimport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialhub.config.CacheConfiguration;
+import com.socialhub.config.VersionedProductCache;
+import com.socialhub.dto.ImportJobDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.event.ProductBatchChangedEvent;
+import com.socialhub.event.ProductChangedEvent;
+import com.socialhub.exception.BadRequestException;
+import com.socialhub.exception.ResourceNotFoundException;
+import com.socialhub.model.ImportJob;
+import com.socialhub.model.Product;
+import com.socialhub.repository.ImportJobRepository;
+import com.socialhub.routing.ReadRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Catalog imports from large CSV or NDJSON files. A file is split into chunks of about app.import.chunk-size bytes
+// that end on a row boundary. Chunks are parsed, validated and upserted in parallel on virtual threads, each in
+// one transaction that also marks the chunk as done. An import that stopped (shutdown, crash, database error) is
+// resumed by running the chunks that are not marked yet, so every chunk is applied exactly once.
+// Jobs run on the instance that accepted them, the file has to stay where it is until the job is completed.
+@Slf4j
+@Service
+public class CatalogImportService {
+    // Rejected rows listed in a job report, the counts cover all of them
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    static final String INSERT_CHUNK = "insert into import_chunk (job_id, chunk_index, start_offset, end_offset, done, "
+            + "rows_imported, rows_failed) values (?, ?, ?, ?, false, 0, 0)";
+    static final String MARK_DONE = "update import_chunk set done = true, rows_imported = ?, rows_failed = ?, errors = ? "
+            + "where job_id = ? and chunk_index = ? and done = false";
+    private static final String PENDING_CHUNKS = "select chunk_index, start_offset, end_offset from import_chunk "
+            + "where job_id = ? and done = false order by chunk_index";
+    private static final String PROGRESS = "select count(*), coalesce(sum(case when done then 1 else 0 end), 0), "
+            + "coalesce(sum(end_offset - start_offset), 0), "
+            + "coalesce(sum(case when done then end_offset - start_offset else 0 end), 0), "
+            + "coalesce(sum(rows_imported), 0), coalesce(sum(rows_failed), 0) from import_chunk where job_id = ?";
+    private static final String ERRORS = "select errors from import_chunk where job_id = ? and errors is not null "
+            + "order by chunk_index";
+
+    private final ImportJobRepository importJobRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ProductUpserter upserter;
+    private final Path directory;
+    // Null when imports from a local path are disabled
+    private final Path sourceDirectory;
+    private final long chunkSize;
+    private final int batchSize;
+    private final int maxErrorsPerChunk;
+    private final boolean resumeOnStartup;
+    // Shared by all jobs, bounds the connections imports hold at a time
+    private final Semaphore chunkPermits;
+    private final Map<Long, RunningImport> running = new ConcurrentHashMap<>();
+    private volatile boolean shuttingDown;
+
+    private final Counter rowsImported;
+    private final Counter rowsRejected;
+    private final Timer chunkTimer;
+
+    private record Chunk(int index, long start, long end) {
+    }
+
+    private record ChunkResult(long imported, long rejected, List<ProductChangedEvent> changes) {
+    }
+
+    private record Progress(int chunks, int chunksDone, long totalBytes, long processedBytes, long rowsImported,
+                            long rowsFailed) {
+    }
+
+    public CatalogImportService(ImportJobRepository importJobRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher,
+                                CacheManager cacheManager,
+                                EntityManagerFactory entityManagerFactory,
+                                Validator validator,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.import.dir:./data/imports}") String directory,
+                                @Value("${app.import.source-dir:}") String sourceDirectory,
+                                @Value("${app.import.chunk-size:8MB}") DataSize chunkSize,
+                                @Value("${app.import.batch-size:1000}") int batchSize,
+                                @Value("${app.import.parallelism:4}") int parallelism,
+                                @Value("${app.import.max-errors-per-chunk:20}") int maxErrorsPerChunk,
+                                @Value("${app.import.resume-on-startup:false}") boolean resumeOnStartup) {
+        this.importJobRepository = importJobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.upserter = new ProductUpserter(jdbcTemplate);
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.sourceDirectory = sourceDirectory.isBlank() ? null : Path.of(sourceDirectory).toAbsolutePath().normalize();
+        // A chunk is mapped into memory as one buffer
+        this.chunkSize = Math.max(1, Math.min(chunkSize.toBytes(), Integer.MAX_VALUE / 2));
+        this.batchSize = Math.max(1, batchSize);
+        this.maxErrorsPerChunk = maxErrorsPerChunk;
+        this.resumeOnStartup = resumeOnStartup;
+        this.chunkPermits = new Semaphore(Math.max(1, parallelism));
+        this.rowsImported = Counter.builder("import.rows").tag("outcome", "imported")
+                .description("Rows written by catalog imports").register(meterRegistry);
+        this.rowsRejected = Counter.builder("import.rows").tag("outcome", "rejected")
+                .description("Rows written by catalog imports").register(meterRegistry);
+        this.chunkTimer = Timer.builder("import.chunk")
+                .description("Time to parse, validate and write one import chunk")
+                .register(meterRegistry);
+    }
+
+    // Spools the upload to app.import.dir and imports it from there, so it can be resumed like a local file
+    public ImportJobDTO importUpload(InputStream body, ImportJob.Format format) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("upload-" + UUID.randomUUID() + "." + format.name().toLowerCase(Locale.ROOT));
+        try {
+            Files.copy(body, file);
+        } catch (IOException ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+        return create(file, format);
+    }
+
+    // path is resolved against app.import.source-dir and has to stay inside it
+    public ImportJobDTO importFile(String path, ImportJob.Format format) throws IOException {
+        if (sourceDirectory == null) {
+            throw new BadRequestException("Imports from a local path are disabled, see app.import.source-dir");
+        }
+        Path file = sourceDirectory.resolve(path).normalize();
+        if (!Files.isRegularFile(file) || !file.toRealPath().startsWith(sourceDirectory.toRealPath())) {
+            throw new BadRequestException("No such file in the import source directory: " + path);
+        }
+        return create(file, format != null ? format : formatOf(file));
+    }
+
+    public ImportJobDTO getJob(long id) {
+        return toDTO(findJob(id));
+    }
+
+    // Most recent first
+    public List<ImportJobDTO> getJobs() {
+        return ReadRouting.onPrimary(importJobRepository::findTop50ByOrderByIdDesc).stream().map(this::toDTO).toList();
+    }
+
+    // Runs the chunks a failed or interrupted job has not finished
+    public ImportJobDTO resume(long id) {
+        ImportJob job = findJob(id);
+        if (job.getStatus() == ImportJob.Status.COMPLETED || job.getStatus() == ImportJob.Status.CANCELLED) {
+            throw new BadRequestException("Import " + id + " is " + job.getStatus().name().toLowerCase(Locale.ROOT) + " and cannot be resumed");
+        }
+        start(job);
+        return toDTO(job);
+    }
+
+    // A running job stops after the chunks in progress, a stopped one is closed for good
+    public ImportJobDTO cancel(long id) {
+        ImportJob job = findJob(id);
+        RunningImport run = running.get(id);
+        if (run != null) {
+            run.stopAs = ImportJob.Status.CANCELLED;
+        } else if (job.getStatus() == ImportJob.Status.FAILED || job.getStatus() == ImportJob.Status.INTERRUPTED) {
+            job.setStatus(ImportJob.Status.CANCELLED);
+            job.setFinishedAt(Instant.now());
+            job = importJobRepository.save(job);
+            deleteUpload(job);
+        } else {
+            throw new BadRequestException("Import " + id + " is " + job.getStatus().name().toLowerCase(Locale.ROOT) + " and cannot be cancelled");
+        }
+        return toDTO(job);
+    }
+
+    // Jobs still marked running were cut off by a crash or a shutdown that did not wait for them
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterrupted() {
+        for (ImportJob job : importJobRepository.findByStatus(ImportJob.Status.RUNNING)) {
+            if (running.containsKey(job.getId())) {
+                continue;
+            }
+            job.setStatus(ImportJob.Status.INTERRUPTED);
+            job = importJobRepository.save(job);
+            if (resumeOnStartup) {
+                log.info("Resuming interrupted import {} of {}", job.getId(), job.getSource());
+                start(job);
+            } else {
+                log.warn("Import {} of {} was interrupted, resume it with POST /api/v1/products/imports/{}/resume",
+                        job.getId(), job.getSource(), job.getId());
+            }
+        }
+    }
+
+    // Lets the chunks in progress commit, the job is then left INTERRUPTED for the next start
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        shuttingDown = true;
+        for (RunningImport run : running.values()) {
+            run.stopAs = ImportJob.Status.INTERRUPTED;
+        }
+        for (RunningImport run : running.values()) {
+            Thread thread = run.thread;
+            if (thread != null) {
+                thread.join(Duration.ofSeconds(30));
+            }
+        }
+    }
+
+    private ImportJobDTO create(Path file, ImportJob.Format format) throws IOException {
+        ImportJob job = new ImportJob();
+        job.setFormat(format);
+        job.setSource(file.toString());
+        job.setSourceSize(Files.size(file));
+        job.setSourceModifiedAt(modifiedAt(file));
+        // Resumable should start() not get to mark it running
+        job.setStatus(ImportJob.Status.INTERRUPTED);
+        job.setCreatedAt(Instant.now());
+        job = importJobRepository.save(job);
+        start(job);
+        return toDTO(job);
+    }
+
+    private void start(ImportJob job) {
+        if (shuttingDown) {
+            throw new IllegalStateException("Shutting down, no imports are started");
+        }
+        RunningImport run = new RunningImport();
+        if (running.putIfAbsent(job.getId(), run) != null) {
+            throw new BadRequestException("Import " + job.getId() + " is already running");
+        }
+        try {
+            job.setStatus(ImportJob.Status.RUNNING);
+            job.setFailure(null);
+            job.setStartedAt(Instant.now());
+            job.setFinishedAt(null);
+            ImportJob saved = importJobRepository.save(job);
+            run.thread = Thread.ofVirtual().name("import-" + job.getId()).start(() -> run(saved, run));
+        } catch (RuntimeException ex) {
+            running.remove(job.getId());
+            throw ex;
+        }
+    }
+
+    private void run(ImportJob job, RunningImport run) {
+        ImportJob.Status outcome;
+        String failure = null;
+        try (FileChannel channel = FileChannel.open(Path.of(job.getSource()), StandardOpenOption.READ)) {
+            if (channel.size() != job.getSourceSize()
+                    || !modifiedAt(Path.of(job.getSource())).equals(job.getSourceModifiedAt())) {
+                throw new IllegalStateException("Source file changed since the import was created");
+            }
+            int[] columns = job.getFormat() == ImportJob.Format.CSV ? CsvRowReader.readHeader(channel).columns() : null;
+            List<Chunk> pending = pendingChunks(job, channel);
+            outcome = runChunks(job, run, channel, columns, pending);
+        } catch (Exception ex) {
+            log.warn("Import {} of {} failed", job.getId(), job.getSource(), ex);
+            outcome = ImportJob.Status.FAILED;
+            failure = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+        }
+        try {
+            job.setStatus(outcome);
+            job.setFailure(failure);
+            job.setFinishedAt(Instant.now());
+            job.setRowsPerSecond(run.rowsPerSecond());
+            importJobRepository.save(job);
+            if (outcome == ImportJob.Status.COMPLETED || outcome == ImportJob.Status.CANCELLED) {
+                deleteUpload(job);
+            }
+            log.info("Import {} of {} ended {}: {} rows imported, {} rejected in this run", job.getId(), job.getSource(),
+                    outcome, run.rowsImported.sum(), run.rowsRejected.sum());
+        } catch (RuntimeException ex) {
+            log.warn("Could not record the end of import {}, it is resumable after a restart", job.getId(), ex);
+        } finally {
+            running.remove(job.getId());
+        }
+    }
+
+    // Planned and stored once, the chunks of a resumed job must be the ones the done markers refer to
+    private List<Chunk> pendingChunks(ImportJob job, FileChannel channel) throws IOException {
+        Integer planned = jdbcTemplate.queryForObject("select count(*) from import_chunk where job_id = ?", Integer.class, job.getId());
+        if (planned == null || planned == 0) {
+            long dataStart = job.getFormat() == ImportJob.Format.CSV ? CsvRowReader.readHeader(channel).dataStart() : 0L;
+            List<ChunkPlanner.Range> ranges = ChunkPlanner.plan(channel, dataStart, chunkSize, job.getFormat() == ImportJob.Format.CSV);
+            List<Object[]> rows = new ArrayList<>(ranges.size());
+            for (int index = 0; index < ranges.size(); index++) {
+                rows.add(new Object[]{job.getId(), index, ranges.get(index).start(), ranges.get(index).end()});
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_CHUNK, rows));
+            log.info("Import {} of {} split into {} chunks", job.getId(), job.getSource(), ranges.size());
+        }
+        return jdbcTemplate.query(PENDING_CHUNKS,
+                (rs, rowNum) -> new Chunk(rs.getInt(1), rs.getLong(2), rs.getLong(3)), job.getId());
+    }
+
+    private ImportJob.Status runChunks(ImportJob job, RunningImport run, FileChannel channel, int[] columns,
+                                       List<Chunk> pending) throws Exception {
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Chunk chunk : pending) {
+                chunkPermits.acquire();
+                if (run.stopAs != null || failure.get() != null) {
+                    chunkPermits.release();
+                    break;
+                }
+                executor.execute(() -> {
+                    try {
+                        importChunk(job, run, channel, columns, chunk);
+                    } catch (Exception ex) {
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        chunkPermits.release();
+                    }
+                });
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        Integer remaining = jdbcTemplate.queryForObject("select count(*) from import_chunk where job_id = ? and done = false",
+                Integer.class, job.getId());
+        if (remaining == null || remaining == 0) {
+            return ImportJob.Status.COMPLETED;
+        }
+        return run.stopAs != null ? run.stopAs : ImportJob.Status.FAILED;
+    }
+
+    private void importChunk(ImportJob job, RunningImport run, FileChannel channel, int[] columns, Chunk chunk)
+            throws Exception {
+        ChunkResult result = chunkTimer.recordCallable(() -> {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start());
+            RowReader reader = columns != null
+                    ? new CsvRowReader(buffer, columns)
+                    : new NdjsonRowReader(objectMapper.getFactory(), buffer);
+            return transactionTemplate.execute(status -> load(job, chunk, reader));
+        });
+        // Committed: derived state follows the events, the caches below are not driven by them
+        updateCaches(result.changes());
+        run.rowsImported.add(result.imported());
+        run.rowsRejected.add(result.rejected());
+        rowsImported.increment(result.imported());
+        rowsRejected.increment(result.rejected());
+    }
+
+    // Runs in the chunk's transaction
+    private ChunkResult load(ImportJob job, Chunk chunk, RowReader reader) {
+        ImportRow row = new ImportRow();
+        List<ProductDetailDTO> batch = new ArrayList<>(batchSize);
+        List<ProductChangedEvent> changes = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        long imported = 0;
+        long rejected = 0;
+        long maxId = 0;
+        while (reader.next(row)) {
+            String error = row.error();
+            ProductDetailDTO product = null;
+            if (error == null) {
+                product = row.toProduct();
+                error = validate(product);
+            }
+            if (error != null) {
+                rejected++;
+                if (errors.size() < maxErrorsPerChunk) {
+                    errors.add("byte " + (chunk.start() + row.offset) + ": " + error);
+                }
+                continue;
+            }
+            if (product.getId() != null) {
+                maxId = Math.max(maxId, product.getId());
+            }
+            batch.add(product);
+            if (batch.size() == batchSize) {
+                imported += write(batch, changes);
+            }
+        }
+        imported += write(batch, changes);
+        if (maxId > 0) {
+            upserter.advanceSequencePast(maxId);
+        }
+        int marked = jdbcTemplate.update(MARK_DONE, imported, rejected, errors.isEmpty() ? null : String.join("\n", errors),
+                job.getId(), chunk.index());
+        if (marked == 0) {
+            // Another run of the same job got there first, rolling back keeps the rows from being applied twice
+            throw new IllegalStateException("Chunk " + chunk.index() + " of import " + job.getId() + " was already imported");
+        }
+        // One event for the whole chunk, listeners would otherwise lock and invalidate once per row
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new ProductBatchChangedEvent(changes));
+        }
+        return new ChunkResult(imported, rejected, changes);
+    }
+
+    private int write(List<ProductDetailDTO> batch, List<ProductChangedEvent> changes) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        // A row that came with an id may have been inserted or replaced, the upsert tells which
+        for (ProductUpserter.Upserted row : upserter.upsert(batch)) {
+            changes.add(row.created() ? ProductChangedEvent.created(row.product()) : ProductChangedEvent.updated(row.product()));
+        }
+        int written = batch.size();
+        batch.clear();
+        return written;
+    }
+
+    // Only the products of the chunk change in the products cache, clearing it would also drop the tombstones of
+    // deleted products that a slow reader may still put back. A re-created id replaces its tombstone.
+    private void updateCaches(List<ProductChangedEvent> changes) {
+        Cache products = cacheManager.getCache(CacheConfiguration.PRODUCTS);
+        if (products instanceof TransactionAwareCacheDecorator decorator) {
+            products = decorator.getTargetCache();
+        }
+        if (products != null) {
+            for (ProductChangedEvent change : changes) {
+                if (change.type() == ProductChangedEvent.Type.CREATED && products instanceof VersionedProductCache versioned) {
+                    versioned.reinstate(change.productId(), change.product());
+                } else {
+                    products.put(change.productId(), change.product());
+                }
+            }
+        }
+        Cache productList = cacheManager.getCache(CacheConfiguration.PRODUCT_LIST);
+        if (productList != null) {
+            productList.clear();
+        }
+        // The upserts went around Hibernate, a no-op unless app.l2-cache.enabled
+        entityManagerFactory.getCache().evict(Product.class);
+    }
+
+    private String validate(ProductDetailDTO product) {
+        Set<ConstraintViolation<ProductDetailDTO>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private ImportJob findJob(long id) {
+        return ReadRouting.onPrimary(() -> importJobRepository.findById(id))
+                .orElseThrow(() -> new ResourceNotFoundException("Import not found with id: " + id));
+    }
+
+    private ImportJobDTO toDTO(ImportJob job) {
+        Progress progress = jdbcTemplate.queryForObject(PROGRESS, (rs, rowNum) -> new Progress(rs.getInt(1), rs.getInt(2),
+                rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6)), job.getId());
+        List<String> errors = new ArrayList<>();
+        for (String chunkErrors : jdbcTemplate.queryForList(ERRORS, String.class, job.getId())) {
+            errors.addAll(Arrays.asList(chunkErrors.split("\n")));
+            if (errors.size() >= MAX_REPORTED_ERRORS) {
+                errors = errors.subList(0, MAX_REPORTED_ERRORS);
+                break;
+            }
+        }
+        // Running until the runner let go of the job, its final status may already be stored
+        RunningImport run = running.get(job.getId());
+        String status = run != null ? ImportJob.Status.RUNNING.name() : job.getStatus().name();
+        return new ImportJobDTO(job.getId(), job.getFormat().name(), job.getSource(), status,
+                progress.totalBytes(), progress.processedBytes(), progress.chunks(), progress.chunksDone(),
+                progress.rowsImported(), progress.rowsFailed(), run != null ? run.rowsPerSecond() : job.getRowsPerSecond(),
+                job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt(), job.getFailure(), errors);
+    }
+
+    // Spooled uploads are ours to remove once the job cannot be resumed any more, local files are left alone
+    private void deleteUpload(ImportJob job) {
+        Path source = Path.of(job.getSource());
+        if (!source.startsWith(directory) || !source.getFileName().toString().startsWith("upload-")) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(source);
+        } catch (IOException ex) {
+            log.warn("Could not delete spooled upload {}", source, ex);
+        }
+    }
+
+    static ImportJob.Format formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return ImportJob.Format.CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")) {
+            return ImportJob.Format.NDJSON;
+        }
+        throw new BadRequestException("Cannot tell the format of " + file.getFileName() + ", pass format=csv or format=ndjson");
+    }
+
+    // Millisecond precision, the database keeps fewer digits than the file system reports
+    private static Instant modifiedAt(Path file) throws IOException {
+        return Files.getLastModifiedTime(file).toInstant().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    // In-memory state of a job this instance is running
+    private static final class RunningImport {
+        private final long startedNanos = System.nanoTime();
+        private final LongAdder rowsImported = new LongAdder();
+        private final LongAdder rowsRejected = new LongAdder();
+        // Set to stop after the chunks in progress
+        private volatile ImportJob.Status stopAs;
+        private volatile Thread thread;
+
+        double rowsPerSecond() {
+            double seconds = (System.nanoTime() - startedNanos) / 1e9;
+            return seconds > 0 ? rowsImported.sum() / seconds : 0;
+        }
+    }
+}
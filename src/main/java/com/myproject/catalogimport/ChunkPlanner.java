@@ -0,0 +1,66 @@
+package com.socialhub.catalogimport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Splits the rows of an import file into chunks of about chunkSize bytes, each ending just after a line break.
+// NDJSON never has a raw line break inside a row, so the planner jumps to the target offset and looks for the next
+// one. A CSV field may hold line breaks in quotes, so there every byte is scanned once to track the quoting.
+final class ChunkPlanner {
+    private static final int SCAN_BUFFER_BYTES = 1 << 20;
+
+    record Range(long start, long end) {
+    }
+
+    private ChunkPlanner() {
+    }
+
+    static List<Range> plan(FileChannel channel, long dataStart, long chunkSize, boolean quotedLineBreaks)
+            throws IOException {
+        long size = channel.size();
+        List<Range> chunks = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+        boolean quoted = false;
+        long start = dataStart;
+        long position = dataStart;
+        while (start < size) {
+            // The first line break at or after this offset ends the chunk
+            long target = start + chunkSize - 1;
+            if (target >= size - 1) {
+                chunks.add(new Range(start, size));
+                break;
+            }
+            if (!quotedLineBreaks) {
+                position = target;
+            }
+            long end = -1;
+            while (end < 0) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer.get(i);
+                    if (quotedLineBreaks && b == '"') {
+                        quoted = !quoted;
+                    } else if (b == '\n' && !quoted && position + i >= target) {
+                        end = position + i + 1;
+                        break;
+                    }
+                }
+                if (end < 0) {
+                    position += read;
+                }
+            }
+            chunks.add(new Range(start, end));
+            start = end;
+            position = end;
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,277 @@
+package com.socialhub.catalogimport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+// CSV rows straight from the mapped bytes of a chunk: comma separated, fields holding commas, quotes or line breaks
+// in double quotes with inner quotes doubled, as written by the export. Field bytes are copied into one reused
+// buffer, numbers are parsed from there and only name and description become Strings.
+final class CsvRowReader implements RowReader {
+    static final int IGNORED = -1;
+    static final int ID = 0;
+    static final int NAME = 1;
+    static final int DESCRIPTION = 2;
+    static final int PRICE = 3;
+    static final int QUANTITY = 4;
+
+    // Longer header lines are not a product CSV
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+    private static final long INVALID = Long.MIN_VALUE;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final ByteBuffer buffer;
+    private final int[] columns;
+    private final int limit;
+    private int position;
+    private byte[] field = new byte[256];
+    private int fieldLength;
+
+    // Column position to field, from the header line
+    record Header(int[] columns, long dataStart) {
+    }
+
+    CsvRowReader(ByteBuffer buffer, int[] columns) {
+        this.buffer = buffer;
+        this.columns = columns;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    // The first line names the columns: name, price and quantity are required, id and description optional, others
+    // are skipped
+    static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(MAX_HEADER_BYTES, channel.size()));
+        channel.read(head, 0);
+        int end = 0;
+        while (end < head.position() && head.get(end) != '\n') {
+            end++;
+        }
+        if (end == head.position() && end == MAX_HEADER_BYTES) {
+            throw new IllegalArgumentException("CSV header line is too long");
+        }
+        String line = new String(head.array(), 0, end, StandardCharsets.UTF_8);
+        if (line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        String[] names = line.strip().split(",", -1);
+        int[] columns = new int[names.length];
+        boolean[] present = new boolean[QUANTITY + 1];
+        for (int i = 0; i < names.length; i++) {
+            columns[i] = switch (names[i].strip().replace("\"", "").toLowerCase(Locale.ROOT)) {
+                case "id" -> ID;
+                case "name" -> NAME;
+                case "description" -> DESCRIPTION;
+                case "price" -> PRICE;
+                case "quantity" -> QUANTITY;
+                default -> IGNORED;
+            };
+            if (columns[i] != IGNORED) {
+                if (present[columns[i]]) {
+                    throw new IllegalArgumentException("CSV header names column " + names[i].strip() + " twice");
+                }
+                present[columns[i]] = true;
+            }
+        }
+        if (!present[NAME] || !present[PRICE] || !present[QUANTITY]) {
+            throw new IllegalArgumentException("CSV header must name the columns name, price and quantity");
+        }
+        return new Header(columns, Math.min(end + 1L, channel.size()));
+    }
+
+    @Override
+    public boolean next(ImportRow row) {
+        // Blank lines between rows are skipped
+        while (position < limit && (buffer.get(position) == '\n' || buffer.get(position) == '\r')) {
+            position++;
+        }
+        if (position >= limit) {
+            return false;
+        }
+        row.reset(position);
+        int index = 0;
+        boolean more;
+        do {
+            more = readField(row);
+            assign(row, index < columns.length ? columns[index] : IGNORED);
+            index++;
+        } while (more);
+        return true;
+    }
+
+    // Copies the next field into the buffer and moves past its delimiter, false when it was the last of the row
+    private boolean readField(ImportRow row) {
+        fieldLength = 0;
+        if (position < limit && buffer.get(position) == '"') {
+            position++;
+            while (true) {
+                if (position >= limit) {
+                    row.fail("unterminated quoted field");
+                    return false;
+                }
+                byte b = buffer.get(position++);
+                if (b == '"') {
+                    if (position < limit && buffer.get(position) == '"') {
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+                append(b);
+            }
+            if (position < limit && !isDelimiter(buffer.get(position))) {
+                row.fail("unexpected character after a quoted field");
+                skipLine();
+                return false;
+            }
+        } else {
+            while (position < limit && !isDelimiter(buffer.get(position))) {
+                append(buffer.get(position++));
+            }
+        }
+        if (position >= limit) {
+            return false;
+        }
+        byte delimiter = buffer.get(position++);
+        if (delimiter == ',') {
+            return true;
+        }
+        if (delimiter == '\r' && position < limit && buffer.get(position) == '\n') {
+            position++;
+        }
+        return false;
+    }
+
+    private void assign(ImportRow row, int column) {
+        switch (column) {
+            case ID -> {
+                if (fieldLength > 0) {
+                    long id = parseLong();
+                    if (id == INVALID) {
+                        row.fail("id is not a number");
+                    } else {
+                        row.id = id;
+                    }
+                }
+            }
+            case NAME -> row.name = fieldLength > 0 ? string() : null;
+            // The export writes an empty field for a missing description
+            case DESCRIPTION -> row.description = fieldLength > 0 ? string() : null;
+            case PRICE -> {
+                if (fieldLength > 0) {
+                    double price = parseDouble();
+                    if (Double.isFinite(price)) {
+                        row.price = price;
+                        row.hasPrice = true;
+                    } else {
+                        row.fail("price is not a number");
+                    }
+                }
+            }
+            case QUANTITY -> {
+                if (fieldLength > 0) {
+                    long quantity = parseLong();
+                    if (quantity == INVALID || quantity != (int) quantity) {
+                        row.fail("quantity is not a whole number");
+                    } else {
+                        row.quantity = (int) quantity;
+                        row.hasQuantity = true;
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void append(byte b) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = b;
+    }
+
+    private void skipLine() {
+        while (position < limit && buffer.get(position++) != '\n') {
+            // nothing to keep
+        }
+    }
+
+    private String string() {
+        return new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+    }
+
+    // Optional sign and up to 18 digits, INVALID for anything else
+    private long parseLong() {
+        int i = 0;
+        boolean negative = false;
+        if (field[0] == '-' || field[0] == '+') {
+            negative = field[0] == '-';
+            i = 1;
+        }
+        if (i == fieldLength || fieldLength - i > 18) {
+            return INVALID;
+        }
+        long value = 0;
+        for (; i < fieldLength; i++) {
+            int digit = field[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // Plain decimals with up to 15 digits are exact as a long and a power of ten, so one division rounds them
+    // correctly. Everything else (exponents, long fractions) goes through Double.parseDouble. NaN when invalid.
+    private double parseDouble() {
+        int i = 0;
+        boolean negative = false;
+        if (field[0] == '-' || field[0] == '+') {
+            negative = field[0] == '-';
+            i = 1;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; i < fieldLength; i++) {
+            byte b = field[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (++digits > 15) {
+                    return slowParseDouble();
+                }
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else if (b == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                return slowParseDouble();
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        double value = mantissa / POWERS_OF_TEN[Math.max(fraction, 0)];
+        return negative ? -value : value;
+    }
+
+    private double slowParseDouble() {
+        try {
+            return Double.parseDouble(new String(field, 0, fieldLength, StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,55 @@
+package com.socialhub.catalogimport;
+
+import com.socialhub.dto.ProductDetailDTO;
+
+// Fields of the row being parsed. One instance is reused for every row of a chunk, only rows that parse become a
+// ProductDetailDTO.
+final class ImportRow {
+    // Byte offset of the row within its chunk
+    int offset;
+    Long id;
+    String name;
+    String description;
+    double price;
+    boolean hasPrice;
+    int quantity;
+    boolean hasQuantity;
+    private String error;
+
+    void reset(int offset) {
+        this.offset = offset;
+        id = null;
+        name = null;
+        description = null;
+        price = 0;
+        hasPrice = false;
+        quantity = 0;
+        hasQuantity = false;
+        error = null;
+    }
+
+    // Only the first problem of a row is reported
+    void fail(String message) {
+        if (error == null) {
+            error = message;
+        }
+    }
+
+    // Null when the row parsed, the field constraints are checked on the DTO afterwards
+    String error() {
+        if (error != null) {
+            return error;
+        }
+        if (id != null && id <= 0) {
+            return "id must be positive";
+        }
+        if (!hasPrice) {
+            return "price is required";
+        }
+        return hasQuantity ? null : "quantity is required";
+    }
+
+    ProductDetailDTO toProduct() {
+        return new ProductDetailDTO(id, name, description, price, quantity, null);
+    }
+}
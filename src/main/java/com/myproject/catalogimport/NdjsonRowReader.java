@@ -0,0 +1,148 @@
+package com.socialhub.catalogimport;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+// NDJSON rows read token by token with Jackson's streaming parser, without binding a tree or a DTO. Field names come
+// from the parser's symbol table, so only name and description become new Strings. A line that is not valid JSON
+// is reported and reading goes on after it with a fresh parser.
+final class NdjsonRowReader implements RowReader {
+    private final JsonFactory jsonFactory;
+    private final ByteBuffer buffer;
+    private final int limit;
+    // Where the current parser started reading, its offsets are relative to this
+    private int base;
+    private JsonParser parser;
+
+    NdjsonRowReader(JsonFactory jsonFactory, ByteBuffer buffer) {
+        this.jsonFactory = jsonFactory;
+        this.buffer = buffer;
+        this.base = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    @Override
+    public boolean next(ImportRow row) {
+        if (parser == null) {
+            if (base >= limit) {
+                return false;
+            }
+            parser = open(base);
+        }
+        int start = base + (int) parser.currentLocation().getByteOffset();
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                close();
+                base = limit;
+                return false;
+            }
+            start = base + (int) parser.currentTokenLocation().getByteOffset();
+            row.reset(start);
+            if (token != JsonToken.START_OBJECT) {
+                row.fail("row is not a JSON object");
+                parser.skipChildren();
+                return true;
+            }
+            readObject(row);
+            return true;
+        } catch (JsonProcessingException ex) {
+            row.reset(skipWhitespace(start));
+            row.fail("malformed JSON: " + ex.getOriginalMessage());
+            // Start over on the line after the one the bad row started on
+            base = lineEnd(row.offset);
+            close();
+            return true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void readObject(ImportRow row) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> {
+                    if (value == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                        row.id = parser.getLongValue();
+                    } else if (value != JsonToken.VALUE_NULL) {
+                        row.fail("id is not a number");
+                    }
+                }
+                case "name" -> row.name = text(row, value, "name");
+                case "description" -> row.description = text(row, value, "description");
+                case "price" -> {
+                    if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+                        row.price = parser.getDoubleValue();
+                        row.hasPrice = true;
+                    } else if (value != JsonToken.VALUE_NULL) {
+                        row.fail("price is not a number");
+                    }
+                }
+                case "quantity" -> {
+                    if (value == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+                        row.quantity = parser.getIntValue();
+                        row.hasQuantity = true;
+                    } else if (value != JsonToken.VALUE_NULL) {
+                        row.fail("quantity is not a whole number");
+                    }
+                }
+                default -> {
+                    // Unknown fields, e.g. from a newer export, are skipped
+                }
+            }
+            // Skips the contents when a value was an object or array, nothing for scalars
+            parser.skipChildren();
+        }
+    }
+
+    private String text(ImportRow row, JsonToken value, String field) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (value != JsonToken.VALUE_NULL) {
+            row.fail(field + " is not a string");
+        }
+        return null;
+    }
+
+    private JsonParser open(int from) {
+        try {
+            return jsonFactory.createParser(new ByteBufferBackedInputStream(buffer.slice(from, limit - from)));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Hands the parser's buffers back to Jackson's recycler
+    private void close() {
+        try {
+            parser.close();
+        } catch (IOException ex) {
+            // Reads from memory, there is nothing to release that could fail
+        }
+        parser = null;
+    }
+
+    private int skipWhitespace(int from) {
+        while (from < limit && Character.isWhitespace(buffer.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private int lineEnd(int from) {
+        while (from < limit && buffer.get(from++) != '\n') {
+            // nothing to keep
+        }
+        return from;
+    }
+}
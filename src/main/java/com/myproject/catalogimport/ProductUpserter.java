@@ -0,0 +1,151 @@
+package com.socialhub.catalogimport;
+
+import com.socialhub.dto.ProductDetailDTO;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Batched upserts of imported rows over plain JDBC, in the caller's transaction. PostgreSQL gets
+// INSERT ... ON CONFLICT, other databases (H2 in the tests) the standard MERGE. A replaced row gets its version
+// bumped like an update through JPA, so ETags and optimistic locking keep working. Every written row comes back with
+// its new version and whether it was inserted, so change events carry the same state a JPA write would publish.
+final class ProductUpserter {
+    private static final String POSTGRES_UPSERT = "insert into product (id, name, description, price, quantity, version, updated_at) "
+            + "values %s on conflict (id) do update set name = excluded.name, "
+            + "description = excluded.description, price = excluded.price, quantity = excluded.quantity, "
+            + "version = product.version + 1, updated_at = excluded.updated_at "
+            + "returning id, version, (xmax = 0) as inserted";
+    private static final String POSTGRES_ROW = "(?, ?, ?, ?, ?, 0, ?)";
+    // Six parameters per row, well below the 32767 bind parameters PostgreSQL allows per statement
+    private static final int POSTGRES_MAX_ROWS = 5_000;
+    private static final String MERGE = "merge into product p using (values (cast(? as bigint), cast(? as varchar(255)), "
+            + "cast(? as varchar(255)), cast(? as double precision), cast(? as integer), cast(? as timestamp with time zone))) "
+            + "s (id, name, description, price, quantity, updated_at) on p.id = s.id "
+            + "when matched then update set name = s.name, description = s.description, price = s.price, "
+            + "quantity = s.quantity, version = p.version + 1, updated_at = s.updated_at "
+            + "when not matched then insert (id, name, description, price, quantity, version, updated_at) "
+            + "values (s.id, s.name, s.description, s.price, s.quantity, 0, s.updated_at)";
+    // allocationSize of product_seq, Hibernate hands out the block of ids below each sequence value
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final boolean postgres;
+
+    // A written row with its version after the write
+    record Upserted(ProductDetailDTO product, boolean created) {
+    }
+
+    ProductUpserter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        this.postgres = database != null && database.toLowerCase(Locale.ROOT).contains("postgres");
+    }
+
+    // Rows without an id get one from product_seq first (like data.sql). A row whose id comes again later in the same
+    // batch is superseded by it, as if they had been written one after the other.
+    List<Upserted> upsert(List<ProductDetailDTO> rows) {
+        int missing = 0;
+        for (ProductDetailDTO row : rows) {
+            if (row.getId() == null) {
+                missing++;
+            }
+        }
+        if (missing > 0) {
+            Iterator<Long> ids = jdbcTemplate.queryForList(postgres
+                    ? "select nextval('product_seq') from generate_series(1, ?)"
+                    : "select nextval('product_seq') from system_range(1, ?)", Long.class, missing).iterator();
+            for (ProductDetailDTO row : rows) {
+                if (row.getId() == null) {
+                    row.setId(ids.next());
+                }
+            }
+        }
+        Map<Long, ProductDetailDTO> latest = new LinkedHashMap<>();
+        for (ProductDetailDTO row : rows) {
+            latest.remove(row.getId());
+            latest.put(row.getId(), row);
+        }
+        List<ProductDetailDTO> distinct = new ArrayList<>(latest.values());
+        OffsetDateTime updatedAt = OffsetDateTime.ofInstant(Instant.now(), ZoneOffset.UTC);
+        return postgres ? upsertReturning(distinct, updatedAt) : mergeAndReselect(distinct, updatedAt);
+    }
+
+    // One multi-row statement per slice, RETURNING reports the new version and xmax = 0 marks a fresh insert
+    private List<Upserted> upsertReturning(List<ProductDetailDTO> rows, OffsetDateTime updatedAt) {
+        List<Upserted> upserted = new ArrayList<>(rows.size());
+        for (int start = 0; start < rows.size(); start += POSTGRES_MAX_ROWS) {
+            List<ProductDetailDTO> slice = rows.subList(start, Math.min(start + POSTGRES_MAX_ROWS, rows.size()));
+            Map<Long, ProductDetailDTO> byId = new HashMap<>();
+            List<Object> parameters = new ArrayList<>(slice.size() * 6);
+            for (ProductDetailDTO row : slice) {
+                byId.put(row.getId(), row);
+                Collections.addAll(parameters, row.getId(), row.getName(), row.getDescription(), row.getPrice(),
+                        row.getQuantity(), updatedAt);
+            }
+            String sql = String.format(POSTGRES_UPSERT, String.join(", ", Collections.nCopies(slice.size(), POSTGRES_ROW)));
+            jdbcTemplate.query(sql, resultSet -> {
+                ProductDetailDTO row = byId.get(resultSet.getLong(1));
+                row.setVersion(resultSet.getLong(2));
+                upserted.add(new Upserted(row, resultSet.getBoolean(3)));
+            }, parameters.toArray());
+        }
+        return upserted;
+    }
+
+    // MERGE reports neither, so look up which ids exist before and read the versions back after, in the same
+    // transaction
+    private List<Upserted> mergeAndReselect(List<ProductDetailDTO> rows, OffsetDateTime updatedAt) {
+        Map<String, Object> ids = Map.of("ids", rows.stream().map(ProductDetailDTO::getId).toList());
+        Set<Long> existing = new HashSet<>(namedJdbcTemplate.queryForList("select id from product where id in (:ids)",
+                ids, Long.class));
+        jdbcTemplate.batchUpdate(MERGE, rows, rows.size(), (statement, row) -> {
+            statement.setLong(1, row.getId());
+            statement.setString(2, row.getName());
+            statement.setString(3, row.getDescription());
+            statement.setDouble(4, row.getPrice());
+            statement.setInt(5, row.getQuantity());
+            statement.setObject(6, updatedAt);
+        });
+        Map<Long, Long> versions = new HashMap<>();
+        namedJdbcTemplate.query("select id, version from product where id in (:ids)", ids,
+                resultSet -> {
+                    versions.put(resultSet.getLong(1), resultSet.getLong(2));
+                });
+        List<Upserted> upserted = new ArrayList<>(rows.size());
+        for (ProductDetailDTO row : rows) {
+            row.setVersion(versions.get(row.getId()));
+            upserted.add(new Upserted(row, !existing.contains(row.getId())));
+        }
+        return upserted;
+    }
+
+    // Imported rows may carry ids the sequence has not reached yet. Moving it past them keeps later inserts through
+    // JPA from running into those rows; a block of ids an instance already holds is not covered.
+    void advanceSequencePast(long maxId) {
+        if (postgres) {
+            jdbcTemplate.queryForObject("select setval('product_seq', greatest((select last_value from product_seq), ?))",
+                    Long.class, maxId);
+            return;
+        }
+        Long next = jdbcTemplate.queryForObject("select nextval('product_seq')", Long.class);
+        if (next != null && next - SEQUENCE_INCREMENT < maxId) {
+            jdbcTemplate.execute("alter sequence product_seq restart with " + (maxId + SEQUENCE_INCREMENT));
+        }
+    }
+}
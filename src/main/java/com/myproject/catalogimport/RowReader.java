@@ -0,0 +1,8 @@
+package com.socialhub.catalogimport;
+
+// Reads the rows of one chunk into a reused ImportRow
+interface RowReader {
+
+    // False at the end of the chunk. A row that could not be parsed is still returned, with its error set.
+    boolean next(ImportRow row);
+}
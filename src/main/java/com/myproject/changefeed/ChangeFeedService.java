@@ -0,0 +1,301 @@
+package com.socialhub.changefeed;
+
+import com.socialhub.dto.ChangeDTO;
+import com.socialhub.dto.ChangeFeedDTO;
+import com.socialhub.exception.BadRequestException;
+import com.socialhub.exception.CursorExpiredException;
+import com.socialhub.model.ChangeLogEntry;
+import com.socialhub.model.ChangeLogEntry.EntityType;
+import com.socialhub.repository.ChangeLogRepository;
+import com.socialhub.routing.ReadRouting;
+import com.socialhub.service.CursorCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Incremental change feed over change_log. Clients keep an opaque cursor and receive only what changed after it,
+// with several changes to the same product or user folded into the latest one. Long-poll requests and SSE streams
+// that are caught up wait as subscribers; one scheduled query per tick serves all of them.
+@Slf4j
+@Service
+public class ChangeFeedService {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 5_000;
+    public static final long MAX_WAIT_SECONDS = 60;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long settleMillis;
+    private final Duration retention;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public ChangeFeedService(ChangeLogRepository changeLogRepository,
+                             JdbcTemplate jdbcTemplate,
+                             @Value("${app.changes.settle-ms:2000}") long settleMillis,
+                             @Value("${app.changes.retention-hours:168}") long retentionHours) {
+        this.changeLogRepository = changeLogRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.settleMillis = settleMillis;
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    // Changes after the cursor (from the start of the retained log when null), entity is "product", "user" or null
+    public ChangeFeedDTO read(String cursor, String entity, int limit) {
+        return read(position(cursor), entityType(entity), clamp(limit));
+    }
+
+    // Cursor at the current end of the log: take it before a full fetch, then follow the feed from it
+    public ChangeFeedDTO head() {
+        Long maxId = ReadRouting.onPrimary(changeLogRepository::findMaxId);
+        return new ChangeFeedDTO(List.of(), CursorCodec.encode(maxId != null ? maxId : 0L), false);
+    }
+
+    // Answers at once when there are changes, otherwise when the first one arrives or after waitSeconds
+    public DeferredResult<ChangeFeedDTO> poll(String cursor, String entity, int limit, long waitSeconds) {
+        EntityType entityType = entityType(entity);
+        int batchSize = clamp(limit);
+        ChangeFeedDTO immediate = read(position(cursor), entityType, batchSize);
+        long wait = Math.max(0, Math.min(waitSeconds, MAX_WAIT_SECONDS));
+        DeferredResult<ChangeFeedDTO> result = new DeferredResult<>(Duration.ofSeconds(Math.max(wait, 1)).toMillis());
+        if (wait == 0 || !immediate.getChanges().isEmpty() || immediate.isHasMore()) {
+            result.setResult(immediate);
+            return result;
+        }
+        LongPoll waiter = new LongPoll(CursorCodec.decode(immediate.getCursor()), entityType, batchSize, result);
+        result.onTimeout(() -> {
+            subscribers.remove(waiter);
+            result.setResult(new ChangeFeedDTO(List.of(), CursorCodec.encode(waiter.position), false));
+        });
+        result.onCompletion(() -> subscribers.remove(waiter));
+        subscribers.add(waiter);
+        return result;
+    }
+
+    // Sends the backlog after the cursor, then every new batch as an SSE event whose id is the cursor
+    public SseEmitter stream(String cursor, String entity) {
+        EntityType entityType = entityType(entity);
+        SseEmitter emitter = new SseEmitter();
+        Stream stream = new Stream(position(cursor), entityType, emitter);
+        ChangeFeedDTO batch;
+        do {
+            batch = read(stream.position, entityType, MAX_BATCH_SIZE);
+            stream.position = CursorCodec.decode(batch.getCursor());
+            if (!batch.getChanges().isEmpty() && !stream.deliver(batch)) {
+                return emitter;
+            }
+        } while (batch.isHasMore());
+        emitter.onCompletion(() -> subscribers.remove(stream));
+        emitter.onTimeout(() -> subscribers.remove(stream));
+        emitter.onError(ex -> subscribers.remove(stream));
+        subscribers.add(stream);
+        return emitter;
+    }
+
+    // One read for all waiting subscribers, starting at the one furthest behind
+    @Scheduled(fixedDelayString = "${app.changes.poll-interval-ms:500}")
+    public void dispatch() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        long from = subscribers.stream().mapToLong(subscriber -> subscriber.position).min().orElse(0L);
+        List<ChangeLogEntry> entries = settled(findAfter(from, MAX_BATCH_SIZE));
+        if (entries.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            ChangeFeedDTO batch = compact(entries, subscriber.position, subscriber.entityType, subscriber.limit);
+            long position = CursorCodec.decode(batch.getCursor());
+            if (position == subscriber.position) {
+                continue;
+            }
+            subscriber.position = position;
+            // Entries of the other entity type only move the cursor on
+            if (!batch.getChanges().isEmpty() && !subscriber.deliver(batch)) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    // Idle streams would otherwise only notice a client that went away when the next change is sent
+    @Scheduled(fixedDelayString = "${app.changes.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber instanceof Stream stream && !stream.ping()) {
+                subscribers.remove(stream);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.changes.purge-interval-ms:3600000}")
+    public void purge() {
+        int purged = changeLogRepository.deleteCreatedBefore(Instant.now().minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} change log entries older than {}", purged, retention);
+        }
+    }
+
+    private ChangeFeedDTO read(long position, EntityType entityType, int limit) {
+        List<ChangeLogEntry> entries = findAfter(position, limit);
+        if (position > 0 && (entries.isEmpty() || entries.get(0).getId() > position + 1)) {
+            checkNotPurged(position);
+        }
+        return compact(settled(entries), position, entityType, limit);
+    }
+
+    // Always from the primary: a lagging replica could show an entry while one with a lower id is still missing
+    // there, and once past the settle window the cursor would move over it
+    private List<ChangeLogEntry> findAfter(long position, int limit) {
+        return ReadRouting.onPrimary(() -> changeLogRepository.findAfter(position, Limit.of(limit)));
+    }
+
+    // A gap right after the cursor is normal (rolled back transactions also use up ids), unless the retention purge
+    // already removed entries the client has not seen
+    private void checkNotPurged(long position) {
+        Long minId = ReadRouting.onPrimary(changeLogRepository::findMinId);
+        if (minId != null && position < minId - 1) {
+            throw new CursorExpiredException("Cursor is older than the retained change log, fetch everything again");
+        }
+    }
+
+    // Entries up to the first one still inside the settle window, a transaction with a lower id may commit yet.
+    // Measured on the database clock that stamped the entries, so the clocks of the instances do not matter.
+    private List<ChangeLogEntry> settled(List<ChangeLogEntry> entries) {
+        if (entries.isEmpty()) {
+            return entries;
+        }
+        Instant settledBefore = ReadRouting.onPrimary(
+                () -> jdbcTemplate.queryForObject("select current_timestamp", Timestamp.class)).toInstant().minusMillis(settleMillis);
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).getCreatedAt().isAfter(settledBefore)) {
+                return entries.subList(0, i);
+            }
+        }
+        return entries;
+    }
+
+    // Latest change per entity among the first limit entries after the position
+    private static ChangeFeedDTO compact(List<ChangeLogEntry> entries, long position, EntityType entityType, int limit) {
+        Map<String, ChangeDTO> latest = new LinkedHashMap<>();
+        long last = position;
+        int scanned = 0;
+        for (ChangeLogEntry entry : entries) {
+            if (entry.getId() <= position) {
+                continue;
+            }
+            if (scanned == limit) {
+                break;
+            }
+            scanned++;
+            last = entry.getId();
+            if (entityType != null && entry.getEntityType() != entityType) {
+                continue;
+            }
+            String entity = entry.getEntityType().name().toLowerCase(Locale.ROOT);
+            ChangeDTO previous = latest.remove(entity + ':' + entry.getEntityId());
+            // Created and then updated within the batch is still news of a creation to the client
+            String type = previous != null && "CREATED".equals(previous.getType()) && "UPDATED".equals(entry.getChangeType())
+                    ? previous.getType() : entry.getChangeType();
+            latest.put(entity + ':' + entry.getEntityId(), new ChangeDTO(entity, entry.getEntityId(), type, entry.getPayload()));
+        }
+        return new ChangeFeedDTO(new ArrayList<>(latest.values()), CursorCodec.encode(last), scanned == limit);
+    }
+
+    private static long position(String cursor) {
+        return cursor == null || cursor.isBlank() ? 0L : CursorCodec.decode(cursor);
+    }
+
+    private static EntityType entityType(String entity) {
+        if (entity == null || entity.isBlank()) {
+            return null;
+        }
+        try {
+            return EntityType.valueOf(entity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("entity must be product or user");
+        }
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_BATCH_SIZE));
+    }
+
+    // Position is only advanced by the dispatcher (and by stream() before the subscriber is registered)
+    private abstract static class Subscriber {
+        volatile long position;
+        final EntityType entityType;
+        final int limit;
+
+        Subscriber(long position, EntityType entityType, int limit) {
+            this.position = position;
+            this.entityType = entityType;
+            this.limit = limit;
+        }
+
+        // False when the subscriber is done and should be dropped
+        abstract boolean deliver(ChangeFeedDTO batch);
+    }
+
+    private static final class LongPoll extends Subscriber {
+        private final DeferredResult<ChangeFeedDTO> result;
+
+        LongPoll(long position, EntityType entityType, int limit, DeferredResult<ChangeFeedDTO> result) {
+            super(position, entityType, limit);
+            this.result = result;
+        }
+
+        @Override
+        boolean deliver(ChangeFeedDTO batch) {
+            result.setResult(batch);
+            return false;
+        }
+    }
+
+    private static final class Stream extends Subscriber {
+        private final SseEmitter emitter;
+
+        Stream(long position, EntityType entityType, SseEmitter emitter) {
+            super(position, entityType, MAX_BATCH_SIZE);
+            this.emitter = emitter;
+        }
+
+        @Override
+        boolean deliver(ChangeFeedDTO batch) {
+            try {
+                // The event id lets EventSource resume with Last-Event-ID after a reconnect
+                emitter.send(SseEmitter.event().id(batch.getCursor()).name("changes").data(batch, MediaType.APPLICATION_JSON));
+                return true;
+            } catch (IOException | IllegalStateException ex) {
+                emitter.completeWithError(ex);
+                return false;
+            }
+        }
+
+        boolean ping() {
+            try {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+                return true;
+            } catch (IOException | IllegalStateException ex) {
+                emitter.completeWithError(ex);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.socialhub.changefeed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialhub.event.ProductBatchChangedEvent;
+import com.socialhub.event.ProductChangedEvent;
+import com.socialhub.event.UserChangedEvent;
+import com.socialhub.model.ChangeLogEntry.EntityType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Transactional outbox for the change feed. Change events are collected while the transaction runs and written to
+// change_log in one JDBC batch just before it commits, so an entry exists exactly when its mutation committed.
+// Ids come from nextval() at that late point, which keeps them close to commit order; ChangeFeedService only hands
+// out entries older than a short settle window to cover transactions that took an id but have not committed yet.
+// created_at is the database clock when the entry is written, the same clock the settle window is measured on.
+@Slf4j
+@Component
+public class ChangeLogRecorder {
+    // On PostgreSQL the time of the insert itself; current_timestamp would be when the transaction started, and a
+    // long transaction would get an entry that looks settled long before it commits. H2 only has the latter.
+    private static final String INSERT = "insert into change_log (id, entity_type, entity_id, change_type, payload, created_at) "
+            + "values (nextval('change_log_seq'), ?, ?, ?, ?, %s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final String insert;
+    private final long settleNanos;
+
+    public ChangeLogRecorder(JdbcTemplate jdbcTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${app.changes.settle-ms:2000}") long settleMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        boolean postgres = database != null && database.toLowerCase(Locale.ROOT).contains("postgres");
+        this.insert = INSERT.formatted(postgres ? "clock_timestamp()" : "current_timestamp");
+        this.settleNanos = TimeUnit.MILLISECONDS.toNanos(settleMillis);
+    }
+
+    private record Change(EntityType entityType, Long entityId, String changeType, Object state) {
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        record(List.of(product(event)));
+    }
+
+    @EventListener
+    public void onProductsChanged(ProductBatchChangedEvent event) {
+        record(event.changes().stream().map(ChangeLogRecorder::product).toList());
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        record(List.of(new Change(EntityType.USER, event.userId(), event.type().name(), event.user())));
+    }
+
+    private static Change product(ProductChangedEvent event) {
+        return new Change(EntityType.PRODUCT, event.productId(), event.type().name(), event.product());
+    }
+
+    private void record(List<Change> changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Published outside a transaction, the mutation is already committed
+            write(changes);
+            return;
+        }
+        pendingChanges().changes.addAll(changes);
+    }
+
+    // One collector per transaction. Looked up among the registered synchronizations rather than bound as a
+    // resource, so a REQUIRES_NEW transaction (which suspends the outer synchronizations) gets its own.
+    private PendingChanges pendingChanges() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.recorder() == this) {
+                return pending;
+            }
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private void write(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            rows.add(new Object[]{change.entityType().name(), change.entityId(), change.changeType(), toJson(change.state())});
+        }
+        jdbcTemplate.batchUpdate(insert, rows);
+    }
+
+    private String toJson(Object state) {
+        if (state == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(state);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize change for the change log", ex);
+        }
+    }
+
+    private final class PendingChanges implements TransactionSynchronization {
+        private final List<Change> changes = new ArrayList<>();
+        private long writtenAt;
+
+        ChangeLogRecorder recorder() {
+            return ChangeLogRecorder.this;
+        }
+
+        // Runs inside the transaction, a failure here rolls the mutation back with it
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            write(changes);
+            writtenAt = System.nanoTime();
+        }
+
+        // Followers may already have moved their cursor past entries that took this long to commit
+        @Override
+        public void afterCompletion(int status) {
+            long commitNanos = System.nanoTime() - writtenAt;
+            if (status == STATUS_COMMITTED && !changes.isEmpty() && commitNanos > settleNanos) {
+                log.warn("{} change log entries committed {} ms after they were written, more than app.changes.settle-ms; "
+                        + "change feed clients may have missed them", changes.size(), TimeUnit.NANOSECONDS.toMillis(commitNanos));
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.socialhub.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_LIST = "productList";
+
+    // Local in-process cache (Caffeine, W-TinyLFU eviction). A distributed cache can be plugged in
+    // by adding another CacheManager bean for a new app.cache.type value.
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.type", havingValue = "local", matchIfMissing = true)
+    public CacheManager cacheManager(@Value("${app.cache.products.spec}") String productsSpec,
+                                     @Value("${app.cache.product-list.spec}") String productListSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return PRODUCTS.equals(name)
+                        ? new VersionedProductCache(name, cache, isAllowNullValues())
+                        : super.adaptCaffeineCache(name, cache);
+            }
+        };
+        cacheManager.registerCustomCache(PRODUCTS, Caffeine.from(productsSpec).build());
+        cacheManager.registerCustomCache(PRODUCT_LIST, Caffeine.from(productListSpec).build());
+        // Only the registered caches exist, a typo in a cache name should fail instead of creating an unbounded cache
+        cacheManager.setCacheNames(List.of());
+        // Puts and evictions are applied after the surrounding transaction commits, so a rolled back
+        // write never leaves its value in the cache
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.type", havingValue = "none")
+    public CacheManager noOpCacheManager() {
+        return new NoOpCacheManager();
+    }
+}
@@ -1,60 +1,95 @@
 package com.socialhub.config;
 
-import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Locale;
+import java.util.Map;
+
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class DatabaseSequenceInitializer implements ApplicationListener<ContextRefreshedEvent> {
+    // Ids are handed out in pooled blocks of this size, the block of a sequence value V is (V - 50, V]
+    private static final int ALLOCATION_SIZE = 50;
+    // Sequence name to the table whose ids it generates
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "product_seq", "product",
+            "user_seq", "\"user\"");
 
     private final EntityManager entityManager;
     private final PlatformTransactionManager transactionManager;
     private boolean initialized = false;
 
+    @Value("${app.db.sync-sequences:false}")
+    private boolean syncSequences;
+
     @Override
     public void onApplicationEvent(ContextRefreshedEvent event) {
         if (!initialized) {
-            //initializeSequences();
+            if (syncSequences) {
+                initializeSequences();
+            }
             initialized = true;
         }
     }
 
-    private void initializeSequences() {
+    // One transaction per sequence, a sequence that cannot be synced is logged and does not stop the others or
+    // the application. information_schema works on PostgreSQL and H2 alike.
+    void initializeSequences() {
         TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        SEQUENCES.forEach((sequence, table) -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> initializeSequence(sequence, table));
+            } catch (RuntimeException ex) {
+                log.warn("Could not move {} past the ids in {}: {}", sequence, table, ex.getMessage());
+            }
+        });
+    }
 
-        transactionTemplate.execute(status -> {
-            // Update course sequence
-            entityManager.createNativeQuery(
-                            "SELECT setval('course_seq', COALESCE((SELECT MAX(id) FROM course), 0), false)",
-                            Long.class)
-                    .getSingleResult();
-
-            // Update professor sequence
-            entityManager.createNativeQuery(
-                            "SELECT setval('professor_seq', COALESCE((SELECT MAX(professor_id) FROM professor), 0), false)",
-                            Long.class)
-                    .getSingleResult();
-
-            // Update student sequence
-            entityManager.createNativeQuery(
-                            "SELECT setval('student_seq', COALESCE((SELECT MAX(id) FROM student), 0), false)",
-                            Long.class)
-                    .getSingleResult();
-
-            // Update student profile sequence
-            entityManager.createNativeQuery(
-                            "SELECT setval('student_profile_seq', COALESCE((SELECT MAX(id) FROM student_profile), 0), false)",
-                            Long.class)
+    private void initializeSequence(String sequence, String table) {
+        Number exists = (Number) entityManager.createNativeQuery(
+                        "SELECT COUNT(*) FROM information_schema.sequences WHERE sequence_name = :name")
+                .setParameter("name", sequence)
+                .getSingleResult();
+        if (exists.longValue() == 0) {
+            log.warn("Sequence {} does not exist, ids of {} are not synced", sequence, table);
+            return;
+        }
+        if (isPostgres()) {
+            // One statement, so an instance that takes a value in between is never moved backwards. The next value
+            // is then at least a full block past the highest id.
+            Number value = (Number) entityManager.createNativeQuery("SELECT setval('" + sequence + "', GREATEST("
+                            + "(SELECT COALESCE(MAX(id), 0) FROM " + table + "), (SELECT last_value FROM " + sequence + ")))")
                     .getSingleResult();
+            log.info("Synced {} to {} past the highest id in {}", sequence, value, table);
+            return;
+        }
+        // H2 has no setval. Only for tests and local runs, where no other instance shares the sequence.
+        long maxId = ((Number) entityManager.createNativeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)
+                .getSingleResult()).longValue();
+        // Costs one value of the sequence, which only leaves a gap in the ids
+        long next = ((Number) entityManager.createNativeQuery("SELECT nextval('" + sequence + "')")
+                .getSingleResult()).longValue();
+        // A full block of headroom past the highest id, and never backwards
+        long target = maxId + ALLOCATION_SIZE;
+        if (next < target) {
+            entityManager.createNativeQuery("ALTER SEQUENCE " + sequence + " RESTART WITH " + target).executeUpdate();
+            log.info("Moved {} from {} to {} past the highest id in {}", sequence, next, target, table);
+        }
+    }
 
-            return null;
-        });
+    private boolean isPostgres() {
+        String database = entityManager.unwrap(Session.class)
+                .doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+        return database != null && database.toLowerCase(Locale.ROOT).contains("postgres");
     }
-}
\ No newline at end of file
+}
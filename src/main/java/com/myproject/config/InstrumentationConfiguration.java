@@ -0,0 +1,33 @@
+package com.socialhub.config;
+
+import com.socialhub.metrics.SqlStatementInspector;
+import com.socialhub.metrics.SqlStatementMetricsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Request, service and repository timings come from Spring's own instrumentation (see application.properties).
+// This adds the per-request SQL statement counts and sampled SQL logging on top.
+@Configuration
+@ConditionalOnProperty(name = "app.instrumentation.enabled", havingValue = "true")
+public class InstrumentationConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementInspectorCustomizer(
+            @Value("${app.instrumentation.sql-sample-rate:0}") double sampleRate) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementInspector(sampleRate));
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementMetricsFilter> sqlStatementMetricsFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<SqlStatementMetricsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatementMetricsFilter(meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
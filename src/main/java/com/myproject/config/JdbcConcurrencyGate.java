@@ -0,0 +1,123 @@
+package com.socialhub.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Admission gate in front of the connection pool. With virtual threads any number of requests can reach
+// getConnection at once; the semaphore parks them cheaply instead of letting them pile up inside the pool.
+// Meters carry the pool name as "pool" tag, like the hikaricp.* meters of the same pool.
+public class JdbcConcurrencyGate extends DelegatingDataSource {
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final long timeoutMillis;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public JdbcConcurrencyGate(DataSource target, String poolName, int maxPermits, long timeoutMillis,
+                               MeterRegistry meterRegistry) {
+        super(target);
+        this.permits = new Semaphore(maxPermits, true);
+        this.maxPermits = maxPermits;
+        this.timeoutMillis = timeoutMillis;
+        this.waitTimer = Timer.builder("jdbc.gate.wait")
+                .description("Time spent waiting for a JDBC gate permit")
+                .publishPercentileHistogram()
+                .tag("pool", poolName)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("jdbc.gate.rejected")
+                .description("Connection requests that timed out waiting for a permit")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+        Gauge.builder("jdbc.gate.permits.in-use", this, gate -> gate.maxPermits - gate.permits.availablePermits())
+                .description("Permits currently held by open connections")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+        Gauge.builder("jdbc.gate.queue", permits, Semaphore::getQueueLength)
+                .description("Threads waiting for a permit")
+                .tag("pool", poolName)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a JDBC gate permit", ex);
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new SQLTransientConnectionException("No JDBC gate permit available within " + timeoutMillis + " ms");
+        }
+    }
+
+    // The permit is returned exactly once, when the connection goes back to the pool
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+}
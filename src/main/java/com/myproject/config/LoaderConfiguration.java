@@ -0,0 +1,74 @@
+package com.socialhub.config;
+
+import com.socialhub.dto.UserResponse;
+import com.socialhub.repository.UserRepository;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.event.ProductBatchChangedEvent;
+import com.socialhub.event.ProductChangedEvent;
+import com.socialhub.event.UserChangedEvent;
+import com.socialhub.repository.ProductRepository;
+import com.socialhub.service.BatchingLoader;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Loaders behind getProductById/getUserById and the product multi-get: bursts of lookups by id become a few IN queries
+@Configuration
+public class LoaderConfiguration {
+
+    @Bean
+    public BatchingLoader<Long, ProductDetailDTO> productLoader(ProductRepository productRepository,
+                                                                MeterRegistry meterRegistry,
+                                                                @Value("${app.loader.window-micros:1000}") long windowMicros,
+                                                                @Value("${app.loader.max-batch-size:100}") int maxBatchSize) {
+        return new BatchingLoader<>("product",
+                ids -> productRepository.findDetailsByIdIn(ids).stream()
+                        .collect(Collectors.toMap(ProductDetailDTO::getId, Function.identity())),
+                windowMicros, maxBatchSize, meterRegistry);
+    }
+
+    @Bean
+    public BatchingLoader<Long, UserResponse> userLoader(UserRepository userRepository,
+                                                         MeterRegistry meterRegistry,
+                                                         @Value("${app.loader.window-micros:1000}") long windowMicros,
+                                                         @Value("${app.loader.max-batch-size:100}") int maxBatchSize) {
+        return new BatchingLoader<>("user",
+                ids -> userRepository.findResponsesByIdIn(ids).stream()
+                        .collect(Collectors.toMap(UserResponse::getId, Function.identity())),
+                windowMicros, maxBatchSize, meterRegistry);
+    }
+
+    // After a commit, new loads of the changed id start their own query instead of joining one that may have
+    // read the row before the change
+    @Component
+    static class LoaderInvalidation {
+        private final BatchingLoader<Long, ProductDetailDTO> productLoader;
+        private final BatchingLoader<Long, UserResponse> userLoader;
+
+        LoaderInvalidation(BatchingLoader<Long, ProductDetailDTO> productLoader, BatchingLoader<Long, UserResponse> userLoader) {
+            this.productLoader = productLoader;
+            this.userLoader = userLoader;
+        }
+
+        @TransactionalEventListener(fallbackExecution = true)
+        public void onProductChanged(ProductChangedEvent event) {
+            productLoader.forget(event.productId());
+        }
+
+        @TransactionalEventListener(fallbackExecution = true)
+        public void onProductsChanged(ProductBatchChangedEvent event) {
+            productLoader.forgetAll(event.changes().stream().map(ProductChangedEvent::productId).toList());
+        }
+
+        @TransactionalEventListener(fallbackExecution = true)
+        public void onUserChanged(UserChangedEvent event) {
+            userLoader.forget(event.userId());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.socialhub.config;
+
+import com.socialhub.routing.ReadYourWritesFilter;
+import com.socialhub.routing.ReplicaProperties;
+import com.socialhub.routing.ReplicaRouting;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Opt-in read replicas. Replaces the auto-configured DataSource with one that hands read-only transactions
+// (@Transactional(readOnly = true), e.g. the query methods of ProductService and UserService) to a replica pool and
+// everything else to the primary pool built from spring.datasource.*
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfiguration {
+
+    @Bean
+    public ReplicaRouting replicaRouting(DataSourceProperties dataSourceProperties, ReplicaProperties properties,
+                                         Environment environment, MeterRegistry meterRegistry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("primary");
+        }
+        // Replica pools have their own connection timeout, only the primary pool gets the JDBC gate
+        DataSource primaryConnections = environment.getProperty("app.jdbc-gate.enabled", Boolean.class, false)
+                ? VirtualThreadConfiguration.gate(primary, primary.getPoolName(), environment, meterRegistry)
+                : primary;
+        return new ReplicaRouting(primary, primaryConnections, properties, meterRegistry);
+    }
+
+    // The transaction manager marks the connection read-only before the first statement; the lazy proxy only
+    // fetches a real connection at that statement, so it can still pick the replica side
+    @Bean
+    public DataSource dataSource(ReplicaRouting replicaRouting) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicaRouting.primary());
+        dataSource.setReadOnlyDataSource(replicaRouting.readOnlyDataSource());
+        return dataSource;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilterRegistration(ReplicaProperties properties) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(properties.readYourWrites()));
+        registration.addUrlPatterns("/api/*");
+        // After admission control and the response cache, only requests that reach the services need it
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 30);
+        return registration;
+    }
+}
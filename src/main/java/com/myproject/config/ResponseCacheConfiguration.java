@@ -0,0 +1,42 @@
+package com.socialhub.config;
+
+import com.socialhub.responsecache.ResponseCacheFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Set;
+
+// Pre-serialized, pre-compressed responses for the catalog listings
+@Configuration
+@ConditionalOnProperty(name = "app.response-cache.enabled", havingValue = "true")
+public class ResponseCacheConfiguration {
+
+    @Bean
+    public ResponseCacheFilter responseCacheFilter(@Value("${app.response-cache.paths}") Set<String> paths,
+                                                   @Value("${app.response-cache.max-size:64MB}") DataSize maxSize,
+                                                   @Value("${app.response-cache.max-entry-size:16MB}") DataSize maxEntrySize,
+                                                   @Value("${app.response-cache.ttl-ms:30000}") long ttlMillis,
+                                                   @Value("${app.response-cache.min-compress-size:1KB}") DataSize minCompressSize,
+                                                   @Value("${app.response-cache.large-body-size:4MB}") DataSize largeBodySize,
+                                                   @Value("${app.response-cache.zstd:true}") boolean zstd,
+                                                   MeterRegistry meterRegistry) {
+        return new ResponseCacheFilter(paths, maxSize.toBytes(), (int) maxEntrySize.toBytes(), Duration.ofMillis(ttlMillis),
+                (int) minCompressSize.toBytes(), (int) largeBodySize.toBytes(), zstd, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilterRegistration(ResponseCacheFilter responseCacheFilter) {
+        FilterRegistrationBean<ResponseCacheFilter> registration = new FilterRegistrationBean<>(responseCacheFilter);
+        registration.addUrlPatterns("/api/*");
+        // After admission control, so cached responses still count against a client's rate limit
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+}
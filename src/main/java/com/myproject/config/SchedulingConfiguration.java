@@ -0,0 +1,10 @@
+package com.socialhub.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs such as the inventory flush run on Spring's scheduler
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
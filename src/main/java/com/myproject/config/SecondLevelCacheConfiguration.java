@@ -0,0 +1,115 @@
+package com.socialhub.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.SharedCacheMode;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+// Opt-in Hibernate second-level cache for Product and User plus the query cache, held in local Caffeine caches
+// behind JCache. Hibernate keeps the entity regions current on its own updates and deletes and drops query results
+// when one of their tables changes. Like the product cache, changes made by other instances are only seen once an
+// entry expires.
+@Configuration
+@ConditionalOnProperty(name = "app.l2-cache.enabled", havingValue = "true")
+@EnableConfigurationProperties(SecondLevelCacheProperties.class)
+public class SecondLevelCacheConfiguration {
+    // Regions named in @Cache on the entities
+    public static final String PRODUCT_REGION = "product";
+    public static final String USER_REGION = "user";
+
+    // Every region is created here with explicit bounds, Hibernate fails at startup instead of creating an unbounded one
+    @Bean
+    public CacheManager hibernateCacheManager(SecondLevelCacheProperties properties) {
+        // A manager of its own per application context, tests can run several contexts in one JVM
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-l2-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(PRODUCT_REGION, region(properties.product().maxSize(), properties.product().ttl()));
+        cacheManager.createCache(USER_REGION, region(properties.user().maxSize(), properties.user().ttl()));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                region(properties.query().maxSize(), properties.query().ttl()));
+        // Last change per table, read to decide whether a cached query result is stale. It holds one entry per
+        // table and must never lose one, so it has no expiry and a bound far above the number of tables.
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(10_000, null));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // Only entities marked @Cacheable
+            properties.put(AvailableSettings.JAKARTA_SHARED_CACHE_MODE, SharedCacheMode.ENABLE_SELECTIVE);
+        };
+    }
+
+    // hibernate.l2.hit.ratio per region next to the hit and miss counters of hibernate.second.level.cache.requests
+    // and hibernate.query.cache.requests; needs hibernate.generate_statistics
+    @Bean
+    public MeterBinder secondLevelCacheHitRatio(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        return registry -> {
+            for (String region : new String[]{PRODUCT_REGION, USER_REGION}) {
+                Gauge.builder("hibernate.l2.hit.ratio", entityManagerFactory,
+                                emf -> hitRatio(statistics(emf).getCacheRegionStatistics(region)))
+                        .description("Share of second-level cache lookups answered from the cache")
+                        .tag("region", region)
+                        .strongReference(true)
+                        .register(registry);
+            }
+            Gauge.builder("hibernate.l2.hit.ratio", entityManagerFactory, emf -> {
+                        Statistics statistics = statistics(emf);
+                        return ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount());
+                    })
+                    .description("Share of second-level cache lookups answered from the cache")
+                    .tag("region", RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME)
+                    .strongReference(true)
+                    .register(registry);
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        return configuration;
+    }
+
+    // Resolved when the gauge is read, the meter registry is set up before the EntityManagerFactory
+    private static Statistics statistics(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        return entityManagerFactory.getObject().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static double hitRatio(CacheRegionStatistics statistics) {
+        return statistics == null ? Double.NaN : ratio(statistics.getHitCount(), statistics.getMissCount());
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? Double.NaN : (double) hits / (hits + misses);
+    }
+}
@@ -0,0 +1,18 @@
+package com.socialhub.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// app.l2-cache.* in application.properties, one entry per second-level cache region
+@ConfigurationProperties(prefix = "app.l2-cache")
+public record SecondLevelCacheProperties(
+        @DefaultValue Region product,
+        @DefaultValue Region user,
+        @DefaultValue Region query) {
+
+    // Entries beyond maxSize are evicted by Caffeine's W-TinyLFU policy, entries older than ttl are dropped
+    public record Region(@DefaultValue("10000") long maxSize, @DefaultValue("10m") Duration ttl) {
+    }
+}
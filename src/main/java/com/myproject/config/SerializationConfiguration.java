@@ -0,0 +1,47 @@
+package com.socialhub.config;
+
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.socialhub.json.CatalogJsonModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// Response serialization: hand-written serializers for the catalog DTOs, shared output buffers, and CBOR and Smile
+// next to JSON for clients that send Accept: application/cbor or application/x-jackson-smile
+@Configuration
+public class SerializationConfiguration {
+
+    // Picked up by Spring Boot's ObjectMapper like any other Module bean
+    @Bean
+    @ConditionalOnProperty(name = "app.json.dto-serializers", havingValue = "true", matchIfMissing = true)
+    public CatalogJsonModule catalogJsonModule() {
+        return new CatalogJsonModule();
+    }
+
+    // Jackson keeps its output buffers per thread by default, which is no reuse at all when every request runs on a
+    // new virtual thread. A shared pool hands the same buffers to whichever thread writes next.
+    @Bean
+    @ConditionalOnProperty(name = "app.json.shared-buffer-pool", havingValue = "true")
+    public Jackson2ObjectMapperBuilderCustomizer sharedBufferPool() {
+        return builder -> builder.postConfigurer(objectMapper ->
+                objectMapper.getFactory().setRecyclerPool(JsonRecyclerPools.sharedConcurrentDequePool()));
+    }
+
+    // Built from Spring Boot's builder so the binary formats get the same modules and settings as JSON.
+    // These replace the converters Spring MVC would otherwise create with a bare ObjectMapper.
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
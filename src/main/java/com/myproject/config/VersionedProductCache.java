@@ -0,0 +1,96 @@
+package com.socialhub.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.socialhub.dto.ProductDetailDTO;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+
+// Products cache that never goes back to an older @Version. A reader that loaded a product before a write committed
+// can put it after the writer's own put or eviction (the transaction-aware proxy defers puts to after commit, and
+// lookups outside a transaction put whenever they finish); that put is dropped instead of hiding the write until
+// the entry expires. An evicted product leaves a tombstone behind that rejects every later put: only deletes evict
+// single products. Code that writes a deleted id again puts the new product with reinstate(), which is the only way
+// past a tombstone. Tombstones expire with the cache spec like any other entry.
+public class VersionedProductCache extends CaffeineCache {
+
+    private static final Object TOMBSTONE = new Object();
+
+    public VersionedProductCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = super.lookup(key);
+        return value == TOMBSTONE ? null : value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        getNativeCache().asMap().compute(key, (k, current) -> isStale(stored, current) ? current : stored);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        Object[] existing = new Object[1];
+        getNativeCache().asMap().compute(key, (k, current) -> {
+            if (current != null && current != TOMBSTONE) {
+                existing[0] = current;
+                return current;
+            }
+            return isStale(stored, current) ? current : stored;
+        });
+        return existing[0] != null ? toValueWrapper(existing[0]) : null;
+    }
+
+    // For a product written again after it was deleted: replaces the tombstone, otherwise the same as put
+    public void reinstate(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        getNativeCache().asMap().compute(key, (k, current) -> current != TOMBSTONE && isStale(stored, current) ? current : stored);
+    }
+
+    @Override
+    public void evict(Object key) {
+        getNativeCache().put(key, TOMBSTONE);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean[] present = new boolean[1];
+        getNativeCache().asMap().compute(key, (k, current) -> {
+            present[0] = current != null && current != TOMBSTONE;
+            return TOMBSTONE;
+        });
+        return present[0];
+    }
+
+    // Older than the cached product or put after a delete. Unversioned values are always taken, as in a plain
+    // CaffeineCache.
+    private static boolean isStale(Object value, Object current) {
+        if (!(value instanceof ProductDetailDTO product) || product.getVersion() == null) {
+            return false;
+        }
+        return current == TOMBSTONE || current instanceof ProductDetailDTO cached && cached.getVersion() != null
+                && product.getVersion() < cached.getVersion();
+    }
+}
@@ -0,0 +1,48 @@
+package com.socialhub.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+// Virtual threads themselves are switched on by spring.threads.virtual.enabled (Tomcat request handling,
+// the application task executor and async MVC responses). This adds the JDBC admission gate that goes with them.
+@Configuration
+@ConditionalOnProperty(name = "app.jdbc-gate.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    // Only a Hikari pool bean is gated, not the DataSources wrapped around one: with read replicas the
+    // DataSource bean is a routing proxy and ReplicaRoutingConfiguration gates the primary pool behind it itself
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyGatePostProcessor(Environment environment,
+                                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource pool)) {
+                    return bean;
+                }
+                if (pool.getPoolName() == null) {
+                    // Hikari would pick HikariPool-<n> on first use, the bean name matches the gate meters
+                    pool.setPoolName(beanName);
+                }
+                return gate(pool, pool.getPoolName(), environment, meterRegistry.getObject());
+            }
+        };
+    }
+
+    static JdbcConcurrencyGate gate(DataSource pool, String poolName, Environment environment,
+                                    MeterRegistry meterRegistry) {
+        // Sized to the pool so a permit always means a free connection
+        int permits = environment.getProperty("app.jdbc-gate.permits", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        long timeoutMillis = environment.getProperty("app.jdbc-gate.timeout-ms", Long.class, 30_000L);
+        return new JdbcConcurrencyGate(pool, poolName, permits, timeoutMillis, meterRegistry);
+    }
+}
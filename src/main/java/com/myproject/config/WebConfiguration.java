@@ -1,12 +1,24 @@
 package com.socialhub.config;
 
+import com.socialhub.service.ProductService;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
+import org.springframework.data.web.config.PageableHandlerMethodArgumentResolverCustomizer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration // In more details, this annotation indicates that a class declares one or more @Bean methods and may be processed by the Spring container to generate bean definitions and service requests for those beans at runtime
-@EnableSpringDataWebSupport // In more details, this annotation registers a PageableHandlerMethodArgumentResolver bean which is used to resolve Pageable method arguments in the controller
+@EnableSpringDataWebSupport(pageSerializationMode = EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO) // In more details, this annotation registers a PageableHandlerMethodArgumentResolver bean which is used to resolve Pageable method arguments in the controller
 public class WebConfiguration implements WebMvcConfigurer {
     // Spring Data Web support is enabled by the annotation
-    // No need to manually configure the resolver as it's already provided
-}
\ No newline at end of file
+    // The resolver itself is provided, we only cap the page size so a client cannot request the whole table
+
+    @Bean
+    public PageableHandlerMethodArgumentResolverCustomizer pageableCustomizer() {
+        return resolver -> {
+            resolver.setMaxPageSize(ProductService.MAX_PAGE_SIZE);
+            resolver.setFallbackPageable(PageRequest.of(0, ProductService.DEFAULT_PAGE_SIZE));
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package com.socialhub.controller;
+
+import com.socialhub.catalogimport.CatalogImportService;
+import com.socialhub.dto.ImportJobDTO;
+import com.socialhub.exception.BadRequestException;
+import com.socialhub.model.ImportJob;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/v1/products/imports")
+@Tag(name = "Catalog Import Controller", description = "Bulk product imports from CSV or NDJSON files")
+@RequiredArgsConstructor
+public class CatalogImportController {
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final CatalogImportService catalogImportService;
+
+    @PostMapping(consumes = {"text/csv", NDJSON})
+    @Operation(summary = "Import an uploaded file", description = "Streams the request body to disk and imports it in the "
+            + "background. CSV needs a header row naming name, price and quantity (id and description are optional), "
+            + "NDJSON has one product object per line. Rows with an id replace or create that product, rows without "
+            + "one are created.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Import started, poll the Location for progress"),
+            @ApiResponse(responseCode = "415", description = "Body is neither text/csv nor " + NDJSON)
+    })
+    public ResponseEntity<ImportJobDTO> upload(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                               InputStream body) throws IOException {
+        ImportJob.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(NDJSON))
+                ? ImportJob.Format.NDJSON : ImportJob.Format.CSV;
+        return accepted(catalogImportService.importUpload(body, format));
+    }
+
+    @PostMapping(params = "path")
+    @Operation(summary = "Import a file on the server", description = "Imports a file below app.import.source-dir, "
+            + "the format follows from the extension unless given")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Import started, poll the Location for progress"),
+            @ApiResponse(responseCode = "400", description = "No such file, unknown format or local imports disabled")
+    })
+    public ResponseEntity<ImportJobDTO> importFile(@RequestParam String path,
+                                                   @RequestParam(required = false) String format) throws IOException {
+        return accepted(catalogImportService.importFile(path, format != null ? format(format) : null));
+    }
+
+    @GetMapping
+    @Operation(summary = "List recent imports", description = "The 50 most recent imports, newest first")
+    public ResponseEntity<List<ImportJobDTO>> getImports() {
+        return ResponseEntity.ok(catalogImportService.getJobs());
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get an import", description = "Status, progress, throughput and the first rejected rows")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved import"),
+            @ApiResponse(responseCode = "404", description = "Import not found")
+    })
+    public ResponseEntity<ImportJobDTO> getImport(@PathVariable Long id) {
+        return ResponseEntity.ok(catalogImportService.getJob(id));
+    }
+
+    @PostMapping("/{id}/resume")
+    @Operation(summary = "Resume an import", description = "Runs the chunks a failed or interrupted import has not finished")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Import resumed"),
+            @ApiResponse(responseCode = "400", description = "Import is running, completed or cancelled"),
+            @ApiResponse(responseCode = "404", description = "Import not found")
+    })
+    public ResponseEntity<ImportJobDTO> resumeImport(@PathVariable Long id) {
+        return accepted(catalogImportService.resume(id));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Cancel an import", description = "A running import stops after the chunks in progress, "
+            + "rows already written stay")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Cancellation accepted"),
+            @ApiResponse(responseCode = "400", description = "Import already completed or cancelled"),
+            @ApiResponse(responseCode = "404", description = "Import not found")
+    })
+    public ResponseEntity<ImportJobDTO> cancelImport(@PathVariable Long id) {
+        return accepted(catalogImportService.cancel(id));
+    }
+
+    private static ResponseEntity<ImportJobDTO> accepted(ImportJobDTO job) {
+        return ResponseEntity.accepted().location(URI.create("/api/v1/products/imports/" + job.getId())).body(job);
+    }
+
+    private static ImportJob.Format format(String format) {
+        try {
+            return ImportJob.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("format must be csv or ndjson");
+        }
+    }
+}
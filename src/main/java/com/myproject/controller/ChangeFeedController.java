@@ -0,0 +1,54 @@
+package com.socialhub.controller;
+
+import com.socialhub.changefeed.ChangeFeedService;
+import com.socialhub.dto.ChangeFeedDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/changes")
+@Tag(name = "Change Feed Controller", description = "Incremental changes to products and users")
+@RequiredArgsConstructor
+public class ChangeFeedController {
+    private final ChangeFeedService changeFeedService;
+
+    @GetMapping
+    @Operation(summary = "Poll for changes", description = "Returns product and user changes after the cursor, latest change per id. "
+            + "Waits up to 'wait' seconds for the first change when there is none yet.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Changes and the cursor to resume from"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or entity"),
+            @ApiResponse(responseCode = "410", description = "Cursor is older than the retained change log")
+    })
+    public DeferredResult<ChangeFeedDTO> poll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String entity,
+            @RequestParam(defaultValue = "" + ChangeFeedService.DEFAULT_BATCH_SIZE) int limit,
+            @RequestParam(defaultValue = "30") long wait) {
+        return changeFeedService.poll(cursor, entity, limit, wait);
+    }
+
+    @GetMapping("/head")
+    @Operation(summary = "Get the current end of the change feed", description = "Cursor to take before fetching the full catalog")
+    public ResponseEntity<ChangeFeedDTO> head() {
+        return ResponseEntity.ok(changeFeedService.head());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream changes", description = "Server-Sent Events with one 'changes' event per batch, "
+            + "resumes from the cursor parameter or the Last-Event-ID header")
+    public SseEmitter stream(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String entity,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return changeFeedService.stream(lastEventId != null ? lastEventId : cursor, entity);
+    }
+}
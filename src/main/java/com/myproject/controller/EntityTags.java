@@ -0,0 +1,49 @@
+package com.socialhub.controller;
+
+import com.socialhub.exception.PreconditionFailedException;
+
+// Strong ETags derived from the @Version column: "<version>"
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // If-None-Match uses weak comparison, so W/"3" matches version 3
+    public static boolean matches(String ifNoneMatch, long version) {
+        String etag = of(version);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Version required by an If-Match header, null when the header is absent or "*".
+    // If-Match uses strong comparison, a weak or malformed tag can never match.
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException ignored) {
+                // falls through to the precondition failure below
+            }
+        }
+        throw new PreconditionFailedException("If-Match must be a single strong ETag, got " + ifMatch);
+    }
+}
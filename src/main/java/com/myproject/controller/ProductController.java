@@ -1,17 +1,33 @@
 package com.socialhub.controller;
 
 import com.socialhub.dto.*;
+import com.socialhub.exception.BadRequestException;
+import com.socialhub.service.InventoryService;
+import com.socialhub.service.ProductExportService;
+import com.socialhub.service.ProductSearchIndex;
 import com.socialhub.service.ProductService;
+import com.socialhub.service.ProductStatsAggregator;
+import com.socialhub.writebehind.WriteBehindPipeline;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -20,6 +36,12 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProductController {
     private final ProductService productService;
+    private final ProductExportService productExportService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductStatsAggregator productStatsAggregator;
+    private final InventoryService inventoryService;
+    // Only available when app.write-behind.enabled=true
+    private final ObjectProvider<WriteBehindPipeline> writeBehind;
 
     @GetMapping
     @Operation(summary = "Get all products", description = "Retrieves a list of all products with basic information")
@@ -31,15 +53,150 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProductsBasic());
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get several products by ID", description = "Retrieves detailed information for up to "
+            + ProductService.MAX_PAGE_SIZE + " products, e.g. ?ids=1,2,3. Unknown ids are left out.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved products"),
+            @ApiResponse(responseCode = "400", description = "Too many ids"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<ProductDetailDTO>> getProductsByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    }
+
+    @GetMapping("/scroll")
+    @Operation(summary = "Scroll through products", description = "Retrieves products in id order using an opaque cursor from the previous page")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved products"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<CursorPageDTO<ProductBasicDTO>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int size) {
+        return ResponseEntity.ok(productService.getProductsAfter(cursor, size));
+    }
+
+    @GetMapping("/page")
+    @Operation(summary = "Get a page of products", description = "Retrieves products by page number and size")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved products"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<Page<ProductBasicDTO>> getProductsPage(@ParameterObject Pageable pageable) {
+        return ResponseEntity.ok(productService.getProductsPage(pageable));
+    }
+
+    @GetMapping("/price-range")
+    @Operation(summary = "Get products in a price range", description = "Retrieves products priced between minPrice and maxPrice, cheapest first")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved products"),
+            @ApiResponse(responseCode = "400", description = "minPrice is greater than maxPrice"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<ProductBasicDTO>> getProductsInPriceRange(
+            @RequestParam(defaultValue = "0") double minPrice,
+            @RequestParam(defaultValue = "" + Double.MAX_VALUE) double maxPrice,
+            @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(productService.getProductsInPriceRange(minPrice, maxPrice, limit));
+    }
+
+    @GetMapping("/top-priced")
+    @Operation(summary = "Get the most expensive products", description = "Retrieves the top products by price, highest first unless order=asc")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved products"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<List<ProductBasicDTO>> getTopProductsByPrice(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "desc") String order) {
+        return ResponseEntity.ok(productService.getTopProductsByPrice(limit, !"asc".equalsIgnoreCase(order)));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search products", description = "Full-text search over name and description with an optional price range, ranked, with price facet counts")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully searched products"),
+            @ApiResponse(responseCode = "503", description = "Search index is still being built"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<ProductSearchResultDTO> searchProducts(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (!productSearchIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search index is still being built");
+        }
+        return ResponseEntity.ok(productSearchIndex.search(q, minPrice, maxPrice, limit));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Get catalog statistics", description = "Product count, total quantity, inventory value, average price, "
+            + "products per price band and the products lowest on stock, maintained in memory as products change")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved statistics"),
+            @ApiResponse(responseCode = "503", description = "Statistics are still being computed")
+    })
+    public ResponseEntity<ProductStatsDTO> getStats() {
+        ProductStatsDTO stats = productStatsAggregator.getStats();
+        if (stats == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Product statistics are still being computed");
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export all products", description = "Streams the full catalog as newline-delimited JSON (format=ndjson) or CSV (format=csv)")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Export stream started"),
+            @ApiResponse(responseCode = "400", description = "Unsupported export format"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        switch (format) {
+            case "ndjson":
+                return response.contentType(MediaType.APPLICATION_NDJSON)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products.ndjson")
+                        .body(productExportService::exportNdjson);
+            case "csv":
+                return response.contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products.csv")
+                        .body(productExportService::exportCsv);
+            default:
+                throw new BadRequestException("Unsupported export format: " + format);
+        }
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Get product by ID", description = "Retrieves detailed information about a specific product")
+    @Operation(summary = "Get product by ID", description = "Retrieves detailed information about a specific product. "
+            + "Send the ETag from a previous response in If-None-Match to get 304 when it has not changed")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Successfully retrieved product"),
+            @ApiResponse(responseCode = "304", description = "Product has not changed since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Product not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<ProductDetailDTO> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<ProductDetailDTO> getProductById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Revalidation only needs the version, the DTO is not built or serialized for a 304
+        if (ifNoneMatch != null) {
+            long version = productService.getProductVersion(id);
+            if (EntityTags.matches(ifNoneMatch, version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(EntityTags.of(version))
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+        }
+        ProductDetailDTO product = productService.getProductById(id);
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(product.getVersion()))
+                .cacheControl(CacheControl.noCache())
+                .body(product);
     }
 
     @PostMapping
@@ -47,26 +204,51 @@ public class ProductController {
     @ResponseStatus(HttpStatus.CREATED)
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Product created successfully"),
+            @ApiResponse(responseCode = "202", description = "Product queued for creation (write-behind mode)"),
+            @ApiResponse(responseCode = "429", description = "Write queue is full (write-behind mode)"),
             @ApiResponse(responseCode = "400", description = "Invalid product data"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<ProductDetailDTO> createProduct(@Valid @RequestBody ProductDetailDTO productDTO) {
+        WriteBehindPipeline pipeline = writeBehind.getIfAvailable();
+        if (pipeline != null) {
+            long sequence = pipeline.createProduct(productDTO);
+            return ResponseEntity.accepted()
+                    .header(WriteBehindPipeline.SEQUENCE_HEADER, Long.toString(sequence))
+                    .body(productDTO);
+        }
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(productService.createProduct(productDTO));
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Update a product")
+    @Operation(summary = "Update a product", description = "Send the product's ETag in If-Match to update only if nobody changed it in between")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Product updated successfully"),
+            @ApiResponse(responseCode = "202", description = "Update queued (write-behind mode, no If-Match)"),
             @ApiResponse(responseCode = "400", description = "Invalid product data"),
             @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "409", description = "Product was updated concurrently"),
+            @ApiResponse(responseCode = "412", description = "If-Match does not match the current version"),
+            @ApiResponse(responseCode = "429", description = "Write queue is full (write-behind mode)"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<ProductDetailDTO> updateProduct(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody ProductDetailDTO productDTO) {
-        return ResponseEntity.ok(productService.updateProduct(id, productDTO));
+        // A conditional update needs the current row, so it always goes to the database directly
+        WriteBehindPipeline pipeline = writeBehind.getIfAvailable();
+        if (pipeline != null && ifMatch == null) {
+            long sequence = pipeline.updateProduct(id, productDTO);
+            return ResponseEntity.accepted()
+                    .header(WriteBehindPipeline.SEQUENCE_HEADER, Long.toString(sequence))
+                    .body(productDTO);
+        }
+        ProductDetailDTO product = productService.updateProduct(id, productDTO, EntityTags.expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(product.getVersion()))
+                .body(product);
     }
 
     @DeleteMapping("/{id}")
@@ -81,5 +263,67 @@ public class ProductController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/{id}/reserve")
+    @Operation(summary = "Reserve stock", description = "Atomically takes quantity units of stock, fails instead of going below zero")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Stock reserved"),
+            @ApiResponse(responseCode = "400", description = "Quantity is not between 1 and 1000000"),
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "409", description = "Not enough stock"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<Void> reserveStock(@PathVariable Long id, @RequestParam(defaultValue = "1") int quantity) {
+        inventoryService.reserve(id, quantity);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{id}/release")
+    @Operation(summary = "Release stock", description = "Returns quantity units of previously reserved stock. "
+            + "For trusted callers only: the release is not checked against an earlier reservation, so any caller "
+            + "can add stock with it")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Stock released"),
+            @ApiResponse(responseCode = "400", description = "Quantity is not between 1 and 1000000"),
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<Void> releaseStock(@PathVariable Long id, @RequestParam(defaultValue = "1") int quantity) {
+        inventoryService.release(id, quantity);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Create many products", description = "Creates up to 10000 products in one request and reports a result per item")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized batch"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<BatchResultDTO> createProducts(@RequestBody List<ProductDetailDTO> productDTOs) {
+        return ResponseEntity.ok(productService.createProducts(productDTOs));
+    }
+
+    @PutMapping("/batch")
+    @Operation(summary = "Update many products", description = "Updates up to 10000 products by id and reports a result per item")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized batch"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<BatchResultDTO> updateProducts(@RequestBody List<ProductDetailDTO> productDTOs) {
+        return ResponseEntity.ok(productService.updateProducts(productDTOs));
+    }
+
+    @PostMapping("/batch/delete")
+    @Operation(summary = "Delete many products", description = "Deletes up to 10000 products by id and reports a result per item")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized batch"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<BatchResultDTO> deleteProducts(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(productService.deleteProducts(ids));
+    }
+
     // Add your custom controller endpoints here
 }
\ No newline at end of file
@@ -1,15 +1,22 @@
-package com.example.socialhub.controller;
+package com.socialhub.controller;
 
-import com.example.socialhub.dto.UserRequest;
-import com.example.socialhub.dto.UserResponse;
-import com.example.socialhub.service.UserService;
+import com.socialhub.dto.UserRequest;
+import com.socialhub.dto.UserResponse;
+import com.socialhub.service.UserService;
+import com.socialhub.dto.BatchResultDTO;
+import com.socialhub.writebehind.WriteBehindPipeline;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
@@ -17,6 +24,8 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    // Only available when app.write-behind.enabled=true
+    private final ObjectProvider<WriteBehindPipeline> writeBehind;
 
     @Operation(summary = "Get all users")
     @GetMapping
@@ -24,23 +33,50 @@ public class UserController {
         return userService.getAllUsers();
     }
 
-    @Operation(summary = "Get user by ID")
+    @Operation(summary = "Get user by ID, 304 when If-None-Match carries the current ETag")
     @GetMapping("/{id}")
-    public UserResponse getById(@PathVariable Long id) {
-        return userService.getUserById(id);
+    public ResponseEntity<UserResponse> getById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            long version = userService.getUserVersion(id);
+            if (EntityTags.matches(ifNoneMatch, version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(EntityTags.of(version))
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+        }
+        UserResponse user = userService.getUserById(id);
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(user.getVersion()))
+                .cacheControl(CacheControl.noCache())
+                .body(user);
     }
 
-    @Operation(summary = "Create new user")
+    @Operation(summary = "Create new user, 202 when queued in write-behind mode")
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public UserResponse create(@Validated @RequestBody UserRequest request) {
-        return userService.createUser(request);
+    public ResponseEntity<UserResponse> create(@Validated @RequestBody UserRequest request) {
+        WriteBehindPipeline pipeline = writeBehind.getIfAvailable();
+        if (pipeline != null) {
+            long sequence = pipeline.createUser(request);
+            return ResponseEntity.accepted()
+                    .header(WriteBehindPipeline.SEQUENCE_HEADER, Long.toString(sequence))
+                    .body(new UserResponse(null, request.getName(), request.getEmail(), null));
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(userService.createUser(request));
     }
 
-    @Operation(summary = "Update existing user")
+    @Operation(summary = "Update existing user, only if If-Match (when sent) carries the current ETag")
     @PutMapping("/{id}")
-    public UserResponse update(@PathVariable Long id, @Validated @RequestBody UserRequest request) {
-        return userService.updateUser(id, request);
+    public ResponseEntity<UserResponse> update(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Validated @RequestBody UserRequest request) {
+        UserResponse user = userService.updateUser(id, request, EntityTags.expectedVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(user.getVersion()))
+                .body(user);
     }
 
     @Operation(summary = "Delete user by ID")
@@ -49,4 +85,22 @@ public class UserController {
     public void delete(@PathVariable Long id) {
         userService.deleteUser(id);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Create many users")
+    @PostMapping("/batch")
+    public BatchResultDTO createBatch(@RequestBody List<UserRequest> requests) {
+        return userService.createUsers(requests);
+    }
+
+    @Operation(summary = "Update many users, keyed by user ID")
+    @PutMapping("/batch")
+    public BatchResultDTO updateBatch(@RequestBody Map<Long, UserRequest> requests) {
+        return userService.updateUsers(requests);
+    }
+
+    @Operation(summary = "Delete many users by ID")
+    @PostMapping("/batch/delete")
+    public BatchResultDTO deleteBatch(@RequestBody List<Long> ids) {
+        return userService.deleteUsers(ids);
+    }
+}
@@ -0,0 +1,32 @@
+package com.socialhub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResultDTO {
+    // Position of the item in the request
+    private int index;
+    private Long id;
+    private Status status;
+    private String message;
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, INVALID;
+
+        public boolean isSuccess() {
+            return this == CREATED || this == UPDATED || this == DELETED;
+        }
+    }
+
+    public static BatchItemResultDTO success(int index, Long id, Status status) {
+        return new BatchItemResultDTO(index, id, status, null);
+    }
+
+    public static BatchItemResultDTO failure(int index, Long id, Status status, String message) {
+        return new BatchItemResultDTO(index, id, status, message);
+    }
+}
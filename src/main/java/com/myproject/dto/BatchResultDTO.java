@@ -0,0 +1,21 @@
+package com.socialhub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResultDTO {
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResultDTO> items;
+
+    public static BatchResultDTO of(List<BatchItemResultDTO> items) {
+        int succeeded = (int) items.stream().filter(item -> item.getStatus().isSuccess()).count();
+        return new BatchResultDTO(succeeded, items.size() - succeeded, items);
+    }
+}
@@ -0,0 +1,20 @@
+package com.socialhub.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeDTO {
+    // "product" or "user"
+    private String entity;
+    private Long id;
+    // CREATED, UPDATED or DELETED
+    private String type;
+    // State after the change as stored in the change log, null for deletions
+    @JsonRawValue
+    private String data;
+}
@@ -0,0 +1,19 @@
+package com.socialhub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedDTO {
+    // Latest change per entity, in the order of their last change
+    private List<ChangeDTO> changes;
+    // Opaque token to resume from, always present
+    private String cursor;
+    // More changes are already waiting, ask again straight away
+    private boolean hasMore;
+}
@@ -0,0 +1,32 @@
+package com.socialhub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDTO {
+    private Long id;
+    private String format;
+    private String source;
+    private String status;
+    // Progress moves one committed chunk at a time
+    private long totalBytes;
+    private long processedBytes;
+    private int chunks;
+    private int chunksDone;
+    private long rowsImported;
+    private long rowsFailed;
+    private double rowsPerSecond;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String failure;
+    // First rejected rows, "byte <offset in the file>: <reason>"
+    private List<String> errors;
+}
@@ -1,15 +1,30 @@
 package com.socialhub.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
 @NoArgsConstructor
+@AllArgsConstructor
 public class ProductDetailDTO {
     private Long id;
+    // Same limits as the product columns, checked for request bodies, batch items and imported rows
+    @NotBlank
+    @Size(max = 255)
     private String name;
+    @Size(max = 255)
     private String description;
+    @PositiveOrZero
     private double price;
+    @PositiveOrZero
     private int quantity;
+    // Sent as the ETag header, not in the body
+    @JsonIgnore
+    private Long version;
     // Add additional fields as needed
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.socialhub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchHitDTO {
+    private Long id;
+    private String name;
+    private double price;
+    private double score;
+}
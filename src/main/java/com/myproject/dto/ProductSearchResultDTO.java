@@ -0,0 +1,19 @@
+package com.socialhub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResultDTO {
+    // Number of matching products, hits only holds the best ranked ones
+    private long total;
+    private List<ProductSearchHitDTO> hits;
+    // Matching products per price band, e.g. "50-100"
+    private Map<String, Long> priceFacets;
+}
@@ -0,0 +1,39 @@
+package com.socialhub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+// One instance is shared by every reader until the next change, it is never modified after it was built
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStatsDTO {
+    private long productCount;
+    private long totalQuantity;
+    // Sum of price * quantity over all products
+    private double inventoryValue;
+    private double averagePrice;
+    // Products per price band, e.g. "50-100"
+    private Map<String, Long> priceBands;
+    // Products with at most this quantity count as low on stock
+    private int lowStockThreshold;
+    private long lowStockCount;
+    // Lowest quantity first, ties by id
+    private List<LowStockProduct> lowStock;
+    // Last full recomputation from the database, changes since were applied incrementally
+    private Instant recomputedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LowStockProduct {
+        private Long id;
+        private String name;
+        private int quantity;
+    }
+}
@@ -1,19 +1,28 @@
-package com.example.socialhub.dto;
+package com.socialhub.dto;
 
-import com.example.socialhub.model.User;
+import com.socialhub.model.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class UserResponse {
     private Long id;
     private String name;
     private String email;
+    // Sent as the ETag header, not in the body
+    @JsonIgnore
+    private Long version;
 
     public static UserResponse fromEntity(User user) {
         UserResponse response = new UserResponse();
         response.setId(user.getId());
         response.setName(user.getName());
         response.setEmail(user.getEmail());
+        response.setVersion(user.getVersion());
         return response;
     }
 }
@@ -0,0 +1,12 @@
+package com.socialhub.event;
+
+import java.util.List;
+
+// Published once per catalog import chunk in place of one ProductChangedEvent per row, so listeners take their lock,
+// invalidate or republish once for the whole chunk. The changes are in the order they were written.
+public record ProductBatchChangedEvent(List<ProductChangedEvent> changes) {
+
+    public ProductBatchChangedEvent {
+        changes = List.copyOf(changes);
+    }
+}
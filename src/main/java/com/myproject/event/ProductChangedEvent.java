@@ -0,0 +1,41 @@
+package com.socialhub.event;
+
+import com.socialhub.dto.ProductDetailDTO;
+
+// Published by ProductService for every product mutation; catalog imports wrap theirs in a ProductBatchChangedEvent
+// per chunk. Listeners that keep derived state (indexes, aggregates, caches) should use @TransactionalEventListener so
+// they only see committed changes, and handle both events.
+public record ProductChangedEvent(Type type, Long productId, ProductDetailDTO product) {
+    // Version a listener records for a deleted product
+    public static final long DELETED_VERSION = Long.MAX_VALUE;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static ProductChangedEvent created(ProductDetailDTO product) {
+        return new ProductChangedEvent(Type.CREATED, product.getId(), product);
+    }
+
+    public static ProductChangedEvent updated(ProductDetailDTO product) {
+        return new ProductChangedEvent(Type.UPDATED, product.getId(), product);
+    }
+
+    // Deletions carry no product state
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(Type.DELETED, productId, null);
+    }
+
+    // Listeners run on the committing threads, so two commits of one product can reach them in either order. True
+    // when the listener already applied a newer version (DELETED_VERSION after a delete, which only a create of the
+    // same id, e.g. by a catalog import, starts over from). Deletes and events without a version always apply.
+    public boolean isOlderThan(Long appliedVersion) {
+        if (appliedVersion == null || type == Type.DELETED) {
+            return false;
+        }
+        if (appliedVersion == DELETED_VERSION) {
+            return type == Type.UPDATED;
+        }
+        return product != null && product.getVersion() != null && product.getVersion() < appliedVersion;
+    }
+}
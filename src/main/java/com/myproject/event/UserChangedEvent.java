@@ -0,0 +1,23 @@
+package com.socialhub.event;
+
+import com.socialhub.dto.UserResponse;
+
+// Published by UserService for every user mutation, the user-side counterpart of ProductChangedEvent
+public record UserChangedEvent(Type type, Long userId, UserResponse user) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static UserChangedEvent created(UserResponse user) {
+        return new UserChangedEvent(Type.CREATED, user.getId(), user);
+    }
+
+    public static UserChangedEvent updated(UserResponse user) {
+        return new UserChangedEvent(Type.UPDATED, user.getId(), user);
+    }
+
+    public static UserChangedEvent deleted(Long userId) {
+        return new UserChangedEvent(Type.DELETED, userId, null);
+    }
+}
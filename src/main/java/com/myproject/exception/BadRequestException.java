@@ -0,0 +1,12 @@
+package com.socialhub.exception;
+
+// A request the service refuses as invalid, the message is written for the client
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
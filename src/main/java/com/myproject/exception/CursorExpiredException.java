@@ -0,0 +1,7 @@
+package com.socialhub.exception;
+
+public class CursorExpiredException extends RuntimeException {
+    public CursorExpiredException(String message) {
+        super(message);
+    }
+}
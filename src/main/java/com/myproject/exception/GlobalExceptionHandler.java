@@ -1,7 +1,11 @@
-package com.example.demo.exception;
+package com.socialhub.exception;
 
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,9 +15,65 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
-    @ExceptionHandler(ResourceNotFoundException.class)
-    public ResponseEntity<?> handleNotFound(ResourceNotFoundException ex) {
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", ex.getMessage()));
+    @ExceptionHandler({ResourceNotFoundException.class, EntityNotFoundException.class})
+    public ResponseEntity<?> handleNotFound(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", messageOr(ex, "Resource not found")));
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<?> handleBadRequest(BadRequestException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", messageOr(ex, "Invalid request")));
+    }
+
+    // Thrown by a library or the JDK on input it cannot take, its message is not written for clients
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", "Invalid request"));
+    }
+
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<?> handleInsufficientStock(InsufficientStockException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+    }
+
+    // If-Match did not carry the current version
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<?> handlePreconditionFailed(PreconditionFailedException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(Map.of("error", ex.getMessage()));
+    }
+
+    // Another request updated the same row between our read and our write
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleConcurrentUpdate(ObjectOptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Resource was modified concurrently, retry"));
+    }
+
+    // The change feed purged entries the client has not seen, it has to start over from a full fetch
+    @ExceptionHandler(CursorExpiredException.class)
+    public ResponseEntity<?> handleCursorExpired(CursorExpiredException ex) {
+        return ResponseEntity.status(HttpStatus.GONE).body(Map.of("error", ex.getMessage()));
+    }
+
+    // Backpressure from the write-behind queue
+    @ExceptionHandler(WriteBehindQueueFullException.class)
+    public ResponseEntity<?> handleQueueFull(WriteBehindQueueFullException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    // The write-behind pipeline has not started yet or is shutting down
+    @ExceptionHandler(WriteBehindUnavailableException.class)
+    public ResponseEntity<?> handleWriteBehindUnavailable(WriteBehindUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    // No database connection (or JDBC gate permit) could be obtained in time, the client may retry later
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<?> handleDatabaseUnavailable(CannotCreateTransactionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Service temporarily overloaded"));
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -23,4 +83,9 @@ public class GlobalExceptionHandler {
             .forEach(error -> errors.put(error.getField(), error.getDefaultMessage()));
         return ResponseEntity.badRequest().body(errors);
     }
+
+    // Map.of rejects a null value, an exception without a message would otherwise turn into a 500
+    private static String messageOr(RuntimeException ex, String fallback) {
+        return ex.getMessage() != null ? ex.getMessage() : fallback;
+    }
 }
@@ -1,4 +1,4 @@
-package com.example.socialhub.exception;
+package com.socialhub.exception;
 
 public class ResourceNotFoundException extends RuntimeException {
     public ResourceNotFoundException(String message) {
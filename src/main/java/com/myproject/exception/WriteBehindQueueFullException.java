@@ -0,0 +1,7 @@
+package com.socialhub.exception;
+
+public class WriteBehindQueueFullException extends RuntimeException {
+    public WriteBehindQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.socialhub.exception;
+
+public class WriteBehindUnavailableException extends RuntimeException {
+    public WriteBehindUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,102 @@
+package com.socialhub.json;
+
+import com.socialhub.dto.UserResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.dto.ProductDetailDTO;
+
+import java.io.IOException;
+
+// Hand-written serializers for the DTOs on the hottest read paths. They write the same fields in the same order as
+// Jackson's bean serializer (version stays out, it is the ETag), but skip property introspection and accessor calls
+// through BeanPropertyWriter, and field names are encoded once. They work with any generator, JSON, CBOR or Smile.
+// Any field added to these DTOs has to be added here as well.
+public class CatalogJsonModule extends SimpleModule {
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString DESCRIPTION = new SerializedString("description");
+    private static final SerializableString PRICE = new SerializedString("price");
+    private static final SerializableString QUANTITY = new SerializedString("quantity");
+    private static final SerializableString EMAIL = new SerializedString("email");
+
+    public CatalogJsonModule() {
+        super("CatalogJsonModule");
+        addSerializer(ProductBasicDTO.class, new ProductBasicSerializer());
+        addSerializer(ProductDetailDTO.class, new ProductDetailSerializer());
+        addSerializer(UserResponse.class, new UserResponseSerializer());
+    }
+
+    static final class ProductBasicSerializer extends StdSerializer<ProductBasicDTO> {
+        ProductBasicSerializer() {
+            super(ProductBasicDTO.class);
+        }
+
+        @Override
+        public void serialize(ProductBasicDTO product, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(product, 3);
+            writeId(gen, product.getId());
+            writeString(gen, NAME, product.getName());
+            gen.writeFieldName(PRICE);
+            gen.writeNumber(product.getPrice());
+            gen.writeEndObject();
+        }
+    }
+
+    static final class ProductDetailSerializer extends StdSerializer<ProductDetailDTO> {
+        ProductDetailSerializer() {
+            super(ProductDetailDTO.class);
+        }
+
+        @Override
+        public void serialize(ProductDetailDTO product, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(product, 5);
+            writeId(gen, product.getId());
+            writeString(gen, NAME, product.getName());
+            writeString(gen, DESCRIPTION, product.getDescription());
+            gen.writeFieldName(PRICE);
+            gen.writeNumber(product.getPrice());
+            gen.writeFieldName(QUANTITY);
+            gen.writeNumber(product.getQuantity());
+            gen.writeEndObject();
+        }
+    }
+
+    static final class UserResponseSerializer extends StdSerializer<UserResponse> {
+        UserResponseSerializer() {
+            super(UserResponse.class);
+        }
+
+        @Override
+        public void serialize(UserResponse user, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(user, 3);
+            writeId(gen, user.getId());
+            writeString(gen, NAME, user.getName());
+            writeString(gen, EMAIL, user.getEmail());
+            gen.writeEndObject();
+        }
+    }
+
+    // Nulls are written like the bean serializer does by default
+    private static void writeId(JsonGenerator gen, Long id) throws IOException {
+        gen.writeFieldName(ID);
+        if (id != null) {
+            gen.writeNumber(id);
+        } else {
+            gen.writeNull();
+        }
+    }
+
+    private static void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        if (value != null) {
+            gen.writeString(value);
+        } else {
+            gen.writeNull();
+        }
+    }
+}
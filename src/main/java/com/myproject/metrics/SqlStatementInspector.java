@@ -0,0 +1,71 @@
+package com.socialhub.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Counts the SQL statements Hibernate prepares for a unit of work, e.g. a request, and logs a random sample of them.
+// The count belongs to the unit of work, not to a thread: work handed to another thread (async MVC, loader batches)
+// is bound to the counts of the units it is done for. Replaces spring.jpa.show-sql, which prints every statement.
+public class SqlStatementInspector implements StatementInspector {
+    private static final Logger SAMPLE_LOG = LoggerFactory.getLogger("sql.sample");
+    private static final ThreadLocal<List<StatementCount>> CURRENT = new ThreadLocal<>();
+
+    private final double sampleRate;
+
+    // Statements of one unit of work, shared by every thread that works on it
+    public static final class StatementCount {
+        private final AtomicInteger statements = new AtomicInteger();
+
+        public int get() {
+            return statements.get();
+        }
+    }
+
+    public SqlStatementInspector(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<StatementCount> counts = CURRENT.get();
+        if (counts != null) {
+            counts.forEach(count -> count.statements.incrementAndGet());
+        }
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate && SAMPLE_LOG.isInfoEnabled()) {
+            SAMPLE_LOG.info("sql thread=\"{}\" statement=\"{}\"", Thread.currentThread().getName(),
+                    sql.replaceAll("\\s+", " ").replace("\"", "'"));
+        }
+        return sql;
+    }
+
+    // Counts of the units of work the current thread is doing, to pass along with work handed to another thread
+    public static List<StatementCount> current() {
+        List<StatementCount> counts = CURRENT.get();
+        return counts != null ? counts : List.of();
+    }
+
+    // Counts statements on the current thread for the given units of work until the scope is closed. A statement
+    // shared by several of them, e.g. one batch query for the keys of several requests, counts for each.
+    public static Scope bind(Collection<StatementCount> counts) {
+        List<StatementCount> previous = CURRENT.get();
+        CURRENT.set(List.copyOf(counts));
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
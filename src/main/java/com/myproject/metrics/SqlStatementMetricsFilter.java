@@ -0,0 +1,77 @@
+package com.socialhub.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+// Records how many SQL statements each request issued, per route, so N+1 regressions show up as a jump in the distribution.
+// Statements run for the request on other threads count too: async MVC work (e.g. the streamed export) through a
+// callable interceptor, loader batches through the counts they carry along. An async request is recorded when it
+// completes.
+@RequiredArgsConstructor
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+    private static final String INTERCEPTOR_KEY = SqlStatementMetricsFilter.class.getName();
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementInspector.StatementCount count = new SqlStatementInspector.StatementCount();
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(INTERCEPTOR_KEY, new CallableProcessingInterceptor() {
+            private SqlStatementInspector.Scope scope;
+
+            @Override
+            public <T> void preProcess(NativeWebRequest webRequest, Callable<T> task) {
+                scope = SqlStatementInspector.bind(List.of(count));
+            }
+
+            @Override
+            public <T> void postProcess(NativeWebRequest webRequest, Callable<T> task, Object result) {
+                scope.close();
+            }
+
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                record(request, count);
+            }
+        });
+        try (SqlStatementInspector.Scope scope = SqlStatementInspector.bind(List.of(count))) {
+            chain.doFilter(request, response);
+        } finally {
+            if (!isAsyncStarted(request)) {
+                record(request, count);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    private void record(HttpServletRequest request, SqlStatementInspector.StatementCount count) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("SQL statements prepared while handling a request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", route != null ? route.toString() : "UNKNOWN")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(count.get());
+    }
+}
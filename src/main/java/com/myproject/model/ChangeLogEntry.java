@@ -0,0 +1,42 @@
+package com.socialhub.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// One row per committed product or user mutation, read by the change feed in id order
+@Entity
+@Table(name = "change_log", indexes = @Index(name = "idx_change_log_created_at", columnList = "created_at"))
+@Setter
+@Getter
+public class ChangeLogEntry {
+    @Id
+    // Not pooled on purpose: ids must follow the order rows are written in, a block of ids held by one instance
+    // would let another instance write higher ids first and feed readers would skip the lower ones for good
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_log_seq")
+    @SequenceGenerator(name = "change_log_seq", sequenceName = "change_log_seq", allocationSize = 1)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false, length = 16)
+    private String changeType;
+
+    // JSON of the product or user after the change, null for deletions
+    @Column(columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public enum EntityType {
+        PRODUCT, USER
+    }
+}
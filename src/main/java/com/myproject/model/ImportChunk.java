@@ -0,0 +1,50 @@
+package com.socialhub.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+// Byte range of an import file that is parsed and written in one transaction. The same transaction sets done,
+// so after a restart the rows of a chunk are either all in the database and the chunk is done, or neither.
+@Entity
+@Table(name = "import_chunk")
+@Setter
+@Getter
+public class ImportChunk {
+    @EmbeddedId
+    private Key key;
+
+    @Column(nullable = false)
+    private long startOffset;
+
+    // Exclusive, always just after a line break or at the end of the file
+    @Column(nullable = false)
+    private long endOffset;
+
+    @Column(nullable = false)
+    private boolean done;
+
+    @Column(nullable = false)
+    private long rowsImported;
+
+    @Column(nullable = false)
+    private long rowsFailed;
+
+    // First rejected rows of the chunk, one "byte <offset>: <reason>" per line
+    @Column(columnDefinition = "text")
+    private String errors;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long jobId;
+        private Integer chunkIndex;
+    }
+}
@@ -0,0 +1,69 @@
+package com.socialhub.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// One catalog import. Its chunks are listed in import_chunk, a job that stopped before all of them were done can
+// be resumed from there.
+@Entity
+@Table(name = "import_job")
+@Setter
+@Getter
+public class ImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_job_seq")
+    @SequenceGenerator(name = "import_job_seq", sequenceName = "import_job_seq", allocationSize = 1)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Format format;
+
+    // Absolute path of the imported file, uploads are spooled to app.import.dir first
+    @Column(nullable = false, length = 1024)
+    private String source;
+
+    // Size and modification time of the file when the job was created, a file that changed since is not resumed
+    @Column(nullable = false)
+    private long sourceSize;
+
+    @Column(nullable = false)
+    private Instant sourceModifiedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    // Why the job stopped, for FAILED jobs
+    @Column(columnDefinition = "text")
+    private String failure;
+
+    // Imported rows per second during the last run
+    @Column(nullable = false)
+    private double rowsPerSecond;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // Start of the last run, resuming sets it again
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        // Stopped by an error, can be resumed
+        FAILED,
+        // Stopped by a shutdown or crash, can be resumed
+        INTERRUPTED,
+        CANCELLED
+    }
+}
@@ -2,14 +2,25 @@ package com.socialhub.model;
 
 import jakarta.persistence.*;
 import lombok.Getter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 import lombok.Setter;
 
 @Entity
+// Second-level cache region, only used with app.l2-cache.enabled
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
 @Setter
 @Getter
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence so Hibernate can batch inserts, IDENTITY would force one round trip per row
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -17,5 +28,17 @@ public class Product {
     private double price;
     private int quantity;
 
+    // Bumped on every update, used for optimistic locking and as the ETag of the product
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    // Set on insert and update, the catalog snapshot reconciler picks up rows changed after its watermark
+    @UpdateTimestamp
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(nullable = false)
+    private Instant updatedAt;
+
     // Add your custom fields and relationships here
 }
\ No newline at end of file
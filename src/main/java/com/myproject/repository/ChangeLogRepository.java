@@ -0,0 +1,32 @@
+package com.socialhub.repository;
+
+import com.socialhub.model.ChangeLogEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    // Next entries after a cursor, in the order they were written
+    @Query("select e from ChangeLogEntry e where e.id > :id order by e.id")
+    List<ChangeLogEntry> findAfter(Long id, Limit limit);
+
+    @Query("select min(e.id) from ChangeLogEntry e")
+    Long findMinId();
+
+    @Query("select max(e.id) from ChangeLogEntry e")
+    Long findMaxId();
+
+    // Retention
+    @Transactional
+    @Modifying
+    @Query("delete from ChangeLogEntry e where e.createdAt < :cutoff")
+    int deleteCreatedBefore(Instant cutoff);
+}
@@ -0,0 +1,15 @@
+package com.socialhub.repository;
+
+import com.socialhub.model.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    List<ImportJob> findByStatus(ImportJob.Status status);
+
+    List<ImportJob> findTop50ByOrderByIdDesc();
+}
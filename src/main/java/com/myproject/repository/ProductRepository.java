@@ -1,16 +1,125 @@
 package com.socialhub.repository;
 
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.dto.ProductDetailDTO;
 import com.socialhub.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    // Simple query methods
+    // Simple query methods, their results go to the query cache when the second-level cache is enabled
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Product> findByName(String name);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Product> findByPriceGreaterThan(double price);
 
+    // Read-only projections: select only the returned columns straight into DTOs, no entities are hydrated
+    @Query("select new com.socialhub.dto.ProductBasicDTO(p.id, p.name, p.price) from Product p order by p.id")
+    List<ProductBasicDTO> findAllBasic();
+
+    @Query(value = "select new com.socialhub.dto.ProductBasicDTO(p.id, p.name, p.price) from Product p",
+            countQuery = "select count(p) from Product p")
+    Page<ProductBasicDTO> findAllBasic(Pageable pageable);
+
+    // Price range and top-N by price
+    @Query("select new com.socialhub.dto.ProductBasicDTO(p.id, p.name, p.price) from Product p "
+            + "where p.price between :minPrice and :maxPrice order by p.price, p.id")
+    List<ProductBasicDTO> findBasicByPriceBetween(double minPrice, double maxPrice, Limit limit);
+
+    @Query("select new com.socialhub.dto.ProductBasicDTO(p.id, p.name, p.price) from Product p")
+    List<ProductBasicDTO> findBasic(Sort sort, Limit limit);
+
+    // Keyset pagination: next rows after the given id, in id order
+    @Query("select new com.socialhub.dto.ProductBasicDTO(p.id, p.name, p.price) from Product p where p.id > :id order by p.id")
+    List<ProductBasicDTO> findBasicAfter(Long id, Limit limit);
+
+    @Query("select new com.socialhub.dto.ProductDetailDTO(p.id, p.name, p.description, p.price, p.quantity, p.version) "
+            + "from Product p where p.id = :id")
+    Optional<ProductDetailDTO> findDetailById(Long id);
+
+    // Several products at once, used by the batching loader
+    @Query("select new com.socialhub.dto.ProductDetailDTO(p.id, p.name, p.description, p.price, p.quantity, p.version) "
+            + "from Product p where p.id in :ids")
+    List<ProductDetailDTO> findDetailsByIdIn(Collection<Long> ids);
+
+    // Just the version column, enough to answer a conditional GET
+    @Query("select p.version from Product p where p.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    // Forward-only cursor over the whole table, must be consumed inside a transaction. Does not fill the
+    // second-level cache with the whole catalog.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAllOrderById();
+
+    // Whole catalog as projections in price order, used to build the off-heap read model
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select new com.socialhub.dto.ProductDetailDTO(p.id, p.name, p.description, p.price, p.quantity, p.version) "
+            + "from Product p order by p.price, p.id")
+    Stream<ProductDetailDTO> streamDetailsOrderByPrice();
+
+    // Catalog snapshot: the whole table in id order, rows changed since a watermark, and all ids to find deletions
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select new com.socialhub.dto.ProductDetailDTO(p.id, p.name, p.description, p.price, p.quantity, p.version) "
+            + "from Product p order by p.id")
+    Stream<ProductDetailDTO> streamDetailsOrderById();
+
+    @Query("select new com.socialhub.dto.ProductDetailDTO(p.id, p.name, p.description, p.price, p.quantity, p.version) "
+            + "from Product p where p.updatedAt > :since")
+    Stream<ProductDetailDTO> streamDetailsUpdatedSince(Instant since);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select p.id from Product p order by p.id")
+    Stream<Long> streamIds();
+
+    // Ids from the given collection that exist, used by batch operations to report missing rows
+    @Query("select p.id from Product p where p.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    // Delete in one statement, 0 when there was no such product. Like every bulk statement, it makes Hibernate drop
+    // the product region of the second-level cache.
+    @Modifying
+    @Query("delete from Product p where p.id = :id")
+    int deleteOneById(Long id);
+
+    // Atomic stock changes: the row is only touched when enough stock is left, so concurrent checkouts
+    // can never take the quantity below zero. The version is bumped to keep ETags honest.
+    @Modifying
+    @Query("update Product p set p.quantity = p.quantity - :quantity, p.version = p.version + 1, "
+            + "p.updatedAt = instant where p.id = :id and p.quantity >= :quantity")
+    int decrementQuantity(Long id, int quantity);
+
+    @Modifying
+    @Query("update Product p set p.quantity = p.quantity + :quantity, p.version = p.version + 1, "
+            + "p.updatedAt = instant where p.id = :id")
+    int incrementQuantity(Long id, int quantity);
+
     // Add your custom query methods here
-}
\ No newline at end of file
+}
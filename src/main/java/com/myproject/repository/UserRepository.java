@@ -1,9 +1,54 @@
-package com.example.socialhub.repository;
+package com.socialhub.repository;
 
-import com.example.socialhub.model.User;
+import com.socialhub.dto.UserResponse;
+import com.socialhub.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    @Query("select new com.socialhub.dto.UserResponse(u.id, u.name, u.email, u.version) from User u order by u.id")
+    List<UserResponse> findAllResponses();
+
+    @Query("select new com.socialhub.dto.UserResponse(u.id, u.name, u.email, u.version) from User u where u.id = :id")
+    Optional<UserResponse> findResponseById(Long id);
+
+    @Query("select new com.socialhub.dto.UserResponse(u.id, u.name, u.email, u.version) from User u where u.id in :ids")
+    List<UserResponse> findResponsesByIdIn(Collection<Long> ids);
+
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Query("select u.id from User u where u.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    // Delete in one statement, see ProductRepository.deleteOneById
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteOneById(Long id);
+
+    // Catalog snapshot, see ProductRepository
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.socialhub.dto.UserResponse(u.id, u.name, u.email, u.version) from User u order by u.id")
+    Stream<UserResponse> streamResponsesOrderById();
+
+    @Query("select new com.socialhub.dto.UserResponse(u.id, u.name, u.email, u.version) from User u "
+            + "where u.updatedAt > :since")
+    Stream<UserResponse> streamResponsesUpdatedSince(Instant since);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select u.id from User u order by u.id")
+    Stream<Long> streamIds();
 }
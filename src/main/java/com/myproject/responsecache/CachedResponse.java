@@ -0,0 +1,53 @@
+package com.socialhub.responsecache;
+
+import io.airlift.compress.zstd.ZstdCompressor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// A rendered 200 response, kept as is and in each content encoding worth sending. Encodings are null when the
+// body is too small for compression to pay off.
+record CachedResponse(String contentType, byte[] identity, byte[] gzip, byte[] zstd) {
+    static final String GZIP = "gzip";
+    static final String ZSTD = "zstd";
+
+    // Compressed once per catalog version and served many times, so small and medium bodies get the best gzip
+    // level; very large ones a cheaper level to keep the first request after a change quick
+    static CachedResponse of(String contentType, byte[] body, int minCompressBytes, int largeBodyBytes, boolean zstd) {
+        if (body.length < minCompressBytes) {
+            return new CachedResponse(contentType, body, null, null);
+        }
+        int level = body.length < largeBodyBytes ? Deflater.BEST_COMPRESSION : Deflater.DEFAULT_COMPRESSION;
+        return new CachedResponse(contentType, body, gzip(body, level), zstd ? zstd(body) : null);
+    }
+
+    long weight() {
+        return identity.length + (gzip != null ? gzip.length : 0) + (zstd != null ? zstd.length : 0);
+    }
+
+    private static byte[] gzip(byte[] body, int level) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    // Pure Java zstd (aircompressor), its compressor always uses the default level
+    private static byte[] zstd(byte[] body) {
+        ZstdCompressor compressor = new ZstdCompressor();
+        byte[] out = new byte[compressor.maxCompressedLength(body.length)];
+        int length = compressor.compress(body, 0, body.length, out, 0, out.length);
+        return Arrays.copyOf(out, length);
+    }
+}
@@ -0,0 +1,170 @@
+package com.socialhub.responsecache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.socialhub.event.ProductBatchChangedEvent;
+import com.socialhub.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Whole-response cache for the catalog listings. The first GET for a route, query string and Accept header renders as
+// usual; the body is kept together with its gzip and zstd encodings, and later requests get the stored bytes in the
+// encoding they accept, without touching the service, Jackson or a compressor. Entries belong to a catalog version
+// that every committed product change bumps, so they are never served after a change made on this instance. The
+// TTL bounds staleness from changes made on other instances, the same as for the product list cache.
+// Only synchronous endpoints can be listed in the paths.
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+
+    private final Set<String> paths;
+    private final int maxEntryBytes;
+    private final int minCompressBytes;
+    private final int largeBodyBytes;
+    private final boolean zstd;
+    private final Cache<Key, CachedResponse> cache;
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Map<String, Counter> sentBytes;
+
+    private record Key(String path, String query, String accept, long catalogVersion) {
+    }
+
+    public ResponseCacheFilter(Set<String> paths, long maxBytes, int maxEntryBytes, Duration ttl, int minCompressBytes,
+                               int largeBodyBytes, boolean zstd, MeterRegistry meterRegistry) {
+        this.paths = paths;
+        this.maxEntryBytes = maxEntryBytes;
+        this.minCompressBytes = minCompressBytes;
+        this.largeBodyBytes = largeBodyBytes;
+        this.zstd = zstd;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, CachedResponse response) -> (int) Math.min(Integer.MAX_VALUE, response.weight()))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "responses");
+        this.hits = Counter.builder("response.cache.requests").tag("result", "hit")
+                .description("Requests to cacheable routes").register(meterRegistry);
+        this.misses = Counter.builder("response.cache.requests").tag("result", "miss")
+                .description("Requests to cacheable routes").register(meterRegistry);
+        this.sentBytes = Map.of(
+                "identity", sentBytesCounter("identity", meterRegistry),
+                CachedResponse.GZIP, sentBytesCounter(CachedResponse.GZIP, meterRegistry),
+                CachedResponse.ZSTD, sentBytesCounter(CachedResponse.ZSTD, meterRegistry));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Bump first: a response rendered before the change is stored under the old version and never served
+        catalogVersion.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductBatchChangedEvent event) {
+        catalogVersion.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Key key = new Key(path(request), request.getQueryString(), request.getHeader(HttpHeaders.ACCEPT), catalogVersion.get());
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            send(cached, request, response);
+            return;
+        }
+        misses.increment();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        byte[] body = wrapper.getContentAsByteArray();
+        if (wrapper.getStatus() != HttpStatus.OK.value() || body.length > maxEntryBytes
+                || wrapper.getHeader(HttpHeaders.CONTENT_ENCODING) != null || wrapper.getContentType() == null) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        CachedResponse rendered = CachedResponse.of(wrapper.getContentType(), body, minCompressBytes, largeBodyBytes, zstd);
+        cache.put(key, rendered);
+        // Headers set by the controller already went through the wrapper, only the body is still held back
+        send(rendered, request, response);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !paths.contains(path(request));
+    }
+
+    private void send(CachedResponse cached, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String encoding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING), cached);
+        byte[] body = switch (encoding) {
+            case CachedResponse.ZSTD -> cached.zstd();
+            case CachedResponse.GZIP -> cached.gzip();
+            default -> cached.identity();
+        };
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(cached.contentType());
+        response.setHeader(HttpHeaders.VARY, VARY);
+        if (!"identity".equals(encoding)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+        response.setContentLength(body.length);
+        // The stored array goes to the connector as is, nothing is rendered or copied per request
+        response.getOutputStream().write(body);
+        sentBytes.get(encoding).increment(body.length);
+    }
+
+    // zstd over gzip over identity, among the encodings the client accepts with a non-zero q
+    private static String negotiate(String acceptEncoding, CachedResponse cached) {
+        if (acceptEncoding == null || cached.gzip() == null) {
+            return "identity";
+        }
+        boolean gzip = false;
+        boolean zstd = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            if (tokens.length > 1 && tokens[1].replace(" ", "").matches("q=0(\\.0*)?")) {
+                continue;
+            }
+            gzip |= coding.equals(CachedResponse.GZIP) || coding.equals("*");
+            zstd |= coding.equals(CachedResponse.ZSTD);
+        }
+        if (zstd && cached.zstd() != null) {
+            return CachedResponse.ZSTD;
+        }
+        return gzip ? CachedResponse.GZIP : "identity";
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static Counter sentBytesCounter(String encoding, MeterRegistry meterRegistry) {
+        return Counter.builder("response.cache.sent.bytes")
+                .description("Body bytes written by the response cache")
+                .baseUnit("bytes")
+                .tag("encoding", encoding)
+                .register(meterRegistry);
+    }
+}
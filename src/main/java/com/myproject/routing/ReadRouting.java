@@ -0,0 +1,37 @@
+package com.socialhub.routing;
+
+import java.util.function.Supplier;
+
+// Read-only transactions may be served by a replica. Code that has to see its own or very recent writes pins the
+// current thread to the primary for a while; without replica routing this changes nothing.
+public final class ReadRouting {
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    // Reads on this thread go to the primary until the scope is closed, nested scopes leave the outer one in place
+    public static Scope pinToPrimary() {
+        if (isPinnedToPrimary()) {
+            return () -> {
+            };
+        }
+        PINNED.set(Boolean.TRUE);
+        return PINNED::remove;
+    }
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        try (Scope ignored = pinToPrimary()) {
+            return work.get();
+        }
+    }
+}
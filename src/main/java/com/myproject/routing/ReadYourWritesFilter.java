@@ -0,0 +1,66 @@
+package com.socialhub.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+// Keeps a client's reads on the primary right after it wrote something. A mutating request gets a cookie that pins
+// the client's requests for the read-your-writes window, long enough for any replica still in rotation to have caught
+// up. Clients without cookies can send "X-Read-Consistency: primary" instead.
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    public static final String COOKIE = "read-primary-until";
+    public static final String HEADER = "X-Read-Consistency";
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final long windowMillis;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (write) {
+            // Set before the chain runs, the body may already be committed when it returns
+            Cookie cookie = new Cookie(COOKIE, Long.toString(now + windowMillis));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+            response.addCookie(cookie);
+        }
+        if (!write && !"primary".equalsIgnoreCase(request.getHeader(HEADER)) && pinnedUntil(request) <= now) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try (ReadRouting.Scope ignored = ReadRouting.pinToPrimary()) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0L;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException ex) {
+                    return 0L;
+                }
+            }
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,32 @@
+package com.socialhub.routing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+// app.datasource.replicas.* in application.properties, the primary pool keeps using spring.datasource.*
+@ConfigurationProperties(prefix = "app.datasource.replicas")
+public record ReplicaProperties(
+        List<Pool> pools,
+        @DefaultValue("round-robin") Strategy strategy,
+        @DefaultValue("5s") Duration maxLag,
+        Duration readYourWrites,
+        @DefaultValue("2s") Duration connectionTimeout) {
+
+    public ReplicaProperties {
+        pools = pools != null ? pools : List.of();
+        readYourWrites = readYourWrites != null ? readYourWrites : maxLag;
+    }
+
+    public enum Strategy {
+        ROUND_ROBIN,
+        // Lowest probe latency, weighted by the connections the pool has in use
+        LEAST_LATENCY
+    }
+
+    public record Pool(String name, String url, String username, String password,
+                       @DefaultValue("10") int maximumPoolSize) {
+    }
+}
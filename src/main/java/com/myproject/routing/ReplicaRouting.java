@@ -0,0 +1,228 @@
+package com.socialhub.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Primary pool plus replica pools for read-only transactions. Replicas are chosen round-robin or by latency among
+// those in rotation. Every instance writes a heartbeat row on the primary; a replica whose copy of that row is older
+// than maxLag (or that cannot be queried) is taken out of rotation until a later check finds it caught up. With no
+// replica in rotation, or on a thread pinned by ReadRouting, reads go to the primary.
+@Slf4j
+public class ReplicaRouting implements AutoCloseable {
+    static final String CREATE_HEARTBEAT = "create table if not exists replica_heartbeat "
+            + "(id integer primary key, beat_millis bigint not null)";
+    static final String UPDATE_HEARTBEAT = "update replica_heartbeat set beat_millis = ? where id = 1";
+    static final String INSERT_HEARTBEAT = "insert into replica_heartbeat (id, beat_millis) values (1, ?)";
+    static final String READ_HEARTBEAT = "select beat_millis from replica_heartbeat where id = 1";
+
+    // Weight of the newest probe in the latency average
+    private static final double LATENCY_ALPHA = 0.3;
+
+    private final HikariDataSource primary;
+    // The primary pool, or the JDBC gate in front of it. Every primary connection is taken through it.
+    private final DataSource primaryConnections;
+    private final JdbcTemplate primaryJdbc;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaProperties.Strategy strategy;
+    private final long maxLagMillis;
+    private final DataSource readOnlyDataSource = new ReadOnlyDataSource();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryReads;
+    private volatile List<Replica> rotation = List.of();
+    private volatile boolean heartbeatTableChecked;
+
+    private static final class Replica {
+        final String name;
+        final HikariDataSource pool;
+        final JdbcTemplate jdbc;
+        final Counter reads;
+        volatile boolean inRotation;
+        // Milliseconds behind the primary as of the last check, NaN when unknown
+        volatile double lagMillis = Double.NaN;
+        volatile double latencyNanos;
+
+        Replica(String name, HikariDataSource pool, Counter reads) {
+            this.name = name;
+            this.pool = pool;
+            this.jdbc = new JdbcTemplate(pool);
+            this.reads = reads;
+        }
+
+        double load() {
+            HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+            return latencyNanos * (1 + (mxBean != null ? mxBean.getActiveConnections() : 0));
+        }
+    }
+
+    public ReplicaRouting(HikariDataSource primary, DataSource primaryConnections, ReplicaProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.primaryConnections = primaryConnections;
+        this.primaryJdbc = new JdbcTemplate(primaryConnections);
+        this.strategy = properties.strategy();
+        this.maxLagMillis = properties.maxLag().toMillis();
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+        primary.setMetricsTrackerFactory(metrics);
+        this.primaryReads = readsCounter(primary.getPoolName(), meterRegistry);
+        for (ReplicaProperties.Pool pool : properties.pools()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(pool.name());
+            dataSource.setJdbcUrl(pool.url());
+            dataSource.setUsername(pool.username());
+            dataSource.setPassword(pool.password());
+            dataSource.setMaximumPoolSize(pool.maximumPoolSize());
+            dataSource.setConnectionTimeout(properties.connectionTimeout().toMillis());
+            dataSource.setReadOnly(true);
+            // Started on first use, an unreachable replica must not keep the application from starting
+            dataSource.setInitializationFailTimeout(-1);
+            dataSource.setMetricsTrackerFactory(metrics);
+            Replica replica = new Replica(pool.name(), dataSource, readsCounter(pool.name(), meterRegistry));
+            replicas.add(replica);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagMillis)
+                    .description("How far the replica was behind the primary at the last check")
+                    .baseUnit("milliseconds")
+                    .tag("pool", pool.name())
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.in-rotation", replica, r -> r.inRotation ? 1 : 0)
+                    .description("1 while the replica serves read-only transactions")
+                    .tag("pool", pool.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    public DataSource primary() {
+        return primaryConnections;
+    }
+
+    // Connections for read-only transactions
+    public DataSource readOnlyDataSource() {
+        return readOnlyDataSource;
+    }
+
+    public boolean isInRotation(String name) {
+        return rotation.stream().anyMatch(replica -> replica.name.equals(name));
+    }
+
+    // Clocks of the instances writing and checking the heartbeat should be in sync, skew adds to the measured lag
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.heartbeat-interval-ms:1000}")
+    public void writeHeartbeat() {
+        try {
+            if (!heartbeatTableChecked) {
+                primaryJdbc.execute(CREATE_HEARTBEAT);
+                heartbeatTableChecked = true;
+            }
+            long now = System.currentTimeMillis();
+            if (primaryJdbc.update(UPDATE_HEARTBEAT, now) == 0) {
+                primaryJdbc.update(INSERT_HEARTBEAT, now);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Could not write the replica heartbeat: {}", ex.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.check-interval-ms:1000}")
+    public void checkReplicas() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            boolean wasInRotation = replica.inRotation;
+            long started = System.nanoTime();
+            try {
+                Long beat = replica.jdbc.queryForObject(READ_HEARTBEAT, Long.class);
+                long latency = System.nanoTime() - started;
+                replica.latencyNanos = replica.latencyNanos == 0
+                        ? latency : LATENCY_ALPHA * latency + (1 - LATENCY_ALPHA) * replica.latencyNanos;
+                replica.lagMillis = Math.max(0, System.currentTimeMillis() - (beat != null ? beat : 0L));
+                replica.inRotation = replica.lagMillis <= maxLagMillis;
+            } catch (DataAccessException ex) {
+                replica.lagMillis = Double.NaN;
+                replica.inRotation = false;
+                if (wasInRotation) {
+                    log.warn("Replica {} out of rotation, health check failed: {}", replica.name, ex.getMessage());
+                }
+            }
+            if (replica.inRotation) {
+                healthy.add(replica);
+            }
+            if (wasInRotation && !replica.inRotation && !Double.isNaN(replica.lagMillis)) {
+                log.warn("Replica {} out of rotation, {} ms behind the primary", replica.name, (long) replica.lagMillis);
+            } else if (!wasInRotation && replica.inRotation) {
+                log.info("Replica {} in rotation, {} ms behind the primary", replica.name, (long) replica.lagMillis);
+            }
+        }
+        rotation = List.copyOf(healthy);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private Replica choose() {
+        List<Replica> candidates = rotation;
+        if (candidates.isEmpty() || ReadRouting.isPinnedToPrimary()) {
+            return null;
+        }
+        if (strategy == ReplicaProperties.Strategy.ROUND_ROBIN || candidates.size() == 1) {
+            return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+        }
+        Replica best = candidates.get(0);
+        for (Replica candidate : candidates) {
+            if (candidate.load() < best.load()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static Counter readsCounter(String pool, MeterRegistry meterRegistry) {
+        return Counter.builder("datasource.reads")
+                .description("Connections handed out for read-only transactions")
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+
+    // Asked for a connection by LazyConnectionDataSourceProxy once a read-only transaction runs its first statement
+    private final class ReadOnlyDataSource extends AbstractDataSource {
+        @Override
+        public Connection getConnection() throws SQLException {
+            Replica replica = choose();
+            if (replica != null) {
+                try {
+                    Connection connection = replica.pool.getConnection();
+                    replica.reads.increment();
+                    return connection;
+                } catch (SQLException ex) {
+                    // Stays out until the next check passes, the read falls back to the primary
+                    replica.inRotation = false;
+                    rotation = rotation.stream().filter(r -> r != replica).toList();
+                    log.warn("Replica {} out of rotation, no connection within {} ms: {}", replica.name,
+                            replica.pool.getConnectionTimeout(), ex.getMessage());
+                }
+            }
+            primaryReads.increment();
+            return primaryConnections.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLException("Read-only connections use the configured pool credentials");
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.socialhub.service;
+
+import com.socialhub.metrics.SqlStatementInspector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Single-flight data loader. Concurrent loads of the same key share one query, and keys asked for within a short
+// window are fetched together with one IN (...) query. A batch goes out when the window ends, run on a virtual
+// thread, or as soon as maxBatchSize keys are waiting, run by the caller that filled it. A zero window keeps
+// the single-flight part and queries straight away.
+public class BatchingLoader<K, V> implements AutoCloseable {
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService timer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock. Every pending key is also in flight, a key stays in flight until its query returned.
+    private final Map<K, CompletableFuture<V>> inFlight = new HashMap<>();
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    // SQL statement counts of the requests waiting for the pending keys, the batch query counts for each of them
+    private Set<SqlStatementInspector.StatementCount> pendingCounts = new HashSet<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final Counter requests;
+    private final Counter coalesced;
+    private final Counter queries;
+    private final DistributionSummary batchSizes;
+
+    private record Batch<K, V>(Map<K, CompletableFuture<V>> futures,
+                               Set<SqlStatementInspector.StatementCount> counts) {
+    }
+
+    public BatchingLoader(String name, Function<Collection<K>, Map<K, V>> batchFunction, long windowMicros,
+                          int maxBatchSize, MeterRegistry meterRegistry) {
+        this.batchFunction = batchFunction;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("loader-" + name + "-timer").factory());
+        // Coalescing ratio = loader.requests / loader.queries
+        this.requests = Counter.builder("loader.requests")
+                .description("Keys asked for")
+                .tag("loader", name)
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("loader.coalesced")
+                .description("Keys that joined a query already in flight")
+                .tag("loader", name)
+                .register(meterRegistry);
+        this.queries = Counter.builder("loader.queries")
+                .description("Batch queries sent to the database")
+                .tag("loader", name)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("loader.batch.size")
+                .description("Keys per batch query")
+                .tag("loader", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Value for the key, null when the batch function did not return one
+    public V load(K key) {
+        return join(enqueue(List.of(key)).get(key));
+    }
+
+    // Values for the keys that were found, in the order of the keys
+    public Map<K, V> loadAll(Collection<K> keys) {
+        Map<K, V> loaded = new LinkedHashMap<>();
+        enqueue(keys).forEach((key, future) -> {
+            V value = join(future);
+            if (value != null) {
+                loaded.put(key, value);
+            }
+        });
+        return loaded;
+    }
+
+    // A key changed: later loads must not join a query that may have read the old row. A key that is still
+    // pending has not been queried yet and can stay.
+    public void forget(K key) {
+        lock.lock();
+        try {
+            if (!pending.containsKey(key)) {
+                inFlight.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // forget for many keys under one lock
+    public void forgetAll(Collection<K> keys) {
+        lock.lock();
+        try {
+            for (K key : keys) {
+                if (!pending.containsKey(key)) {
+                    inFlight.remove(key);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        flushPending();
+    }
+
+    private Map<K, CompletableFuture<V>> enqueue(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        Batch<K, V> full = null;
+        lock.lock();
+        try {
+            for (K key : keys) {
+                if (futures.containsKey(key)) {
+                    continue;
+                }
+                requests.increment();
+                CompletableFuture<V> future = inFlight.get(key);
+                if (future != null) {
+                    coalesced.increment();
+                    futures.put(key, future);
+                    continue;
+                }
+                future = new CompletableFuture<>();
+                inFlight.put(key, future);
+                pending.put(key, future);
+                pendingCounts.addAll(SqlStatementInspector.current());
+                futures.put(key, future);
+                if (pending.size() >= maxBatchSize && full == null) {
+                    // Only the first full batch runs here, the rest waits for the timer or the next caller
+                    full = takePending();
+                }
+            }
+            if (windowNanos == 0) {
+                if (full == null) {
+                    full = takePending();
+                } else if (!pending.isEmpty()) {
+                    Batch<K, V> rest = takePending();
+                    Thread.ofVirtual().name("loader-batch").start(() -> execute(rest));
+                }
+            } else if (!pending.isEmpty() && scheduledFlush == null) {
+                scheduledFlush = timer.schedule(this::flushPending, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null && !full.futures().isEmpty()) {
+            execute(full);
+        }
+        return futures;
+    }
+
+    // Guarded by lock
+    private Batch<K, V> takePending() {
+        Batch<K, V> batch = new Batch<>(pending, pendingCounts);
+        pending = new LinkedHashMap<>();
+        pendingCounts = new HashSet<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void flushPending() {
+        Batch<K, V> batch;
+        lock.lock();
+        try {
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+        if (!batch.futures().isEmpty()) {
+            // Off the timer thread, so one slow query does not hold back the next window
+            Thread.ofVirtual().name("loader-batch").start(() -> execute(batch));
+        }
+    }
+
+    private void execute(Batch<K, V> batch) {
+        Map<K, CompletableFuture<V>> futures = batch.futures();
+        queries.increment();
+        batchSizes.record(futures.size());
+        try (SqlStatementInspector.Scope scope = SqlStatementInspector.bind(batch.counts())) {
+            Map<K, V> loaded = batchFunction.apply(futures.keySet());
+            futures.forEach((key, future) -> future.complete(loaded.get(key)));
+        } catch (RuntimeException | Error ex) {
+            futures.values().forEach(future -> future.completeExceptionally(ex));
+        } finally {
+            lock.lock();
+            try {
+                futures.forEach(inFlight::remove);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
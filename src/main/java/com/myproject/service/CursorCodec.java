@@ -0,0 +1,32 @@
+package com.socialhub.service;
+
+import com.socialhub.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Encodes the last seen id as an opaque continuation token for keyset pagination
+public final class CursorCodec {
+    private static final String PREFIX = "v1:";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static long decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            // also covers malformed Base64 and NumberFormatException
+            throw new BadRequestException("Invalid cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.socialhub.service;
+
+import com.socialhub.exception.BadRequestException;
+import com.socialhub.exception.InsufficientStockException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Reserves and releases stock without a read-modify-write of the product.
+// Regular products go straight to a conditional UPDATE. Products listed in app.inventory.hot-skus lease stock from
+// the database in blocks into a StripedStock, serve reservations from memory and hand unused stock back on every
+// flush. A unit is either in the row or in one stripe, never both, so nothing is ever oversold. Units leased but not
+// sold when the process dies are lost to the row; inventory.leased shows how many that would be (see the README).
+@Service
+@Slf4j
+public class InventoryService {
+    // Per call, far above any real order and far enough below Integer.MAX_VALUE for the lease arithmetic
+    public static final int MAX_QUANTITY = 1_000_000;
+
+    private final ProductService productService;
+    private final Set<Long> hotSkus;
+    private final int stripes;
+    private final int leaseBlock;
+    private final MeterRegistry meterRegistry;
+    private final Map<Long, HotStock> hotStock = new ConcurrentHashMap<>();
+
+    public InventoryService(ProductService productService,
+                            @Value("${app.inventory.hot-skus:}") Set<Long> hotSkus,
+                            @Value("${app.inventory.stripes:0}") int stripes,
+                            @Value("${app.inventory.lease-block:100}") int leaseBlock,
+                            MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.hotSkus = Set.copyOf(hotSkus);
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        this.leaseBlock = leaseBlock;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void reserve(Long id, int quantity) {
+        checkQuantity(quantity);
+        if (!hotSkus.contains(id)) {
+            if (!productService.takeStock(id, quantity)) {
+                throw insufficient(id, quantity);
+            }
+            return;
+        }
+
+        HotStock hot = hotStock.computeIfAbsent(id, this::newHotStock);
+        if (hot.stock().tryTake(quantity)) {
+            return;
+        }
+        // A lock rather than synchronized, so a virtual thread waiting on the database does not pin its carrier
+        hot.refill().lock();
+        try {
+            if (hot.stock().tryTake(quantity)) {
+                return;
+            }
+            // Lease a block on top of this reservation; close to running out, take only what is asked for
+            if (takeWithLease(id, quantity)) {
+                hot.stock().add(leaseBlock);
+                return;
+            }
+            if (productService.takeStock(id, quantity)) {
+                return;
+            }
+            // The row is short, but the stripes may hold enough between them without any one holding the whole
+            // quantity. Only answer 409 when memory and row together cannot cover it.
+            int pooled = hot.stock().takeUpTo(quantity);
+            if (pooled == quantity || productService.takeStock(id, quantity - pooled)) {
+                return;
+            }
+            hot.stock().add(pooled);
+            throw insufficient(id, quantity);
+        } finally {
+            hot.refill().unlock();
+        }
+    }
+
+    // Trusted callers only: nothing ties a release to an earlier reservation
+    public void release(Long id, int quantity) {
+        checkQuantity(quantity);
+        HotStock hot = hotSkus.contains(id) ? hotStock.get(id) : null;
+        if (hot != null) {
+            hot.stock().add(quantity);
+        } else {
+            productService.returnStock(id, quantity);
+        }
+    }
+
+    // Hands stock held in memory back to the database, so the row converges to the true quantity
+    @Scheduled(fixedDelayString = "${app.inventory.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        hotStock.forEach((id, hot) -> {
+            long held = hot.stock().drain();
+            if (held == 0) {
+                return;
+            }
+            try {
+                productService.returnStock(id, Math.toIntExact(held));
+            } catch (RuntimeException ex) {
+                // Most likely the product was deleted, its leased stock goes with it
+                log.warn("Could not return {} units of product {} to the database", held, id, ex);
+                hotStock.remove(id);
+            }
+        });
+    }
+
+    // False without taking anything when the lease would not fit in an int, the caller then takes the exact quantity
+    private boolean takeWithLease(Long id, int quantity) {
+        int withLease;
+        try {
+            withLease = Math.addExact(quantity, leaseBlock);
+        } catch (ArithmeticException ex) {
+            return false;
+        }
+        return productService.takeStock(id, withLease);
+    }
+
+    private HotStock newHotStock(Long id) {
+        StripedStock stock = new StripedStock(stripes);
+        Gauge.builder("inventory.leased", stock, StripedStock::available)
+                .description("Units leased from the database and not yet sold or handed back")
+                .tag("product", String.valueOf(id))
+                .register(meterRegistry);
+        return new HotStock(stock, new ReentrantLock());
+    }
+
+    private static void checkQuantity(int quantity) {
+        if (quantity <= 0 || quantity > MAX_QUANTITY) {
+            throw new BadRequestException("quantity must be between 1 and " + MAX_QUANTITY);
+        }
+    }
+
+    private static InsufficientStockException insufficient(Long id, int quantity) {
+        return new InsufficientStockException("Not enough stock of product " + id + " to reserve " + quantity);
+    }
+
+    private record HotStock(StripedStock stock, ReentrantLock refill) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Default read model, DTO projections straight from the database
+@Component
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class JpaProductReadModel implements ProductReadModel {
+    private final ProductRepository productRepository;
+
+    @Override
+    public List<ProductBasicDTO> findAll() {
+        return productRepository.findAllBasic();
+    }
+
+    @Override
+    public List<ProductBasicDTO> findByPriceRange(double minPrice, double maxPrice, int limit) {
+        return productRepository.findBasicByPriceBetween(minPrice, maxPrice, Limit.of(limit));
+    }
+
+    @Override
+    public List<ProductBasicDTO> findTopByPrice(int limit, boolean highestFirst) {
+        // Highest first is the exact reverse of cheapest first, ties included
+        Sort byPrice = Sort.by("price", "id");
+        return productRepository.findBasic(highestFirst ? byPrice.descending() : byPrice, Limit.of(limit));
+    }
+}
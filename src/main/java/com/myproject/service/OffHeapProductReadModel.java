@@ -0,0 +1,528 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.event.ProductBatchChangedEvent;
+import com.socialhub.event.ProductChangedEvent;
+import com.socialhub.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Catalog held outside the Java heap as memory-mapped columns, one file per column: long ids, double prices,
+// int quantities, long versions, and names as UTF-8 in a byte arena referenced by offset and length.
+// Rows are kept sorted by (price, id), so a price range is a binary search plus a sequential scan and top-N reads
+// either end. Only the returned rows are turned into objects. An update finds its row by binary search on the price
+// it was stored with and moves it across the rows between its old and new price only, an import chunk is merged into
+// the columns in one pass. Until the first build finishes, queries go to the JPA read model.
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "app.read-model", havingValue = "offheap")
+public class OffHeapProductReadModel implements ProductReadModel, Closeable {
+    private static final int INITIAL_ROWS = 1_024;
+    private static final int NO_NAME = -1;
+    private static final long NO_VERSION = -1;
+
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final JpaProductReadModel fallback;
+
+    private final MappedColumn ids;
+    private final MappedColumn prices;
+    private final MappedColumn quantities;
+    private final MappedColumn versions;
+    private final MappedColumn nameOffsets;
+    private final MappedColumn nameLengths;
+    private final MappedColumn names;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private int size;
+    private int namesUsed;
+    // Stored price of every row by id, which with the (price, id) order locates its row. Unlike row numbers it
+    // does not change when other rows shift. This and the set below are the only per-product state on the heap.
+    private final Map<Long, Double> priceById = new HashMap<>();
+    // Products deleted since the last build, a late update for one of them is dropped
+    private final Set<Long> deleted = new HashSet<>();
+    private final Queue<ProductChangedEvent> pendingDuringBuild = new ArrayDeque<>();
+    private boolean building;
+    private volatile boolean ready;
+
+    public OffHeapProductReadModel(ProductRepository productRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   JpaProductReadModel fallback,
+                                   @Value("${app.read-model.dir}") Path directory) throws IOException {
+        this.productRepository = productRepository;
+        this.transactionManager = transactionManager;
+        this.fallback = fallback;
+        Files.createDirectories(directory);
+        this.ids = new MappedColumn(directory.resolve("ids.bin"), Long.BYTES);
+        this.prices = new MappedColumn(directory.resolve("prices.bin"), Double.BYTES);
+        this.quantities = new MappedColumn(directory.resolve("quantities.bin"), Integer.BYTES);
+        this.versions = new MappedColumn(directory.resolve("versions.bin"), Long.BYTES);
+        this.nameOffsets = new MappedColumn(directory.resolve("name-offsets.bin"), Integer.BYTES);
+        this.nameLengths = new MappedColumn(directory.resolve("name-lengths.bin"), Integer.BYTES);
+        this.names = new MappedColumn(directory.resolve("names.bin"), 1);
+    }
+
+    // (Re)builds the columns from scratch, rows arrive from the database already in price order
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.nanoTime();
+        withWriteLock(() -> {
+            building = true;
+            size = 0;
+            namesUsed = 0;
+            priceById.clear();
+            deleted.clear();
+        });
+
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.executeWithoutResult(status -> {
+                try (Stream<ProductDetailDTO> stream = productRepository.streamDetailsOrderByPrice()) {
+                    stream.forEach(product -> withWriteLock(() -> insertRow(size, product, appendName(product.getName()))));
+                }
+            });
+        } finally {
+            withWriteLock(() -> {
+                applyAll(List.copyOf(pendingDuringBuild));
+                pendingDuringBuild.clear();
+                building = false;
+            });
+        }
+        ready = true;
+        log.info("Off-heap product read model built with {} products ({} KB of names) in {} ms",
+                size(), namesUsed / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        withWriteLock(() -> {
+            if (building) {
+                pendingDuringBuild.add(event);
+            } else {
+                apply(event);
+            }
+        });
+    }
+
+    // A whole import chunk under one write lock
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductBatchChangedEvent event) {
+        withWriteLock(() -> {
+            if (building) {
+                pendingDuringBuild.addAll(event.changes());
+            } else {
+                applyAll(event.changes());
+            }
+        });
+    }
+
+    @Override
+    public List<ProductBasicDTO> findAll() {
+        if (!ready) {
+            return fallback.findAll();
+        }
+        List<ProductBasicDTO> products;
+        lock.readLock().lock();
+        try {
+            products = new ArrayList<>(size);
+            for (int row = 0; row < size; row++) {
+                products.add(basic(row));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        products.sort(Comparator.comparing(ProductBasicDTO::getId));
+        return products;
+    }
+
+    @Override
+    public List<ProductBasicDTO> findByPriceRange(double minPrice, double maxPrice, int limit) {
+        if (!ready) {
+            return fallback.findByPriceRange(minPrice, maxPrice, limit);
+        }
+        lock.readLock().lock();
+        try {
+            List<ProductBasicDTO> products = new ArrayList<>(Math.min(limit, 64));
+            for (int row = firstRowPricedAtLeast(minPrice); row < size && products.size() < limit; row++) {
+                if (price(row) > maxPrice) {
+                    break;
+                }
+                products.add(basic(row));
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ProductBasicDTO> findTopByPrice(int limit, boolean highestFirst) {
+        if (!ready) {
+            return fallback.findTopByPrice(limit, highestFirst);
+        }
+        lock.readLock().lock();
+        try {
+            int count = Math.min(limit, size);
+            List<ProductBasicDTO> products = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                products.add(basic(highestFirst ? size - 1 - i : i));
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        for (MappedColumn column : List.of(ids, prices, quantities, versions, nameOffsets, nameLengths, names)) {
+            column.close();
+        }
+    }
+
+    private void apply(ProductChangedEvent event) {
+        int existing = rowOf(event.productId());
+        if (event.isOlderThan(appliedVersion(event.productId(), existing))) {
+            return;
+        }
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+            if (existing >= 0) {
+                removeRow(existing);
+            }
+            deleted.add(event.productId());
+            return;
+        }
+        deleted.remove(event.productId());
+        ProductDetailDTO product = event.product();
+        long nameRef = nameRefFor(existing, product.getName());
+        if (existing >= 0) {
+            moveRow(existing, product, nameRef);
+        } else {
+            insertRow(insertionPoint(product.getPrice(), product.getId()), product, nameRef);
+        }
+    }
+
+    // Same outcome as applying the changes one by one, but every row is copied at most twice: once to close the
+    // gaps of the changed and deleted products, once to open the gaps for their new rows while merging from the end
+    private void applyAll(List<ProductChangedEvent> changes) {
+        // The change that wins per product, checked against the one before it in the list
+        Map<Long, ProductChangedEvent> latest = new LinkedHashMap<>();
+        for (ProductChangedEvent change : changes) {
+            ProductChangedEvent previous = latest.get(change.productId());
+            Long applied;
+            if (previous == null) {
+                applied = appliedVersion(change.productId(), rowOf(change.productId()));
+            } else if (previous.type() == ProductChangedEvent.Type.DELETED) {
+                applied = ProductChangedEvent.DELETED_VERSION;
+            } else {
+                applied = previous.product().getVersion();
+            }
+            if (!change.isOlderThan(applied)) {
+                latest.put(change.productId(), change);
+            }
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+
+        List<Row> added = new ArrayList<>(latest.size());
+        for (ProductChangedEvent change : latest.values()) {
+            if (change.type() == ProductChangedEvent.Type.DELETED) {
+                deleted.add(change.productId());
+            } else {
+                deleted.remove(change.productId());
+                added.add(new Row(change.product(), nameRefFor(rowOf(change.productId()), change.product().getName())));
+            }
+        }
+
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (latest.containsKey(id(row))) {
+                priceById.remove(id(row));
+            } else {
+                if (row != kept) {
+                    copyRow(row, kept);
+                }
+                kept++;
+            }
+        }
+
+        added.sort(Comparator.comparingDouble((Row row) -> row.product().getPrice())
+                .thenComparingLong(row -> row.product().getId()));
+        ensureRowCapacity(kept + added.size());
+        int from = kept - 1;
+        int to = kept + added.size() - 1;
+        for (int next = added.size() - 1; next >= 0; to--) {
+            ProductDetailDTO product = added.get(next).product();
+            if (from >= 0 && sortsAfter(from, product.getPrice(), product.getId())) {
+                copyRow(from--, to);
+            } else {
+                writeRow(to, product, added.get(next--).nameRef());
+            }
+        }
+        size = kept + added.size();
+    }
+
+    // Version the read model holds for a product, DELETED_VERSION for one deleted since the last build
+    private Long appliedVersion(Long id, int row) {
+        if (row >= 0) {
+            return version(row);
+        }
+        return deleted.contains(id) ? ProductChangedEvent.DELETED_VERSION : null;
+    }
+
+    // Price or quantity changes keep the stored name, a renamed product appends its new name to the arena.
+    // Old names stay behind as garbage until the next full build.
+    private long nameRefFor(int existing, String name) {
+        return existing >= 0 && sameName(existing, name) ? nameRef(existing) : appendName(name);
+    }
+
+    private ProductBasicDTO basic(int row) {
+        return new ProductBasicDTO(id(row), name(row), price(row));
+    }
+
+    private long id(int row) {
+        return ids.buffer.getLong(row * Long.BYTES);
+    }
+
+    private double price(int row) {
+        return prices.buffer.getDouble(row * Double.BYTES);
+    }
+
+    private Long version(int row) {
+        long version = versions.buffer.getLong(row * Long.BYTES);
+        return version == NO_VERSION ? null : version;
+    }
+
+    private String name(int row) {
+        int length = nameLengths.buffer.getInt(row * Integer.BYTES);
+        if (length == NO_NAME) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        names.buffer.get(nameOffsets.buffer.getInt(row * Integer.BYTES), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long nameRef(int row) {
+        return ((long) nameOffsets.buffer.getInt(row * Integer.BYTES) << 32)
+                | (nameLengths.buffer.getInt(row * Integer.BYTES) & 0xFFFFFFFFL);
+    }
+
+    private boolean sameName(int row, String name) {
+        String stored = name(row);
+        return stored == null ? name == null : stored.equals(name);
+    }
+
+    // Offset in the high and length in the low 32 bits
+    private long appendName(String name) {
+        if (name == null) {
+            return NO_NAME & 0xFFFFFFFFL;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        names.ensureCapacity((long) namesUsed + bytes.length);
+        names.buffer.put(namesUsed, bytes);
+        long ref = ((long) namesUsed << 32) | bytes.length;
+        namesUsed += bytes.length;
+        return ref;
+    }
+
+    private int rowOf(Long id) {
+        Double price = priceById.get(id);
+        if (price == null) {
+            return -1;
+        }
+        int row = insertionPoint(price, id);
+        return row < size && id(row) == id ? row : -1;
+    }
+
+    private int firstRowPricedAtLeast(double minPrice) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (price(middle) < minPrice) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // First row that sorts after (price, id)
+    private int insertionPoint(double price, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int order = Double.compare(price(middle), price);
+            if (order < 0 || (order == 0 && id(middle) < id)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean sortsAfter(int row, double price, long id) {
+        int order = Double.compare(price(row), price);
+        return order > 0 || (order == 0 && id(row) > id);
+    }
+
+    private void insertRow(int at, ProductDetailDTO product, long nameRef) {
+        ensureRowCapacity(size + 1);
+        for (int row = size - 1; row >= at; row--) {
+            copyRow(row, row + 1);
+        }
+        writeRow(at, product, nameRef);
+        size++;
+    }
+
+    // Shifts only the rows between the old and the new place, none when the price stays the same
+    private void moveRow(int from, ProductDetailDTO product, long nameRef) {
+        priceById.remove(id(from));
+        int to = insertionPoint(product.getPrice(), product.getId());
+        if (to > from) {
+            // The row itself is still in place and counted by the insertion point
+            to--;
+            for (int row = from; row < to; row++) {
+                copyRow(row + 1, row);
+            }
+        } else {
+            for (int row = from; row > to; row--) {
+                copyRow(row - 1, row);
+            }
+        }
+        writeRow(to, product, nameRef);
+    }
+
+    private void removeRow(int at) {
+        priceById.remove(id(at));
+        for (int row = at; row < size - 1; row++) {
+            copyRow(row + 1, row);
+        }
+        size--;
+    }
+
+    private void writeRow(int at, ProductDetailDTO product, long nameRef) {
+        ids.buffer.putLong(at * Long.BYTES, product.getId());
+        prices.buffer.putDouble(at * Double.BYTES, product.getPrice());
+        quantities.buffer.putInt(at * Integer.BYTES, product.getQuantity());
+        versions.buffer.putLong(at * Long.BYTES, product.getVersion() == null ? NO_VERSION : product.getVersion());
+        nameOffsets.buffer.putInt(at * Integer.BYTES, (int) (nameRef >>> 32));
+        nameLengths.buffer.putInt(at * Integer.BYTES, (int) nameRef);
+        priceById.put(product.getId(), product.getPrice());
+    }
+
+    private void copyRow(int from, int to) {
+        ids.buffer.putLong(to * Long.BYTES, ids.buffer.getLong(from * Long.BYTES));
+        prices.buffer.putDouble(to * Double.BYTES, prices.buffer.getDouble(from * Double.BYTES));
+        quantities.buffer.putInt(to * Integer.BYTES, quantities.buffer.getInt(from * Integer.BYTES));
+        versions.buffer.putLong(to * Long.BYTES, versions.buffer.getLong(from * Long.BYTES));
+        nameOffsets.buffer.putInt(to * Integer.BYTES, nameOffsets.buffer.getInt(from * Integer.BYTES));
+        nameLengths.buffer.putInt(to * Integer.BYTES, nameLengths.buffer.getInt(from * Integer.BYTES));
+    }
+
+    private void ensureRowCapacity(int rows) {
+        for (MappedColumn column : Arrays.asList(ids, prices, quantities, versions, nameOffsets, nameLengths)) {
+            column.ensureCapacity((long) rows * column.width);
+        }
+    }
+
+    private record Row(ProductDetailDTO product, long nameRef) {
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // One memory-mapped file, remapped at twice the size when it runs out of room. A single mapping is
+    // limited to 2 GB, about 268 million rows for the widest column.
+    private static final class MappedColumn implements Closeable {
+        private final FileChannel channel;
+        private final int width;
+        private MappedByteBuffer buffer;
+
+        MappedColumn(Path file, int width) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.width = width;
+            map((long) INITIAL_ROWS * width);
+        }
+
+        void ensureCapacity(long bytes) {
+            if (bytes > buffer.capacity()) {
+                try {
+                    map(Math.min(Math.max(bytes, 2L * buffer.capacity()), Integer.MAX_VALUE));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+
+        private void map(long bytes) throws IOException {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.socialhub.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.mapper.ProductMapper;
+import com.socialhub.model.Product;
+import com.socialhub.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Streams the full product catalog to an output stream without materializing it in memory
+@Service
+@RequiredArgsConstructor
+public class ProductExportService {
+    // Rows kept in the persistence context before it is cleared
+    private static final int CLEAR_INTERVAL = 1_000;
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    // Write every product as one JSON object per line
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        try (SequenceWriter writer = objectMapper.writerFor(ProductDetailDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            long count = forEachProduct(product -> writer.write(productMapper.toProductDetailDTO(product)), writer);
+            writer.flush();
+            if (count > 0) {
+                out.write('\n');
+            }
+            return count;
+        }
+    }
+
+    // Write every product as a CSV row, with a header line
+    @Transactional(readOnly = true)
+    public long exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write("id,name,description,price,quantity\n");
+        long count = forEachProduct(product -> {
+            writer.write(String.valueOf(product.getId()));
+            writer.write(',');
+            writeCsvField(writer, product.getName());
+            writer.write(',');
+            writeCsvField(writer, product.getDescription());
+            writer.write(',');
+            writer.write(Double.toString(product.getPrice()));
+            writer.write(',');
+            writer.write(Integer.toString(product.getQuantity()));
+            writer.write('\n');
+        }, writer);
+        writer.flush();
+        return count;
+    }
+
+    private long forEachProduct(ProductSink sink, Flushable output) throws IOException {
+        long count = 0;
+        try (Stream<Product> products = productRepository.streamAllOrderById()) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                sink.write(iterator.next());
+                if (++count % CLEAR_INTERVAL == 0) {
+                    // Detach the rows written so far so the persistence context stays bounded
+                    entityManager.clear();
+                    output.flush();
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    private interface ProductSink {
+        void write(Product product) throws IOException;
+    }
+}
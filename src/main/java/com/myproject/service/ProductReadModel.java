@@ -0,0 +1,18 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.ProductBasicDTO;
+
+import java.util.List;
+
+// Read side of the catalog behind ProductService: list, price range and top-N by price.
+// JpaProductReadModel queries the database, OffHeapProductReadModel (app.read-model=offheap) serves from memory-mapped columns.
+public interface ProductReadModel {
+
+    // All products in id order
+    List<ProductBasicDTO> findAll();
+
+    // Products with minPrice <= price <= maxPrice, cheapest first
+    List<ProductBasicDTO> findByPriceRange(double minPrice, double maxPrice, int limit);
+
+    List<ProductBasicDTO> findTopByPrice(int limit, boolean highestFirst);
+}
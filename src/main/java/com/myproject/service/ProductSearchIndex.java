@@ -0,0 +1,372 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.dto.ProductSearchHitDTO;
+import com.socialhub.dto.ProductSearchResultDTO;
+import com.socialhub.event.ProductBatchChangedEvent;
+import com.socialhub.event.ProductChangedEvent;
+import com.socialhub.mapper.ProductMapper;
+import com.socialhub.model.Product;
+import com.socialhub.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// In-process inverted index over product name and description plus a sorted price index.
+// Built from the database once at startup and kept current from ProductChangedEvents, queries never touch the database.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+    public static final int MAX_RESULTS = 100;
+    // Upper bounds of the price facet bands, the last band is open-ended
+    private static final double[] PRICE_BANDS = {50, 100, 250, 500, 1000};
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int BUILD_CHUNK_SIZE = 1_000;
+    // Highest score first, ties broken by id so results are stable
+    private static final Comparator<ScoredProduct> RANKING = Comparator.comparingDouble(ScoredProduct::score).reversed()
+            .thenComparing(scored -> scored.product().id());
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedProduct> products = new HashMap<>();
+    // term -> (product id -> weighted term frequency)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final TreeMap<Double, Set<Long>> priceIndex = new TreeMap<>();
+    // Products per price facet band, so browsing needs no walk over the whole price range
+    private final long[] bandCounts = new long[PRICE_BANDS.length + 1];
+    // Products deleted since the last build, a late update for one of them is dropped
+    private final Set<Long> deleted = new HashSet<>();
+
+    // Changes committed while the initial build runs, replayed when it finishes. Guarded by the write lock.
+    private final Queue<ProductChangedEvent> pendingDuringBuild = new ArrayDeque<>();
+    private boolean building;
+    private volatile boolean ready;
+
+    private record IndexedProduct(Long id, String name, double price, Long version, Map<String, Integer> terms) {
+    }
+
+    private record ScoredProduct(IndexedProduct product, double score) {
+    }
+
+    // (Re)builds the index from scratch
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.nanoTime();
+        withWriteLock(() -> {
+            building = true;
+            products.clear();
+            postings.clear();
+            priceIndex.clear();
+            Arrays.fill(bandCounts, 0);
+            deleted.clear();
+        });
+
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.executeWithoutResult(status -> {
+                List<ProductDetailDTO> chunk = new ArrayList<>(BUILD_CHUNK_SIZE);
+                try (Stream<Product> stream = productRepository.streamAllOrderById()) {
+                    Iterator<Product> iterator = stream.iterator();
+                    while (iterator.hasNext()) {
+                        chunk.add(productMapper.toProductDetailDTO(iterator.next()));
+                        if (chunk.size() == BUILD_CHUNK_SIZE) {
+                            indexChunk(chunk);
+                            entityManager.clear();
+                        }
+                    }
+                }
+                indexChunk(chunk);
+            });
+        } finally {
+            withWriteLock(() -> {
+                pendingDuringBuild.forEach(this::apply);
+                pendingDuringBuild.clear();
+                building = false;
+            });
+        }
+        ready = true;
+        log.info("Product search index built with {} products in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        withWriteLock(() -> {
+            if (building) {
+                pendingDuringBuild.add(event);
+            } else {
+                apply(event);
+            }
+        });
+    }
+
+    // A whole import chunk under one write lock
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductBatchChangedEvent event) {
+        withWriteLock(() -> {
+            if (building) {
+                pendingDuringBuild.addAll(event.changes());
+            } else {
+                event.changes().forEach(this::apply);
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Products matching every query term within the price range, best score first, with price facet counts.
+    // Without query terms all products in the price range match, cheapest first.
+    public ProductSearchResultDTO search(String query, Double minPrice, Double maxPrice, int limit) {
+        int maxHits = Math.min(Math.max(limit, 1), MAX_RESULTS);
+        double min = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice;
+        double max = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice;
+        List<String> terms = new ArrayList<>(tokenize(query, 1).keySet());
+        long[] facetCounts = new long[PRICE_BANDS.length + 1];
+
+        lock.readLock().lock();
+        try {
+            if (min > max) {
+                return new ProductSearchResultDTO(0, List.of(), facets(facetCounts));
+            }
+            if (terms.isEmpty()) {
+                return browseByPrice(min, max, maxHits, facetCounts);
+            }
+
+            // Walk the rarest term's postings and probe the others, so the work is bounded by the most selective term
+            List<Map<Long, Integer>> termPostings = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    return new ProductSearchResultDTO(0, List.of(), facets(facetCounts));
+                }
+                termPostings.add(posting);
+            }
+            termPostings.sort(Comparator.comparingInt(Map::size));
+
+            double[] idf = new double[termPostings.size()];
+            for (int i = 0; i < idf.length; i++) {
+                idf[i] = Math.log(1 + (double) products.size() / termPostings.get(i).size());
+            }
+
+            PriorityQueue<ScoredProduct> top = new PriorityQueue<>(maxHits + 1, RANKING.reversed());
+            long total = 0;
+            candidates:
+            for (Map.Entry<Long, Integer> entry : termPostings.get(0).entrySet()) {
+                IndexedProduct product = products.get(entry.getKey());
+                if (product.price() < min || product.price() > max) {
+                    continue;
+                }
+                double score = entry.getValue() * idf[0];
+                for (int i = 1; i < termPostings.size(); i++) {
+                    Integer weight = termPostings.get(i).get(entry.getKey());
+                    if (weight == null) {
+                        continue candidates;
+                    }
+                    score += weight * idf[i];
+                }
+                total++;
+                facetCounts[band(product.price())]++;
+                top.add(new ScoredProduct(product, score));
+                if (top.size() > maxHits) {
+                    top.poll();
+                }
+            }
+
+            List<ScoredProduct> ranked = new ArrayList<>(top);
+            ranked.sort(RANKING);
+            return new ProductSearchResultDTO(total, ranked.stream().map(ProductSearchIndex::toHit).toList(), facets(facetCounts));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Visits maxHits products for the hits. Counts come from the band totals, only a band cut by min or max is counted
+    // from the price index, one entry per distinct price.
+    private ProductSearchResultDTO browseByPrice(double min, double max, int maxHits, long[] facetCounts) {
+        List<ProductSearchHitDTO> hits = new ArrayList<>(maxHits);
+        hits:
+        for (Set<Long> samePrice : priceIndex.subMap(min, true, max, true).values()) {
+            for (Long id : samePrice) {
+                if (hits.size() == maxHits) {
+                    break hits;
+                }
+                hits.add(toHit(new ScoredProduct(products.get(id), 0)));
+            }
+        }
+
+        long total = 0;
+        for (int band = 0; band <= PRICE_BANDS.length; band++) {
+            // Band covers [from, to)
+            double from = band == 0 ? Double.NEGATIVE_INFINITY : PRICE_BANDS[band - 1];
+            double to = band == PRICE_BANDS.length ? Double.POSITIVE_INFINITY : PRICE_BANDS[band];
+            if (to <= min || from > max) {
+                continue;
+            }
+            if (min <= from && to <= max) {
+                facetCounts[band] = bandCounts[band];
+            } else {
+                NavigableMap<Double, Set<Long>> cut = to <= max
+                        ? priceIndex.subMap(Math.max(min, from), true, to, false)
+                        : priceIndex.subMap(Math.max(min, from), true, max, true);
+                for (Set<Long> samePrice : cut.values()) {
+                    facetCounts[band] += samePrice.size();
+                }
+            }
+            total += facetCounts[band];
+        }
+        return new ProductSearchResultDTO(total, hits, facets(facetCounts));
+    }
+
+    private void indexChunk(List<ProductDetailDTO> chunk) {
+        withWriteLock(() -> chunk.forEach(this::index));
+        chunk.clear();
+    }
+
+    private void apply(ProductChangedEvent event) {
+        IndexedProduct existing = products.get(event.productId());
+        Long applied = existing != null ? existing.version()
+                : deleted.contains(event.productId()) ? ProductChangedEvent.DELETED_VERSION : null;
+        if (event.isOlderThan(applied)) {
+            return;
+        }
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+            remove(event.productId());
+            deleted.add(event.productId());
+        } else {
+            deleted.remove(event.productId());
+            index(event.product());
+        }
+    }
+
+    private void index(ProductDetailDTO product) {
+        remove(product.getId());
+        Map<String, Integer> terms = tokenize(product.getName(), NAME_WEIGHT);
+        tokenize(product.getDescription(), DESCRIPTION_WEIGHT).forEach((term, weight) -> terms.merge(term, weight, Integer::sum));
+
+        IndexedProduct indexed = new IndexedProduct(product.getId(), product.getName(), product.getPrice(),
+                product.getVersion(), terms);
+        products.put(indexed.id(), indexed);
+        bandCounts[band(indexed.price())]++;
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(indexed.id(), weight));
+        priceIndex.computeIfAbsent(indexed.price(), key -> new HashSet<>()).add(indexed.id());
+    }
+
+    private void remove(Long id) {
+        IndexedProduct existing = products.remove(id);
+        if (existing == null) {
+            return;
+        }
+        for (String term : existing.terms().keySet()) {
+            Map<Long, Integer> posting = postings.get(term);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        bandCounts[band(existing.price())]--;
+        Set<Long> samePrice = priceIndex.get(existing.price());
+        samePrice.remove(id);
+        if (samePrice.isEmpty()) {
+            priceIndex.remove(existing.price());
+        }
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Lower-cased alphanumeric terms with their weighted frequency, in order of first appearance
+    static Map<String, Integer> tokenize(String text, int weight) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letterOrDigit = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                terms.merge(text.substring(start, i).toLowerCase(Locale.ROOT), weight, Integer::sum);
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static int band(double price) {
+        for (int i = 0; i < PRICE_BANDS.length; i++) {
+            if (price < PRICE_BANDS[i]) {
+                return i;
+            }
+        }
+        return PRICE_BANDS.length;
+    }
+
+    private static Map<String, Long> facets(long[] counts) {
+        Map<String, Long> facets = new LinkedHashMap<>();
+        double lower = 0;
+        for (int i = 0; i < PRICE_BANDS.length; i++) {
+            facets.put(format(lower) + "-" + format(PRICE_BANDS[i]), counts[i]);
+            lower = PRICE_BANDS[i];
+        }
+        facets.put(format(lower) + "+", counts[PRICE_BANDS.length]);
+        return facets;
+    }
+
+    private static String format(double bound) {
+        return Long.toString((long) bound);
+    }
+
+    private static ProductSearchHitDTO toHit(ScoredProduct scored) {
+        IndexedProduct product = scored.product();
+        return new ProductSearchHitDTO(product.id(), product.name(), product.price(), scored.score());
+    }
+}
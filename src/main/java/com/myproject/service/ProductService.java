@@ -1,68 +1,407 @@
 package com.socialhub.service;
 
+import com.socialhub.config.CacheConfiguration;
 import com.socialhub.dto.*;
+import com.socialhub.event.ProductChangedEvent;
+import com.socialhub.exception.BadRequestException;
+import com.socialhub.exception.PreconditionFailedException;
 import com.socialhub.mapper.ProductMapper;
 import com.socialhub.model.Product;
 import com.socialhub.repository.ProductRepository;
+import com.socialhub.routing.ReadRouting;
+import com.socialhub.snapshot.CatalogSnapshotService;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
-@Transactional
+@Timed(value = "product.service", histogram = true)
+@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class ProductService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BATCH_ITEMS = 10_000;
+    // Rows written per flush, a multiple of hibernate.jdbc.batch_size
+    private static final int BATCH_CHUNK_SIZE = 500;
+
     private final ProductRepository productRepository;
+    private final ProductReadModel productReadModel;
     private final ProductMapper productMapper;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final BatchingLoader<Long, ProductDetailDTO> productLoader;
+    // Only available when app.snapshot.enabled=true
+    private final ObjectProvider<CatalogSnapshotService> catalogSnapshot;
 
     // Get all products (basic info)
+    @Cacheable(CacheConfiguration.PRODUCT_LIST)
     public List<ProductBasicDTO> getAllProductsBasic() {
-        List<Product> products = productRepository.findAll();
-        return productMapper.toProductBasicDTOs(products);
+        return productReadModel.findAll();
     }
 
-    // Get product by ID (detailed info)
+    // Products priced between minPrice and maxPrice, cheapest first
+    public List<ProductBasicDTO> getProductsInPriceRange(double minPrice, double maxPrice, int limit) {
+        if (minPrice > maxPrice) {
+            throw new BadRequestException("minPrice must not be greater than maxPrice");
+        }
+        return productReadModel.findByPriceRange(minPrice, maxPrice, Math.min(Math.max(limit, 1), MAX_PAGE_SIZE));
+    }
+
+    // The most expensive (or cheapest) products
+    public List<ProductBasicDTO> getTopProductsByPrice(int limit, boolean highestFirst) {
+        return productReadModel.findTopByPrice(Math.min(Math.max(limit, 1), MAX_PAGE_SIZE), highestFirst);
+    }
+
+    // Get the page of products after the given cursor (keyset pagination on id)
+    public CursorPageDTO<ProductBasicDTO> getProductsAfter(String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        long afterId = (cursor == null || cursor.isBlank()) ? 0L : CursorCodec.decode(cursor);
+
+        // Fetch one extra row to find out whether another page follows
+        List<ProductBasicDTO> products = productRepository.findBasicAfter(afterId, Limit.of(pageSize + 1));
+        boolean hasMore = products.size() > pageSize;
+        List<ProductBasicDTO> page = hasMore ? products.subList(0, pageSize) : products;
+
+        String nextCursor = hasMore ? CursorCodec.encode(page.get(page.size() - 1).getId()) : null;
+        return new CursorPageDTO<>(page, nextCursor);
+    }
+
+    // Get a page of products by page number (offset pagination)
+    public Page<ProductBasicDTO> getProductsPage(Pageable pageable) {
+        return productRepository.findAllBasic(pageable);
+    }
+
+    // Get product by ID (detailed info), from the catalog snapshot when enabled and otherwise from the database.
+    // No surrounding transaction, so cache and snapshot hits need no connection.
+    @Cacheable(cacheNames = CacheConfiguration.PRODUCTS, key = "#id")
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ProductDetailDTO getProductById(Long id) {
-        Product product = productRepository.findById(id)
+        CatalogSnapshotService snapshot = catalogSnapshot.getIfAvailable();
+        ProductDetailDTO product = snapshot != null ? snapshot.findProduct(id) : null;
+        if (product != null) {
+            return product;
+        }
+        // Inside a caller's transaction read directly, so its own uncommitted writes are visible. The same when pinned
+        // to the primary, batches run on other threads and could go to a replica.
+        product = TransactionSynchronizationManager.isActualTransactionActive() || ReadRouting.isPinnedToPrimary()
+                ? productRepository.findDetailById(id).orElse(null)
+                : productLoader.load(id);
+        if (product == null) {
+            throw new EntityNotFoundException("Product not found");
+        }
+        return product;
+    }
+
+    // Several products by id, in the order asked for and without duplicates. Unknown ids are left out.
+    // Cached products are taken from the cache, the rest is loaded with the concurrent lookups of other requests.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ProductDetailDTO> getProductsByIds(List<Long> ids) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.size() > MAX_PAGE_SIZE) {
+            throw new BadRequestException("At most " + MAX_PAGE_SIZE + " ids per request");
+        }
+        Cache cache = cacheManager.getCache(CacheConfiguration.PRODUCTS);
+        CatalogSnapshotService snapshot = catalogSnapshot.getIfAvailable();
+        Map<Long, ProductDetailDTO> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : distinct) {
+            ProductDetailDTO product = cache != null ? cache.get(id, ProductDetailDTO.class) : null;
+            if (product == null && snapshot != null) {
+                product = snapshot.findProduct(id);
+            }
+            if (product != null) {
+                found.put(id, product);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, ProductDetailDTO> loaded = ReadRouting.isPinnedToPrimary()
+                    ? productRepository.findDetailsByIdIn(missing).stream()
+                            .collect(Collectors.toMap(ProductDetailDTO::getId, Function.identity()))
+                    : productLoader.loadAll(missing);
+            loaded.forEach((id, product) -> {
+                found.put(id, product);
+                if (cache != null) {
+                    cache.put(id, product);
+                }
+            });
+        }
+        return distinct.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    // Current version of a product for conditional GETs, taken from the products cache when it holds the product.
+    // No surrounding transaction, so a cache hit does not touch the connection pool.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getProductVersion(Long id) {
+        Cache cache = cacheManager.getCache(CacheConfiguration.PRODUCTS);
+        ProductDetailDTO cached = cache != null ? cache.get(id, ProductDetailDTO.class) : null;
+        if (cached != null && cached.getVersion() != null) {
+            return cached.getVersion();
+        }
+        return productRepository.findVersionById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found"));
-        return productMapper.toProductDetailDTO(product);
     }
 
     // Create a new product
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfiguration.PRODUCTS, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = CacheConfiguration.PRODUCT_LIST, allEntries = true))
+    @Transactional
     public ProductDetailDTO createProduct(ProductDetailDTO productDTO) {
         Product product = new Product();
-        product.setName(productDTO.getName());
-        product.setDescription(productDTO.getDescription());
-        product.setPrice(productDTO.getPrice());
-        product.setQuantity(productDTO.getQuantity());
+        applyFields(product, productDTO);
 
         Product savedProduct = productRepository.save(product);
-        return productMapper.toProductDetailDTO(savedProduct);
+        ProductDetailDTO created = productMapper.toProductDetailDTO(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.created(created));
+        return created;
     }
 
-    // Update a product
-    public ProductDetailDTO updateProduct(Long id, ProductDetailDTO productDTO) {
+    // Update a product, expectedVersion (from If-Match) is optional
+    @Caching(
+            put = @CachePut(cacheNames = CacheConfiguration.PRODUCTS, key = "#id"),
+            evict = @CacheEvict(cacheNames = CacheConfiguration.PRODUCT_LIST, allEntries = true))
+    @Transactional
+    public ProductDetailDTO updateProduct(Long id, ProductDetailDTO productDTO, Long expectedVersion) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found"));
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new PreconditionFailedException("Product " + id + " has been modified");
+        }
+
+        applyFields(product, productDTO);
 
+        // Flush so the returned and cached DTO carries the incremented version
+        Product updatedProduct = productRepository.saveAndFlush(product);
+        ProductDetailDTO updated = productMapper.toProductDetailDTO(updatedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(updated));
+        return updated;
+    }
+
+    // Delete a product with a single statement
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfiguration.PRODUCTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfiguration.PRODUCT_LIST, allEntries = true)})
+    @Transactional
+    public void deleteProduct(Long id) {
+        if (productRepository.deleteOneById(id) == 0) {
+            throw new EntityNotFoundException("Product not found");
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+    }
+
+    // Take stock with a conditional update, false when the product has less than the requested quantity
+    @Transactional
+    public boolean takeStock(Long id, int quantity) {
+        if (productRepository.decrementQuantity(id, quantity) == 0) {
+            if (!productRepository.existsById(id)) {
+                throw new EntityNotFoundException("Product not found");
+            }
+            return false;
+        }
+        publishStockChange(id);
+        return true;
+    }
+
+    // Put stock back, e.g. a released reservation
+    @Transactional
+    public void returnStock(Long id, int quantity) {
+        if (productRepository.incrementQuantity(id, quantity) == 0) {
+            throw new EntityNotFoundException("Product not found");
+        }
+        publishStockChange(id);
+    }
+
+    // Create many products, written in chunks with JDBC batching
+    @CacheEvict(cacheNames = CacheConfiguration.PRODUCT_LIST, allEntries = true)
+    @Transactional
+    public BatchResultDTO createProducts(List<ProductDetailDTO> productDTOs) {
+        checkBatchSize(productDTOs);
+        BatchItemResultDTO[] results = new BatchItemResultDTO[productDTOs.size()];
+        int pending = 0;
+        for (int index = 0; index < productDTOs.size(); index++) {
+            ProductDetailDTO productDTO = productDTOs.get(index);
+            String error = validate(productDTO);
+            if (error != null) {
+                results[index] = BatchItemResultDTO.failure(index, null, BatchItemResultDTO.Status.INVALID, error);
+                continue;
+            }
+            Product product = new Product();
+            applyFields(product, productDTO);
+            // The pooled sequence assigns the id here, the insert itself is deferred to the next flush
+            entityManager.persist(product);
+            eventPublisher.publishEvent(ProductChangedEvent.created(productMapper.toProductDetailDTO(product)));
+            results[index] = BatchItemResultDTO.success(index, product.getId(), BatchItemResultDTO.Status.CREATED);
+            if (++pending % BATCH_CHUNK_SIZE == 0) {
+                flushAndClear();
+            }
+        }
+        flushAndClear();
+        return BatchResultDTO.of(Arrays.asList(results));
+    }
+
+    // Update many products by id, one select and one batched update per chunk
+    @CacheEvict(cacheNames = CacheConfiguration.PRODUCT_LIST, allEntries = true)
+    @Transactional
+    public BatchResultDTO updateProducts(List<ProductDetailDTO> productDTOs) {
+        checkBatchSize(productDTOs);
+        BatchItemResultDTO[] results = new BatchItemResultDTO[productDTOs.size()];
+        for (int start = 0; start < productDTOs.size(); start += BATCH_CHUNK_SIZE) {
+            List<ProductDetailDTO> chunk = productDTOs.subList(start, Math.min(start + BATCH_CHUNK_SIZE, productDTOs.size()));
+            List<Long> ids = chunk.stream()
+                    .filter(Objects::nonNull)
+                    .map(ProductDetailDTO::getId)
+                    .filter(Objects::nonNull)
+                    .toList();
+            Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            List<Product> updated = new ArrayList<>(chunk.size());
+
+            for (int offset = 0; offset < chunk.size(); offset++) {
+                int index = start + offset;
+                ProductDetailDTO productDTO = chunk.get(offset);
+                String error = productDTO != null && productDTO.getId() == null ? "id is required" : validate(productDTO);
+                if (error != null) {
+                    results[index] = BatchItemResultDTO.failure(index, null, BatchItemResultDTO.Status.INVALID, error);
+                    continue;
+                }
+                Product product = products.get(productDTO.getId());
+                if (product == null) {
+                    results[index] = BatchItemResultDTO.failure(index, productDTO.getId(),
+                            BatchItemResultDTO.Status.NOT_FOUND, "Product not found");
+                    continue;
+                }
+                applyFields(product, productDTO);
+                updated.add(product);
+                results[index] = BatchItemResultDTO.success(index, product.getId(), BatchItemResultDTO.Status.UPDATED);
+            }
+            // The flush increments @Version, events built before it would carry the old one
+            entityManager.flush();
+            for (Product product : updated) {
+                ProductDetailDTO dto = productMapper.toProductDetailDTO(product);
+                cacheAfterCommit(dto);
+                eventPublisher.publishEvent(ProductChangedEvent.updated(dto));
+            }
+            entityManager.clear();
+        }
+        return BatchResultDTO.of(Arrays.asList(results));
+    }
+
+    // Delete many products by id, one select and one delete statement per chunk
+    @CacheEvict(cacheNames = CacheConfiguration.PRODUCT_LIST, allEntries = true)
+    @Transactional
+    public BatchResultDTO deleteProducts(List<Long> ids) {
+        checkBatchSize(ids);
+        List<BatchItemResultDTO> results = new ArrayList<>(ids.size());
+        for (int start = 0; start < ids.size(); start += BATCH_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(start, Math.min(start + BATCH_CHUNK_SIZE, ids.size()));
+            Set<Long> existing = new HashSet<>(productRepository.findExistingIds(
+                    chunk.stream().filter(Objects::nonNull).toList()));
+            productRepository.deleteAllByIdInBatch(existing);
+            Cache cache = cacheManager.getCache(CacheConfiguration.PRODUCTS);
+            for (Long id : existing) {
+                if (cache != null) {
+                    cache.evict(id);
+                }
+                eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+            }
+
+            for (int offset = 0; offset < chunk.size(); offset++) {
+                int index = start + offset;
+                Long id = chunk.get(offset);
+                if (id == null) {
+                    results.add(BatchItemResultDTO.failure(index, null, BatchItemResultDTO.Status.INVALID, "id is required"));
+                } else if (existing.contains(id)) {
+                    results.add(BatchItemResultDTO.success(index, id, BatchItemResultDTO.Status.DELETED));
+                } else {
+                    results.add(BatchItemResultDTO.failure(index, id, BatchItemResultDTO.Status.NOT_FOUND, "Product not found"));
+                }
+            }
+        }
+        return BatchResultDTO.of(results);
+    }
+
+    private void applyFields(Product product, ProductDetailDTO productDTO) {
         product.setName(productDTO.getName());
         product.setDescription(productDTO.getDescription());
         product.setPrice(productDTO.getPrice());
         product.setQuantity(productDTO.getQuantity());
+    }
 
-        Product updatedProduct = productRepository.save(product);
-        return productMapper.toProductDetailDTO(updatedProduct);
+    // The bulk update bypassed the persistence context, read the committed-to-be row back for the cache and listeners
+    private void publishStockChange(Long id) {
+        productRepository.findDetailById(id).ifPresent(product -> {
+            cacheAfterCommit(product);
+            eventPublisher.publishEvent(ProductChangedEvent.updated(product));
+        });
     }
 
-    // Delete a product
-    public void deleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
-            throw new EntityNotFoundException("Product not found");
+    // Puts instead of evictions for writes: the products cache keeps the newest version, so a reader that loaded the
+    // product before this write committed cannot put its older copy back. The put itself waits for the commit.
+    private void cacheAfterCommit(ProductDetailDTO product) {
+        Cache cache = cacheManager.getCache(CacheConfiguration.PRODUCTS);
+        if (cache != null) {
+            cache.put(product.getId(), product);
+        }
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static void checkBatchSize(List<?> items) {
+        if (items == null || items.isEmpty() || items.size() > MAX_BATCH_ITEMS) {
+            throw new BadRequestException("A batch must contain between 1 and " + MAX_BATCH_ITEMS + " items");
+        }
+    }
+
+    // Returns the constraint violations of one batch item, or null when it is valid
+    private String validate(Object item) {
+        if (item == null) {
+            return "item is required";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
         }
-        productRepository.deleteById(id);
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
     }
 
     // Add your custom service methods here
@@ -0,0 +1,335 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.dto.ProductStatsDTO;
+import com.socialhub.event.ProductBatchChangedEvent;
+import com.socialhub.event.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Catalog statistics for dashboards: count, quantity and inventory value totals, products per price band and the
+// products lowest on stock. Computed from the database at startup, one id range per thread, then kept current from
+// ProductChangedEvents. Every change publishes a new immutable snapshot, so a read is one volatile load and never
+// waits for a writer. Changes made on other instances are only picked up by the next full recomputation.
+@Slf4j
+@Component
+public class ProductStatsAggregator {
+    private static final String ID_RANGE = "select min(id), max(id) from product";
+    private static final String SCAN = "select id, price, quantity, version, case when quantity <= ? then name end "
+            + "from product where id >= ? and id < ?";
+    private static final int SCAN_FETCH_SIZE = 10_000;
+    private static final Comparator<LowStockEntry> LOW_STOCK_ORDER = Comparator.comparingInt(LowStockEntry::quantity)
+            .thenComparingLong(LowStockEntry::id);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    // Upper bounds of the price bands, the last band is open-ended
+    private final double[] priceBands;
+    private final int lowStockThreshold;
+    private final int lowStockLimit;
+    private final int parallelism;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock
+    private Aggregate aggregate;
+    private Instant recomputedAt;
+    // Changes committed while a recomputation runs, applied on top of its result. Guarded by lock.
+    private final Queue<ProductChangedEvent> pendingDuringRecompute = new ArrayDeque<>();
+    private boolean recomputing;
+    private final AtomicBoolean recomputeRunning = new AtomicBoolean();
+
+    // Null until the first recomputation finished, the controller answers 503 until then
+    private volatile ProductStatsDTO snapshot;
+
+    // What a product adds to the totals, kept to take it out again when the product changes. The version drops
+    // events that arrive after a newer one.
+    private record Contribution(double price, int quantity, Long version) {
+    }
+
+    // Name is only held for products low on stock
+    private record LowStockEntry(int quantity, long id, String name) {
+    }
+
+    public ProductStatsAggregator(DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.stats.price-bands:50,100,250,500,1000}") double[] priceBands,
+                                  @Value("${app.stats.low-stock-threshold:10}") int lowStockThreshold,
+                                  @Value("${app.stats.low-stock-limit:20}") int lowStockLimit,
+                                  @Value("${app.stats.parallelism:4}") int parallelism) {
+        // Own template for the fetch size, it still joins the transaction on the same DataSource
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(SCAN_FETCH_SIZE);
+        // A cursor instead of the whole range in memory needs a transaction on PostgreSQL
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.priceBands = priceBands.clone();
+        Arrays.sort(this.priceBands);
+        this.lowStockThreshold = lowStockThreshold;
+        this.lowStockLimit = lowStockLimit;
+        this.parallelism = Math.max(1, parallelism);
+        this.aggregate = new Aggregate();
+    }
+
+    // Lock-free, O(1)
+    public ProductStatsDTO getStats() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recomputeAtStartup() {
+        recompute();
+    }
+
+    // Off unless app.stats.recompute-cron is set, then it bounds how long changes from other instances are missed
+    @Scheduled(cron = "${app.stats.recompute-cron:-}")
+    public void recomputePeriodically() {
+        recompute();
+    }
+
+    // Scans the product table in parallel id ranges and replaces the aggregate, changes committed meanwhile are
+    // applied on top. Skipped when a recomputation is already running.
+    public void recompute() {
+        if (!recomputeRunning.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        withLock(() -> recomputing = true);
+        Aggregate fresh = null;
+        try {
+            fresh = scan();
+        } finally {
+            Aggregate result = fresh;
+            withLock(() -> {
+                if (result != null) {
+                    aggregate = result;
+                    recomputedAt = Instant.now();
+                }
+                pendingDuringRecompute.forEach(this::apply);
+                pendingDuringRecompute.clear();
+                recomputing = false;
+                publish();
+            });
+            recomputeRunning.set(false);
+        }
+        log.info("Product statistics recomputed over {} products in {} ms", fresh.count,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        withLock(() -> {
+            if (recomputing) {
+                pendingDuringRecompute.add(event);
+                return;
+            }
+            apply(event);
+            publish();
+        });
+    }
+
+    // A whole import chunk is applied and published once
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductBatchChangedEvent event) {
+        withLock(() -> {
+            if (recomputing) {
+                pendingDuringRecompute.addAll(event.changes());
+                return;
+            }
+            event.changes().forEach(this::apply);
+            publish();
+        });
+    }
+
+    // Guarded by lock. Events carry the whole new state, so applying one twice changes nothing.
+    private void apply(ProductChangedEvent event) {
+        Contribution current = aggregate.products.get(event.productId());
+        Long applied = current != null ? current.version()
+                : aggregate.deleted.contains(event.productId()) ? ProductChangedEvent.DELETED_VERSION : null;
+        if (event.isOlderThan(applied)) {
+            return;
+        }
+        aggregate.remove(event.productId());
+        ProductDetailDTO product = event.product();
+        if (event.type() == ProductChangedEvent.Type.DELETED || product == null) {
+            aggregate.deleted.add(event.productId());
+        } else {
+            aggregate.deleted.remove(event.productId());
+            aggregate.add(event.productId(), product.getPrice(), product.getQuantity(), product.getVersion(),
+                    product.getName());
+        }
+    }
+
+    // Guarded by lock
+    private void publish() {
+        if (recomputedAt == null) {
+            return;
+        }
+        Map<String, Long> bands = new LinkedHashMap<>();
+        double lower = 0;
+        for (int i = 0; i < priceBands.length; i++) {
+            bands.put(format(lower) + "-" + format(priceBands[i]), aggregate.bandCounts[i]);
+            lower = priceBands[i];
+        }
+        bands.put(format(lower) + "+", aggregate.bandCounts[priceBands.length]);
+        List<ProductStatsDTO.LowStockProduct> lowStock = new ArrayList<>(Math.min(lowStockLimit, aggregate.lowStock.size()));
+        Iterator<LowStockEntry> lowest = aggregate.lowStock.iterator();
+        while (lowStock.size() < lowStockLimit && lowest.hasNext()) {
+            LowStockEntry entry = lowest.next();
+            lowStock.add(new ProductStatsDTO.LowStockProduct(entry.id(), entry.name(), entry.quantity()));
+        }
+        double averagePrice = aggregate.count == 0 ? 0
+                : aggregate.priceSum.divide(BigDecimal.valueOf(aggregate.count), MathContext.DECIMAL64).doubleValue();
+        snapshot = new ProductStatsDTO(aggregate.count, aggregate.totalQuantity, aggregate.inventoryValue.doubleValue(),
+                averagePrice, bands, lowStockThreshold, aggregate.lowStock.size(), lowStock, recomputedAt);
+    }
+
+    private Aggregate scan() {
+        Aggregate result = new Aggregate();
+        long[] range = jdbcTemplate.queryForObject(ID_RANGE, (rs, rowNum) -> {
+            long min = rs.getLong(1);
+            return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+        });
+        if (range == null) {
+            return result;
+        }
+        long width = (range[1] - range[0]) / parallelism + 1;
+        List<Future<Aggregate>> slices = new ArrayList<>(parallelism);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long from = range[0]; from <= range[1]; from += width) {
+                long sliceFrom = from;
+                long sliceTo = Math.min(from + width, range[1] + 1);
+                slices.add(executor.submit(() -> scan(sliceFrom, sliceTo)));
+            }
+            for (Future<Aggregate> slice : slices) {
+                result.merge(slice.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while recomputing product statistics", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Could not recompute product statistics", ex.getCause());
+        }
+        return result;
+    }
+
+    private Aggregate scan(long fromId, long toId) {
+        Aggregate slice = new Aggregate();
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(SCAN,
+                (RowCallbackHandler) rs -> slice.add(rs.getLong(1), rs.getDouble(2), rs.getInt(3),
+                        rs.getObject(4, Long.class), rs.getString(5)),
+                lowStockThreshold, fromId, toId));
+        return slice;
+    }
+
+    private void withLock(Runnable action) {
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String format(double bound) {
+        return Long.toString((long) bound);
+    }
+
+    // Running totals, only touched by one thread at a time. Sums are exact decimals, so taking a product out again
+    // leaves no rounding error behind however many changes are applied.
+    private final class Aggregate {
+        private final Map<Long, Contribution> products = new HashMap<>();
+        // Products deleted since the last recomputation, a late update for one of them is dropped
+        private final Set<Long> deleted = new HashSet<>();
+        private final long[] bandCounts = new long[priceBands.length + 1];
+        private final TreeSet<LowStockEntry> lowStock = new TreeSet<>(LOW_STOCK_ORDER);
+        private long count;
+        private long totalQuantity;
+        private BigDecimal inventoryValue = BigDecimal.ZERO;
+        private BigDecimal priceSum = BigDecimal.ZERO;
+
+        void add(long id, double price, int quantity, Long version, String name) {
+            products.put(id, new Contribution(price, quantity, version));
+            count++;
+            totalQuantity += quantity;
+            BigDecimal exactPrice = BigDecimal.valueOf(price);
+            inventoryValue = inventoryValue.add(exactPrice.multiply(BigDecimal.valueOf(quantity)));
+            priceSum = priceSum.add(exactPrice);
+            bandCounts[band(price)]++;
+            if (quantity <= lowStockThreshold) {
+                lowStock.add(new LowStockEntry(quantity, id, name));
+            }
+        }
+
+        void remove(long id) {
+            Contribution removed = products.remove(id);
+            if (removed == null) {
+                return;
+            }
+            count--;
+            totalQuantity -= removed.quantity();
+            BigDecimal exactPrice = BigDecimal.valueOf(removed.price());
+            inventoryValue = inventoryValue.subtract(exactPrice.multiply(BigDecimal.valueOf(removed.quantity())));
+            priceSum = priceSum.subtract(exactPrice);
+            bandCounts[band(removed.price())]--;
+            if (removed.quantity() <= lowStockThreshold) {
+                // Ordered by quantity and id only, the name does not matter for finding the entry
+                lowStock.remove(new LowStockEntry(removed.quantity(), id, null));
+            }
+        }
+
+        // Slices cover disjoint id ranges
+        void merge(Aggregate other) {
+            products.putAll(other.products);
+            count += other.count;
+            totalQuantity += other.totalQuantity;
+            inventoryValue = inventoryValue.add(other.inventoryValue);
+            priceSum = priceSum.add(other.priceSum);
+            for (int i = 0; i < bandCounts.length; i++) {
+                bandCounts[i] += other.bandCounts[i];
+            }
+            lowStock.addAll(other.lowStock);
+        }
+
+        private int band(double price) {
+            for (int i = 0; i < priceBands.length; i++) {
+                if (price < priceBands[i]) {
+                    return i;
+                }
+            }
+            return priceBands.length;
+        }
+    }
+}
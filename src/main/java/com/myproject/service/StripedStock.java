@@ -0,0 +1,79 @@
+package com.socialhub.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Stock held in memory for one product, split over several counters so concurrent takers rarely hit the same
+// cache line. Every unit lives in exactly one stripe, tryTake only succeeds when a stripe holds the whole quantity;
+// takeUpTo gathers units from all of them.
+final class StripedStock {
+    // One counter per 128 bytes, keeps neighbouring stripes off each other's cache line
+    private static final int PADDING = 16;
+
+    private final int stripes;
+    private final AtomicLongArray counters;
+
+    StripedStock(int stripes) {
+        this.stripes = Math.max(1, stripes);
+        this.counters = new AtomicLongArray(this.stripes * PADDING);
+    }
+
+    // Takes from the caller's own stripe first, then from the others
+    boolean tryTake(int quantity) {
+        int home = homeStripe();
+        for (int i = 0; i < stripes; i++) {
+            if (tryTake((home + i) % stripes, quantity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Takes up to quantity units from all stripes together and returns how many it got. The units left over end up
+    // in the caller's stripe, so this is for when tryTake failed although the stripes may hold enough between them.
+    int takeUpTo(int quantity) {
+        long drained = drain();
+        long taken = Math.min(drained, quantity);
+        if (drained > taken) {
+            add(drained - taken);
+        }
+        return (int) taken;
+    }
+
+    void add(long quantity) {
+        counters.getAndAdd(homeStripe() * PADDING, quantity);
+    }
+
+    // Empties every stripe and returns what they held
+    long drain() {
+        long drained = 0;
+        for (int i = 0; i < stripes; i++) {
+            drained += counters.getAndSet(i * PADDING, 0);
+        }
+        return drained;
+    }
+
+    long available() {
+        long available = 0;
+        for (int i = 0; i < stripes; i++) {
+            available += counters.get(i * PADDING);
+        }
+        return available;
+    }
+
+    private boolean tryTake(int stripe, int quantity) {
+        int index = stripe * PADDING;
+        long current;
+        do {
+            current = counters.get(index);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!counters.compareAndSet(index, current, current - quantity));
+        return true;
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id ^ (id >>> 16)) & Integer.MAX_VALUE) % stripes;
+    }
+}
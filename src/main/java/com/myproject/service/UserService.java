@@ -1,53 +1,255 @@
-package com.example.socialhub.service;
+package com.socialhub.service;
 
-import com.example.socialhub.dto.UserRequest;
-import com.example.socialhub.dto.UserResponse;
-import com.example.socialhub.exception.ResourceNotFoundException;
-import com.example.socialhub.model.User;
-import com.example.socialhub.repository.UserRepository;
+import com.socialhub.dto.UserRequest;
+import com.socialhub.dto.UserResponse;
+import com.socialhub.exception.BadRequestException;
+import com.socialhub.exception.ResourceNotFoundException;
+import com.socialhub.model.User;
+import com.socialhub.repository.UserRepository;
+import com.socialhub.exception.PreconditionFailedException;
+import com.socialhub.routing.ReadRouting;
+import com.socialhub.snapshot.CatalogSnapshotService;
+import com.socialhub.dto.BatchItemResultDTO;
+import com.socialhub.dto.BatchResultDTO;
+import com.socialhub.event.UserChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "user.service", histogram = true)
+@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class UserService {
+    public static final int MAX_BATCH_ITEMS = 10_000;
+    private static final int BATCH_CHUNK_SIZE = 500;
+
     private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BatchingLoader<Long, UserResponse> userLoader;
+    // Only available when app.snapshot.enabled=true
+    private final ObjectProvider<CatalogSnapshotService> catalogSnapshot;
 
     public List<UserResponse> getAllUsers() {
-        return userRepository.findAll().stream()
-                .map(UserResponse::fromEntity)
-                .collect(Collectors.toList());
+        return userRepository.findAllResponses();
     }
 
+    // Served from the catalog snapshot when enabled, no surrounding transaction so a snapshot hit needs no connection
+    @Transactional(propagation = Propagation.SUPPORTS)
     public UserResponse getUserById(Long id) {
-        User user = userRepository.findById(id)
+        CatalogSnapshotService snapshot = catalogSnapshot.getIfAvailable();
+        UserResponse user = snapshot != null ? snapshot.findUser(id) : null;
+        if (user != null) {
+            return user;
+        }
+        // Concurrent lookups share batched queries, except inside a caller's transaction or when pinned to the primary
+        user = TransactionSynchronizationManager.isActualTransactionActive() || ReadRouting.isPinnedToPrimary()
+            ? userRepository.findResponseById(id).orElse(null)
+            : userLoader.load(id);
+        if (user == null) {
+            throw new ResourceNotFoundException("User not found with id: " + id);
+        }
+        return user;
+    }
+
+    // Current version of a user for conditional GETs
+    public long getUserVersion(Long id) {
+        return userRepository.findVersionById(id)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
-        return UserResponse.fromEntity(user);
     }
 
+    @Transactional
     public UserResponse createUser(UserRequest request) {
         User user = User.builder()
                 .name(request.getName())
                 .email(request.getEmail())
                 .build();
-        return UserResponse.fromEntity(userRepository.save(user));
+        UserResponse created = UserResponse.fromEntity(userRepository.save(user));
+        eventPublisher.publishEvent(UserChangedEvent.created(created));
+        return created;
     }
 
+    @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
+        if (userRepository.deleteOneById(id) == 0) {
             throw new ResourceNotFoundException("User not found with id: " + id);
         }
-        userRepository.deleteById(id);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(id));
     }
 
-    public UserResponse updateUser(Long id, UserRequest request) {
+    // expectedVersion (from If-Match) is optional
+    @Transactional
+    public UserResponse updateUser(Long id, UserRequest request, Long expectedVersion) {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new PreconditionFailedException("User " + id + " has been modified");
+        }
         user.setName(request.getName());
         user.setEmail(request.getEmail());
-        return UserResponse.fromEntity(userRepository.save(user));
+        UserResponse updated = UserResponse.fromEntity(userRepository.saveAndFlush(user));
+        eventPublisher.publishEvent(UserChangedEvent.updated(updated));
+        return updated;
+    }
+
+    @Transactional
+    public BatchResultDTO createUsers(List<UserRequest> requests) {
+        return createUsers(requests, this::validate);
+    }
+
+    // Users whose full request was validated when it was accepted, e.g. queued by the write-behind pipeline.
+    // The password is never stored, so it is not carried along and only name and email are checked again.
+    @Transactional
+    public BatchResultDTO createAcceptedUsers(List<UserRequest> requests) {
+        return createUsers(requests, this::validateStoredFields);
+    }
+
+    private BatchResultDTO createUsers(List<UserRequest> requests, Function<UserRequest, String> validation) {
+        checkBatchSize(requests.size());
+        List<BatchItemResultDTO> results = new ArrayList<>(requests.size());
+        int pending = 0;
+        for (int index = 0; index < requests.size(); index++) {
+            UserRequest request = requests.get(index);
+            String error = validation.apply(request);
+            if (error != null) {
+                results.add(BatchItemResultDTO.failure(index, null, BatchItemResultDTO.Status.INVALID, error));
+                continue;
+            }
+            User user = User.builder()
+                    .name(request.getName())
+                    .email(request.getEmail())
+                    .build();
+            entityManager.persist(user);
+            eventPublisher.publishEvent(UserChangedEvent.created(UserResponse.fromEntity(user)));
+            results.add(BatchItemResultDTO.success(index, user.getId(), BatchItemResultDTO.Status.CREATED));
+            if (++pending % BATCH_CHUNK_SIZE == 0) {
+                flushAndClear();
+            }
+        }
+        flushAndClear();
+        return BatchResultDTO.of(results);
+    }
+
+    // Requests are keyed by user id, results keep the order of the keys in the request body
+    @Transactional
+    public BatchResultDTO updateUsers(Map<Long, UserRequest> requests) {
+        checkBatchSize(requests.size());
+        List<Map.Entry<Long, UserRequest>> entries = new ArrayList<>(requests.entrySet());
+        List<BatchItemResultDTO> results = new ArrayList<>(entries.size());
+        for (int start = 0; start < entries.size(); start += BATCH_CHUNK_SIZE) {
+            List<Map.Entry<Long, UserRequest>> chunk = entries.subList(start, Math.min(start + BATCH_CHUNK_SIZE, entries.size()));
+            Map<Long, User> users = userRepository.findAllById(chunk.stream().map(Map.Entry::getKey).toList()).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            List<User> updated = new ArrayList<>(chunk.size());
+
+            for (int offset = 0; offset < chunk.size(); offset++) {
+                int index = start + offset;
+                Long id = chunk.get(offset).getKey();
+                UserRequest request = chunk.get(offset).getValue();
+                String error = validate(request);
+                if (error != null) {
+                    results.add(BatchItemResultDTO.failure(index, id, BatchItemResultDTO.Status.INVALID, error));
+                    continue;
+                }
+                User user = users.get(id);
+                if (user == null) {
+                    results.add(BatchItemResultDTO.failure(index, id, BatchItemResultDTO.Status.NOT_FOUND,
+                            "User not found with id: " + id));
+                    continue;
+                }
+                user.setName(request.getName());
+                user.setEmail(request.getEmail());
+                updated.add(user);
+                results.add(BatchItemResultDTO.success(index, id, BatchItemResultDTO.Status.UPDATED));
+            }
+            // The flush increments @Version, events built before it would carry the old one
+            entityManager.flush();
+            updated.forEach(user -> eventPublisher.publishEvent(UserChangedEvent.updated(UserResponse.fromEntity(user))));
+            entityManager.clear();
+        }
+        return BatchResultDTO.of(results);
+    }
+
+    @Transactional
+    public BatchResultDTO deleteUsers(List<Long> ids) {
+        checkBatchSize(ids.size());
+        List<BatchItemResultDTO> results = new ArrayList<>(ids.size());
+        for (int start = 0; start < ids.size(); start += BATCH_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(start, Math.min(start + BATCH_CHUNK_SIZE, ids.size()));
+            Set<Long> existing = new HashSet<>(userRepository.findExistingIds(
+                    chunk.stream().filter(Objects::nonNull).toList()));
+            userRepository.deleteAllByIdInBatch(existing);
+            existing.forEach(id -> eventPublisher.publishEvent(UserChangedEvent.deleted(id)));
+
+            for (int offset = 0; offset < chunk.size(); offset++) {
+                int index = start + offset;
+                Long id = chunk.get(offset);
+                if (id == null) {
+                    results.add(BatchItemResultDTO.failure(index, null, BatchItemResultDTO.Status.INVALID, "id is required"));
+                } else if (existing.contains(id)) {
+                    results.add(BatchItemResultDTO.success(index, id, BatchItemResultDTO.Status.DELETED));
+                } else {
+                    results.add(BatchItemResultDTO.failure(index, id, BatchItemResultDTO.Status.NOT_FOUND,
+                            "User not found with id: " + id));
+                }
+            }
+        }
+        return BatchResultDTO.of(results);
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static void checkBatchSize(int size) {
+        if (size == 0 || size > MAX_BATCH_ITEMS) {
+            throw new BadRequestException("A batch must contain between 1 and " + MAX_BATCH_ITEMS + " items");
+        }
+    }
+
+    private String validate(UserRequest request) {
+        if (request == null) {
+            return "item is required";
+        }
+        return describe(validator.validate(request));
+    }
+
+    private String validateStoredFields(UserRequest request) {
+        if (request == null) {
+            return "item is required";
+        }
+        Set<ConstraintViolation<UserRequest>> violations = new HashSet<>(validator.validateProperty(request, "name"));
+        violations.addAll(validator.validateProperty(request, "email"));
+        return describe(violations);
+    }
+
+    private static String describe(Set<ConstraintViolation<UserRequest>> violations) {
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
     }
 }
@@ -0,0 +1,318 @@
+package com.socialhub.snapshot;
+
+import com.socialhub.dto.UserResponse;
+import com.socialhub.repository.UserRepository;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.event.ProductBatchChangedEvent;
+import com.socialhub.event.ProductChangedEvent;
+import com.socialhub.event.UserChangedEvent;
+import com.socialhub.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Warm catalog across restarts. Products and users are periodically written to compact binary snapshot files, and
+// these are memory-mapped before the web server starts, so reads by id are answered at once instead of
+// hitting a cold database. Changes made since the snapshot live in an in-memory overlay. The overlay is filled from
+// change events and by a reconciler that reads rows whose updated_at is past the snapshot watermark and diffs ids
+// to find deletions.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.snapshot.enabled", havingValue = "true")
+public class CatalogSnapshotService implements SmartLifecycle {
+    private static final SnapshotCodec<ProductDetailDTO> PRODUCT_CODEC = new ProductCodec();
+    private static final SnapshotCodec<UserResponse> USER_CODEC = new UserCodec();
+
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnly;
+    private final Path productsFile;
+    private final Path usersFile;
+    private final long reconcileOverlapMillis;
+
+    private volatile SnapshotFile<ProductDetailDTO> products;
+    private volatile SnapshotFile<UserResponse> users;
+    // Changes since the mapped snapshots, a null value marks a deletion
+    private final Map<Long, Change<ProductDetailDTO>> productChanges = new ConcurrentHashMap<>();
+    private final Map<Long, Change<UserResponse>> userChanges = new ConcurrentHashMap<>();
+    private volatile long reconciledUpTo;
+    // Reconciling and snapshot writing never overlap
+    private final ReentrantLock maintenance = new ReentrantLock();
+    private volatile boolean running;
+
+    // The entity version orders the overlay writers, so a reconciler read that finishes after a newer event, or a
+    // clock behind another instance's, never brings back an older state. recordedAt only tells which changes a new
+    // snapshot file already covers.
+    private record Change<T>(T value, Long version, boolean created, long recordedAt) {
+
+        boolean supersedes(Change<T> existing) {
+            // A wrong deletion only sends reads to the database, a stale value would be served. But a reconciler
+            // deletion is as of its start, and its id list may have been read before a later recorded create.
+            if (value == null) {
+                return recordedAt >= existing.recordedAt();
+            }
+            // Only a create brings an id back after a delete, e.g. a catalog import of a deleted product
+            if (existing.value() == null) {
+                return created;
+            }
+            return version == null || existing.version() == null || version >= existing.version();
+        }
+    }
+
+    public CatalogSnapshotService(ProductRepository productRepository,
+                                  UserRepository userRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.snapshot.dir}") Path directory,
+                                  @Value("${app.snapshot.reconcile-overlap-ms:60000}") long reconcileOverlapMillis) throws IOException {
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        Files.createDirectories(directory);
+        this.productsFile = directory.resolve("products.snap");
+        this.usersFile = directory.resolve("users.snap");
+        this.reconcileOverlapMillis = reconcileOverlapMillis;
+    }
+
+    // Product by id from the overlay or the snapshot, null when unknown or deleted (the caller asks the database)
+    public ProductDetailDTO findProduct(Long id) {
+        return find(id, productChanges, products);
+    }
+
+    public UserResponse findUser(Long id) {
+        return find(id, userChanges, users);
+    }
+
+    // Maps existing snapshots before the web server starts taking requests, catching up happens in the background
+    @Override
+    public void start() {
+        long started = System.nanoTime();
+        try {
+            if (Files.exists(productsFile) && Files.exists(usersFile)) {
+                products = SnapshotFile.open(productsFile, PRODUCT_CODEC);
+                users = SnapshotFile.open(usersFile, USER_CODEC);
+                reconciledUpTo = Math.min(products.watermark(), users.watermark());
+                log.info("Mapped catalog snapshot with {} products and {} users from {} in {} ms", products.count(),
+                        users.count(), Instant.ofEpochMilli(reconciledUpTo), (System.nanoTime() - started) / 1_000_000);
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Ignoring unreadable catalog snapshot, reads go to the database until a new one is written", ex);
+            products = null;
+            users = null;
+        }
+        running = true;
+        Thread.ofVirtual().name("catalog-snapshot-startup").start(products != null ? this::reconcile : this::writeSnapshot);
+    }
+
+    // A fresh snapshot on the way down keeps the next start as warm as possible
+    @Override
+    public void stop() {
+        running = false;
+        writeSnapshot();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        record(event, System.currentTimeMillis());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductBatchChangedEvent event) {
+        long recordedAt = System.currentTimeMillis();
+        event.changes().forEach(change -> record(change, recordedAt));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        UserResponse user = event.user();
+        record(userChanges, event.userId(), new Change<>(user, user != null ? user.getVersion() : null,
+                event.type() == UserChangedEvent.Type.CREATED, System.currentTimeMillis()));
+    }
+
+    private void record(ProductChangedEvent event, long recordedAt) {
+        ProductDetailDTO product = event.product();
+        record(productChanges, event.productId(), new Change<>(product, product != null ? product.getVersion() : null,
+                event.type() == ProductChangedEvent.Type.CREATED, recordedAt));
+    }
+
+    // Catches up with changes made by other instances, or before this one started
+    @Scheduled(fixedDelayString = "${app.snapshot.reconcile-interval-ms:30000}",
+            initialDelayString = "${app.snapshot.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        if (products == null) {
+            return;
+        }
+        maintenance.lock();
+        try {
+            long startedAt = System.currentTimeMillis();
+            // Overlap covers clock skew between instances and transactions that committed after their updated_at
+            Instant since = Instant.ofEpochMilli(reconciledUpTo - reconcileOverlapMillis);
+            int changed = readOnly.execute(status ->
+                    reconcile(productRepository.streamDetailsUpdatedSince(since), ProductDetailDTO::getId,
+                            ProductDetailDTO::getVersion, productRepository.streamIds(), products, productChanges, startedAt)
+                    + reconcile(userRepository.streamResponsesUpdatedSince(since), UserResponse::getId,
+                            UserResponse::getVersion, userRepository.streamIds(), users, userChanges, startedAt));
+            reconciledUpTo = startedAt;
+            log.debug("Catalog snapshot reconciled {} changes since {}", changed, since);
+        } catch (RuntimeException ex) {
+            log.warn("Catalog snapshot reconciliation failed, retrying on the next run", ex);
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.snapshot.interval-ms:300000}", initialDelayString = "${app.snapshot.interval-ms:300000}")
+    public void writeSnapshot() {
+        maintenance.lock();
+        try {
+            long startedAt = System.currentTimeMillis();
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<ProductDetailDTO> productStream = productRepository.streamDetailsOrderById();
+                     Stream<UserResponse> userStream = userRepository.streamResponsesOrderById()) {
+                    SnapshotFile.write(productsFile, startedAt, productStream.iterator(), PRODUCT_CODEC);
+                    SnapshotFile.write(usersFile, startedAt, userStream.iterator(), USER_CODEC);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            products = SnapshotFile.open(productsFile, PRODUCT_CODEC);
+            users = SnapshotFile.open(usersFile, USER_CODEC);
+            // Everything recorded before the write started is in the new files
+            productChanges.values().removeIf(change -> change.recordedAt() < startedAt);
+            userChanges.values().removeIf(change -> change.recordedAt() < startedAt);
+            reconciledUpTo = Math.max(reconciledUpTo, startedAt);
+            log.info("Wrote catalog snapshot with {} products and {} users in {} ms", products.count(), users.count(),
+                    System.currentTimeMillis() - startedAt);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not write the catalog snapshot", ex);
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    @Override
+    public int getPhase() {
+        // Strictly below the web server (DEFAULT_PHASE - 2048), so start() runs before it listens and stop() after it
+        // stopped. Also below the write-behind pipeline, so its replay on startup and drain on shutdown are recorded.
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private static <T> T find(Long id, Map<Long, Change<T>> changes, SnapshotFile<T> snapshot) {
+        Change<T> change = changes.get(id);
+        if (change != null) {
+            return change.value();
+        }
+        return snapshot != null ? snapshot.get(id) : null;
+    }
+
+    private static <T> void record(Map<Long, Change<T>> changes, Long id, Change<T> change) {
+        changes.merge(id, change, (existing, incoming) -> incoming.supersedes(existing) ? incoming : existing);
+    }
+
+    private static <T> Change<T> deletion(long recordedAt) {
+        return new Change<>(null, null, false, recordedAt);
+    }
+
+    private static <T> int reconcile(Stream<T> updated, Function<T, Long> idOf, Function<T, Long> versionOf,
+                                     Stream<Long> liveIds, SnapshotFile<T> snapshot, Map<Long, Change<T>> changes,
+                                     long startedAt) {
+        int[] changed = {0};
+        try (updated) {
+            updated.forEach(value -> {
+                record(changes, idOf.apply(value), new Change<>(value, versionOf.apply(value), false, startedAt));
+                changed[0]++;
+            });
+        }
+        long[] ids;
+        try (liveIds) {
+            ids = liveIds.mapToLong(Long::longValue).toArray();
+        }
+        // Already sorted by the query, sort again in case the database collation surprises us
+        Arrays.sort(ids);
+        snapshot.forEachId(id -> {
+            if (Arrays.binarySearch(ids, id) < 0) {
+                record(changes, id, deletion(startedAt));
+                changed[0]++;
+            }
+        });
+        changes.forEach((id, change) -> {
+            if (change.value() != null && Arrays.binarySearch(ids, id) < 0) {
+                record(changes, id, deletion(startedAt));
+            }
+        });
+        return changed[0];
+    }
+
+    private static final class ProductCodec implements SnapshotCodec<ProductDetailDTO> {
+        @Override
+        public long id(ProductDetailDTO product) {
+            return product.getId();
+        }
+
+        @Override
+        public void write(DataOutputStream out, ProductDetailDTO product) throws IOException {
+            out.writeLong(product.getId());
+            out.writeDouble(product.getPrice());
+            out.writeInt(product.getQuantity());
+            out.writeLong(product.getVersion() != null ? product.getVersion() : 0L);
+            SnapshotCodec.writeString(out, product.getName());
+            SnapshotCodec.writeString(out, product.getDescription());
+        }
+
+        @Override
+        public ProductDetailDTO read(ByteBuffer in) {
+            long id = in.getLong();
+            double price = in.getDouble();
+            int quantity = in.getInt();
+            long version = in.getLong();
+            return new ProductDetailDTO(id, SnapshotCodec.readString(in), SnapshotCodec.readString(in), price, quantity, version);
+        }
+    }
+
+    private static final class UserCodec implements SnapshotCodec<UserResponse> {
+        @Override
+        public long id(UserResponse user) {
+            return user.getId();
+        }
+
+        @Override
+        public void write(DataOutputStream out, UserResponse user) throws IOException {
+            out.writeLong(user.getId());
+            out.writeLong(user.getVersion() != null ? user.getVersion() : 0L);
+            SnapshotCodec.writeString(out, user.getName());
+            SnapshotCodec.writeString(out, user.getEmail());
+        }
+
+        @Override
+        public UserResponse read(ByteBuffer in) {
+            long id = in.getLong();
+            long version = in.getLong();
+            return new UserResponse(id, SnapshotCodec.readString(in), SnapshotCodec.readString(in), version);
+        }
+    }
+}
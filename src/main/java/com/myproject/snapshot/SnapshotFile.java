@@ -0,0 +1,124 @@
+package com.socialhub.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.LongConsumer;
+
+// Read-only, memory-mapped snapshot of one table. Layout:
+//   header  magic, format, watermark (epoch millis), record count, index offset
+//   records written by the codec, in id order
+//   index   (id, record offset) pairs sorted by id, searched with a binary search
+// Lookups decode a single record straight from the mapping, nothing is loaded up front.
+final class SnapshotFile<T> {
+    private static final int MAGIC = 0x43534E50;
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int INDEX_ENTRY_BYTES = 2 * Long.BYTES;
+
+    private final SnapshotCodec<T> codec;
+    private final MappedByteBuffer buffer;
+    private final long watermark;
+    private final int count;
+    private final int indexOffset;
+
+    private SnapshotFile(SnapshotCodec<T> codec, MappedByteBuffer buffer) {
+        this.codec = codec;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+            throw new IllegalStateException("Not a catalog snapshot or unsupported format");
+        }
+        this.watermark = buffer.getLong(8);
+        this.count = buffer.getInt(16);
+        this.indexOffset = Math.toIntExact(buffer.getLong(24));
+    }
+
+    static <T> SnapshotFile<T> open(Path file, SnapshotCodec<T> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new SnapshotFile<>(codec, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Writes the records (which must arrive in ascending id order) to a temporary file and moves it into place
+    static <T> void write(Path file, long watermark, Iterator<T> records, SnapshotCodec<T> codec) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long[] ids = new long[1_024];
+        long[] offsets = new long[1_024];
+        int count = 0;
+        long position = HEADER_BYTES;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.write(new byte[HEADER_BYTES]);
+            while (records.hasNext()) {
+                T record = records.next();
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                ids[count] = codec.id(record);
+                offsets[count] = position;
+                count++;
+                int before = out.size();
+                codec.write(out, record);
+                position += out.size() - before;
+            }
+            for (int i = 0; i < count; i++) {
+                out.writeLong(ids[i]);
+                out.writeLong(offsets[i]);
+            }
+        }
+        if (position > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot exceeds the 2 GB a single mapping can address");
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC).putInt(FORMAT).putLong(watermark).putInt(count).putInt(0).putLong(position)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Changes after this instant (minus the reconcile overlap) are not in the snapshot
+    long watermark() {
+        return watermark;
+    }
+
+    int count() {
+        return count;
+    }
+
+    T get(long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = buffer.getLong(indexOffset + middle * INDEX_ENTRY_BYTES);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                int offset = Math.toIntExact(buffer.getLong(indexOffset + middle * INDEX_ENTRY_BYTES + Long.BYTES));
+                return codec.read(buffer.slice(offset, buffer.capacity() - offset));
+            }
+        }
+        return null;
+    }
+
+    void forEachId(LongConsumer action) {
+        for (int i = 0; i < count; i++) {
+            action.accept(buffer.getLong(indexOffset + i * INDEX_ENTRY_BYTES));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.socialhub.writebehind;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Append-only file of queued operations, one JSON object per line, plus a checkpoint file holding the
+// sequence of the last operation known to be in the database. Everything after the checkpoint is replayed on startup.
+// Operations the database kept failing are appended to a dead-letter file in the same format, for an operator to fix
+// and resubmit.
+@Slf4j
+class WriteBehindLog implements Closeable {
+    private final ObjectMapper objectMapper;
+    private final Path logFile;
+    private final Path checkpointFile;
+    private final Path deadLetterFile;
+    private final FileChannel channel;
+
+    WriteBehindLog(Path directory, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        Files.createDirectories(directory);
+        this.logFile = directory.resolve("mutations.log");
+        this.checkpointFile = directory.resolve("checkpoint");
+        this.deadLetterFile = directory.resolve("dead-letter.log");
+        this.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    long checkpoint() throws IOException {
+        return Files.exists(checkpointFile) ? Long.parseLong(Files.readString(checkpointFile).trim()) : 0L;
+    }
+
+    // Operations after the checkpoint. Reading stops at a torn last line left by a crash mid-append.
+    List<WriteOperation> recover() throws IOException {
+        long checkpoint = checkpoint();
+        List<WriteOperation> operations = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                WriteOperation operation;
+                try {
+                    operation = objectMapper.readValue(line, WriteOperation.class);
+                } catch (JsonProcessingException ex) {
+                    log.warn("Ignoring unreadable write-behind log entry after {} recovered operations", operations.size());
+                    break;
+                }
+                if (operation.sequence() > checkpoint) {
+                    operations.add(operation);
+                }
+            }
+        }
+        return operations;
+    }
+
+    // Buffered write, durable only after sync()
+    void append(WriteOperation operation) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(operation) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Rare, so opened per call and forced straight away
+    void deadLetter(WriteOperation operation) throws IOException {
+        try (FileChannel out = FileChannel.open(deadLetterFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap((objectMapper.writeValueAsString(operation) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+    }
+
+    void sync() throws IOException {
+        channel.force(false);
+    }
+
+    void checkpoint(long sequence) throws IOException {
+        Path temporary = checkpointFile.resolveSibling("checkpoint.tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.UTF_8)));
+            out.force(false);
+        }
+        Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Only called once everything in the log is behind the checkpoint
+    void truncate() throws IOException {
+        channel.truncate(0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,389 @@
+package com.socialhub.writebehind;
+
+import com.socialhub.dto.UserRequest;
+import com.socialhub.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialhub.dto.BatchResultDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.exception.WriteBehindQueueFullException;
+import com.socialhub.exception.WriteBehindUnavailableException;
+import com.socialhub.service.ProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Opt-in write-behind mode: mutations are appended to the log, queued and acknowledged straight away.
+// A single background thread drains the queue, coalesces updates to the same product and writes them through the
+// batch methods of ProductService and UserService, so caches and events behave exactly as for synchronous writes.
+// A batch the database refuses as a whole is retried one operation at a time; an operation that fails on its own for
+// any reason other than the database being unavailable goes to the dead-letter file instead of blocking the queue.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.write-behind.enabled", havingValue = "true")
+public class WriteBehindPipeline implements SmartLifecycle {
+    public static final String SEQUENCE_HEADER = "X-Write-Sequence";
+
+    private final ProductService productService;
+    private final UserService userService;
+    private final WriteBehindLog writeLog;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final boolean fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushWanted = lock.newCondition();
+    // Guarded by lock
+    private final Map<String, WriteOperation> pending = new LinkedHashMap<>();
+    private long lastSequence;
+    // Operations whose flush failed, retried first. Only touched by the flusher thread.
+    private List<WriteOperation> retry = new ArrayList<>();
+    private volatile int retrying;
+
+    private final Counter rejected;
+    private final Counter coalesced;
+    private final Counter flushedSucceeded;
+    private final Counter flushedFailed;
+    private final Counter deadLettered;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public WriteBehindPipeline(ProductService productService,
+                               UserService userService,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.write-behind.dir}") Path directory,
+                               @Value("${app.write-behind.capacity:100000}") int capacity,
+                               @Value("${app.write-behind.batch-size:5000}") int batchSize,
+                               @Value("${app.write-behind.flush-interval-ms:200}") long flushIntervalMillis,
+                               @Value("${app.write-behind.fsync:true}") boolean fsync) throws IOException {
+        this.productService = productService;
+        this.userService = userService;
+        this.writeLog = new WriteBehindLog(directory, objectMapper);
+        this.capacity = capacity;
+        this.batchSize = Math.min(batchSize, ProductService.MAX_BATCH_ITEMS);
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.fsync = fsync;
+        this.rejected = Counter.builder("writebehind.rejected")
+                .description("Mutations refused because the queue was full")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("writebehind.coalesced")
+                .description("Updates that replaced a queued update of the same product")
+                .register(meterRegistry);
+        this.flushedSucceeded = Counter.builder("writebehind.flushed").tag("outcome", "succeeded")
+                .description("Queued mutations written to the database")
+                .register(meterRegistry);
+        this.flushedFailed = Counter.builder("writebehind.flushed").tag("outcome", "failed")
+                .description("Queued mutations the database rejected, e.g. updates of deleted products")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("writebehind.flushed").tag("outcome", "dead-lettered")
+                .description("Queued mutations that failed on their own and were moved to the dead-letter file")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("writebehind.flush")
+                .description("Time to write one batch to the database")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("writebehind.queue.depth", this, WriteBehindPipeline::depth)
+                .description("Mutations acknowledged but not yet in the database")
+                .register(meterRegistry);
+    }
+
+    public long createProduct(ProductDetailDTO product) {
+        return submit(WriteOperation.Kind.CREATE_PRODUCT, null, product, null);
+    }
+
+    public long updateProduct(Long id, ProductDetailDTO product) {
+        product.setId(id);
+        return submit(WriteOperation.Kind.UPDATE_PRODUCT, id, product, null);
+    }
+
+    // The caller validates the whole request, including the password that is not queued
+    public long createUser(UserRequest user) {
+        return submit(WriteOperation.Kind.CREATE_USER, null, null, user);
+    }
+
+    // Returns the sequence number of the accepted operation
+    private long submit(WriteOperation.Kind kind, Long id, ProductDetailDTO product, UserRequest user) {
+        WriteOperation operation;
+        lock.lock();
+        try {
+            // Before start() the log is not recovered yet, an operation accepted now could get a sequence the
+            // checkpoint already covers and be skipped on replay
+            if (!running) {
+                throw new WriteBehindUnavailableException("Write queue is not accepting writes, retry later");
+            }
+            operation = new WriteOperation(lastSequence + 1, kind, id, product,
+                    user != null ? user.getName() : null, user != null ? user.getEmail() : null);
+            boolean replaces = pending.containsKey(operation.coalescingKey());
+            if (!replaces && pending.size() + retrying >= capacity) {
+                rejected.increment();
+                throw new WriteBehindQueueFullException("Write queue is full, retry later");
+            }
+            writeLog.append(operation);
+            lastSequence = operation.sequence();
+            pending.put(operation.coalescingKey(), operation);
+            if (replaces) {
+                coalesced.increment();
+            }
+            if (pending.size() >= batchSize) {
+                flushWanted.signal();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.unlock();
+        }
+        // Outside the lock, so one fsync covers every append made while it was in progress
+        if (fsync) {
+            try {
+                writeLog.sync();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return operation.sequence();
+    }
+
+    public int depth() {
+        lock.lock();
+        try {
+            return pending.size() + retrying;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        lock.lock();
+        try {
+            // Crash recovery: whatever was acknowledged but not checkpointed goes back into the queue
+            List<WriteOperation> recovered = writeLog.recover();
+            lastSequence = writeLog.checkpoint();
+            for (WriteOperation operation : recovered) {
+                pending.put(operation.coalescingKey(), operation);
+                lastSequence = Math.max(lastSequence, operation.sequence());
+            }
+            if (!recovered.isEmpty()) {
+                log.info("Replaying {} write-behind operations from the log", recovered.size());
+            }
+            running = true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.unlock();
+        }
+        flusher = Thread.ofPlatform().name("write-behind-flusher").daemon().start(this::flushLoop);
+    }
+
+    // Runs after the web server stopped accepting requests, drains the queue before shutting down
+    @Override
+    public void stop() {
+        lock.lock();
+        try {
+            running = false;
+            flushWanted.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+            writeLog.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            log.warn("Could not close the write-behind log", ex);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Below the web server, so the log is recovered before it listens and drained after it stopped. Above the
+    // catalog snapshot, so replayed and drained writes reach it.
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 3072;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<WriteOperation> batch;
+            long drainedUpTo;
+            lock.lock();
+            try {
+                if (running && retry.isEmpty() && pending.size() < batchSize) {
+                    flushWanted.await(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                }
+                if (!running && pending.isEmpty() && retry.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(retry);
+                batch.addAll(pending.values());
+                pending.clear();
+                drainedUpTo = lastSequence;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            retry = new ArrayList<>();
+            if (!batch.isEmpty()) {
+                flush(batch, drainedUpTo);
+            }
+        }
+    }
+
+    // Writes in sequence order so that after each chunk every operation up to its last sequence is in the
+    // database (older updates that were coalesced away are superseded by later ones), which makes it a valid checkpoint
+    private void flush(List<WriteOperation> batch, long drainedUpTo) {
+        batch.sort(Comparator.comparingLong(WriteOperation::sequence));
+        int start = 0;
+        while (start < batch.size()) {
+            WriteOperation.Kind kind = batch.get(start).kind();
+            int end = start;
+            while (end < batch.size() && end - start < batchSize && batch.get(end).kind() == kind) {
+                end++;
+            }
+            List<WriteOperation> chunk = batch.subList(start, end);
+            int done = writeChunk(kind, chunk);
+            if (done < chunk.size()) {
+                // Database unavailable: keep everything from the first unwritten operation on and try again next round
+                int failedAt = start + done;
+                log.warn("Write-behind flush failed, {} operations will be retried", batch.size() - failedAt);
+                retry = new ArrayList<>(batch.subList(failedAt, batch.size()));
+                retrying = retry.size();
+                sleepBeforeRetry();
+                return;
+            }
+            start = end;
+        }
+        retrying = 0;
+        truncateIfCaughtUp(drainedUpTo);
+    }
+
+    // Returns how many operations from the start of the chunk are done with: written, rejected by the database or
+    // dead-lettered. Less than the whole chunk only when the database is unavailable.
+    private int writeChunk(WriteOperation.Kind kind, List<WriteOperation> chunk) {
+        try {
+            BatchResultDTO result = flushTimer.recordCallable(() -> write(kind, chunk));
+            flushedSucceeded.increment(result.getSucceeded());
+            flushedFailed.increment(result.getFailed());
+            if (result.getFailed() > 0) {
+                log.warn("{} of {} queued {} operations were rejected by the database", result.getFailed(), chunk.size(), kind);
+            }
+        } catch (Exception ex) {
+            if (isUnavailable(ex)) {
+                log.warn("Database unavailable for {} queued {} operations", chunk.size(), kind, ex);
+                return 0;
+            }
+            if (chunk.size() > 1) {
+                log.warn("Batch of {} queued {} operations failed, writing them one at a time", chunk.size(), kind, ex);
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (writeChunk(kind, chunk.subList(i, i + 1)) == 0) {
+                        return i;
+                    }
+                }
+                return chunk.size();
+            }
+            deadLetter(chunk.get(0), ex);
+        }
+        checkpoint(chunk.get(chunk.size() - 1).sequence());
+        return chunk.size();
+    }
+
+    private void deadLetter(WriteOperation operation, Exception cause) {
+        log.error("Queued {} operation {} failed on its own, moved to the dead-letter file", operation.kind(),
+                operation.sequence(), cause);
+        try {
+            writeLog.deadLetter(operation);
+            deadLettered.increment();
+        } catch (IOException ex) {
+            log.error("Could not write operation {} to the dead-letter file", operation.sequence(), ex);
+        }
+    }
+
+    private void checkpoint(long sequence) {
+        try {
+            writeLog.checkpoint(sequence);
+        } catch (IOException ex) {
+            // Only costs a longer replay after a crash
+            log.warn("Could not checkpoint the write-behind log", ex);
+        }
+    }
+
+    // No connection or a failure that a retry of the same statement can get past
+    private static boolean isUnavailable(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CannotCreateTransactionException || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                    || cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BatchResultDTO write(WriteOperation.Kind kind, List<WriteOperation> chunk) {
+        return switch (kind) {
+            case CREATE_PRODUCT -> productService.createProducts(chunk.stream().map(WriteOperation::product).toList());
+            case UPDATE_PRODUCT -> productService.updateProducts(chunk.stream().map(WriteOperation::product).toList());
+            // The password was validated when the request was accepted and is not kept in the log
+            case CREATE_USER -> userService.createAcceptedUsers(chunk.stream()
+                    .map(operation -> new UserRequest(operation.userName(), operation.userEmail(), null))
+                    .toList());
+        };
+    }
+
+    private void truncateIfCaughtUp(long drainedUpTo) {
+        lock.lock();
+        try {
+            writeLog.checkpoint(drainedUpTo);
+            // Nothing was appended since the drain, the whole log is behind the checkpoint
+            if (pending.isEmpty() && lastSequence == drainedUpTo) {
+                writeLog.truncate();
+            }
+        } catch (IOException ex) {
+            log.warn("Could not checkpoint the write-behind log", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sleepBeforeRetry() {
+        try {
+            Thread.sleep(Math.max(flushIntervalMillis, 1_000));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.socialhub.writebehind;
+
+import com.socialhub.dto.ProductDetailDTO;
+
+// One acknowledged mutation, as queued and as written to the write-behind log.
+// User passwords are never stored by UserService, so they are kept out of the log as well.
+public record WriteOperation(long sequence, Kind kind, Long id, ProductDetailDTO product, String userName, String userEmail) {
+
+    public enum Kind {
+        CREATE_PRODUCT, UPDATE_PRODUCT, CREATE_USER
+    }
+
+    // Updates of the same product share a key so only the latest is flushed, creates never coalesce
+    String coalescingKey() {
+        return kind == Kind.UPDATE_PRODUCT ? "product:" + id : "op:" + sequence;
+    }
+}
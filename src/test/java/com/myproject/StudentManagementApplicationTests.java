@@ -1,13 +1,27 @@
-package com.myproject;
+package com.socialhub;
 
+import com.socialhub.repository.UserRepository;
+import com.socialhub.service.UserService;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
+@ActiveProfiles("test")
 class StudentManagementApplicationTests {
 
+    @Autowired
+    private ApplicationContext context;
+
     @Test
     void contextLoads() {
+        // User classes live outside the product packages, they have to be picked up by the scan all the same
+        assertThat(context.getBeansOfType(UserService.class)).hasSize(1);
+        assertThat(context.getBeansOfType(UserRepository.class)).hasSize(1);
     }
 
 }
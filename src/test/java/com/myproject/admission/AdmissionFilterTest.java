@@ -0,0 +1,48 @@
+package com.socialhub.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionFilterTest {
+
+    // One request per client per hour, so the second request of a client is always limited
+    private final AdmissionFilter filter = new AdmissionFilter(new AdmissionProperties("X-API-Key", Set.of("issued-key"), 100,
+            List.of(new AdmissionProperties.Route("products", "/api/v1/products/**", 1.0 / 3600, 1)),
+            new AdmissionProperties.Concurrency(false, 1, 1, 1, Duration.ofSeconds(1), 0.9, Duration.ofSeconds(1))),
+            new SimpleMeterRegistry());
+
+    @Test
+    void unknownKeysDoNotGetTheirOwnBucket() throws Exception {
+        assertThat(status("10.0.0.1", "made-up-1")).isEqualTo(200);
+        assertThat(status("10.0.0.1", "made-up-2")).isEqualTo(429);
+        assertThat(status("10.0.0.1", null)).isEqualTo(429);
+    }
+
+    @Test
+    void issuedKeyIsLimitedOnItsOwnWhereverItComesFrom() throws Exception {
+        assertThat(status("10.0.0.2", "issued-key")).isEqualTo(200);
+        assertThat(status("10.0.0.3", "issued-key")).isEqualTo(429);
+        // The address still has its own bucket for requests without the key
+        assertThat(status("10.0.0.2", null)).isEqualTo(200);
+    }
+
+    private int status(String remoteAddress, String apiKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products/1");
+        request.setRemoteAddr(remoteAddress);
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
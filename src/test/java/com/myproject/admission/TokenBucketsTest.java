@@ -0,0 +1,67 @@
+package com.socialhub.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketsTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void burstIsAdmittedThenRequestsFollowTheRate() {
+        TokenBuckets buckets = new TokenBuckets(10, 5, 100, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(buckets.tryAcquire("client", 0)).isZero();
+        }
+        long wait = buckets.tryAcquire("client", 0);
+        assertThat(wait).isEqualTo(SECOND / 10);
+        assertThat(buckets.tryAcquire("client", wait)).isZero();
+        // Other clients have their own bucket
+        assertThat(buckets.tryAcquire("other", 0)).isZero();
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheBurst() throws Exception {
+        TokenBuckets buckets = new TokenBuckets(1, 1_000, 100, 0);
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        if (buckets.tryAcquire("client", 0) == 0) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertThat(admitted.get()).isEqualTo(1_000);
+    }
+
+    @Test
+    void idleBucketsAreEvictedAndClientsBeyondTheCapShareOneBucket() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 2, 0);
+        buckets.tryAcquire("a", 0);
+        buckets.tryAcquire("b", 0);
+
+        // The table is full, c and d share the overflow bucket
+        assertThat(buckets.tryAcquire("c", 0)).isZero();
+        assertThat(buckets.tryAcquire("d", 0)).isPositive();
+        assertThat(buckets.size()).isEqualTo(2);
+
+        assertThat(buckets.evictIdle(2 * SECOND)).isEqualTo(2);
+        assertThat(buckets.size()).isZero();
+    }
+}
@@ -0,0 +1,19 @@
+package com.socialhub.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "app.cache.type=none",
+        "app.loader.window-micros=1000",
+        "spring.jpa.properties.hibernate.generate_statistics=false"
+})
+@ActiveProfiles("test")
+class BatchedLookupBurstBenchmark extends LookupBurstBenchmark {
+
+    @Override
+    protected String mode() {
+        return "batched";
+    }
+}
@@ -0,0 +1,81 @@
+package com.socialhub.benchmark;
+
+import com.socialhub.dto.BatchResultDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Rows per second for one createProduct call per row versus the chunked batch endpoint
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+@ActiveProfiles("test")
+class BulkImportBenchmark {
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 50_000);
+    private static final int REQUEST_SIZE = 5_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void emptyCatalog() {
+        CatalogSeeder.seedProducts(jdbcTemplate, 0);
+    }
+
+    @Test
+    void singleRowVersusBatch() {
+        List<ProductDetailDTO> feed = feed(ROWS);
+
+        // Warm up both paths
+        feed.subList(0, 1_000).forEach(productService::createProduct);
+        productService.createProducts(feed.subList(0, 1_000));
+        CatalogSeeder.seedProducts(jdbcTemplate, 0);
+
+        long start = System.nanoTime();
+        feed.forEach(productService::createProduct);
+        double singleSeconds = (System.nanoTime() - start) / 1e9;
+        CatalogSeeder.seedProducts(jdbcTemplate, 0);
+
+        start = System.nanoTime();
+        int created = 0;
+        for (int from = 0; from < feed.size(); from += REQUEST_SIZE) {
+            BatchResultDTO result = productService.createProducts(feed.subList(from, Math.min(from + REQUEST_SIZE, feed.size())));
+            created += result.getSucceeded();
+        }
+        double batchSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("bulk-import rows=%d singleRows/s=%.0f batchRows/s=%.0f speedup=%.1fx%n",
+                ROWS, ROWS / singleSeconds, ROWS / batchSeconds, singleSeconds / batchSeconds);
+        assertThat(created).isEqualTo(ROWS);
+    }
+
+    private static List<ProductDetailDTO> feed(int rows) {
+        List<ProductDetailDTO> feed = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ProductDetailDTO product = new ProductDetailDTO();
+            product.setName("Feed product " + i);
+            product.setDescription("Supplier feed row " + i);
+            product.setPrice(1 + i % 500);
+            product.setQuantity(i % 40);
+            feed.add(product);
+        }
+        return feed;
+    }
+}
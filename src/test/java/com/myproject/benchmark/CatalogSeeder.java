@@ -0,0 +1,66 @@
+package com.socialhub.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fills the embedded database with synthetic rows for benchmarks
+public final class CatalogSeeder {
+    private static final int BATCH_SIZE = 5_000;
+    // allocationSize of product_seq and user_seq, Hibernate hands out the block of ids below each sequence value
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    private CatalogSeeder() {
+    }
+
+    // Replaces the product table with the given number of rows, ids start at 1
+    public static void seedProducts(JdbcTemplate jdbcTemplate, int rows) {
+        jdbcTemplate.update("DELETE FROM product");
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{(long) i, "Product " + i, "Synthetic product number " + i + ", seeded for benchmarks",
+                    1 + (i % 2_000) / 2.0, i % 100});
+            if (batch.size() == BATCH_SIZE) {
+                insertProducts(jdbcTemplate, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertProducts(jdbcTemplate, batch);
+        }
+        checkCount(jdbcTemplate, "product", rows);
+        // Keep ids generated by the application clear of the seeded range
+        jdbcTemplate.execute("ALTER SEQUENCE product_seq RESTART WITH " + (rows + SEQUENCE_INCREMENT));
+    }
+
+    // Replaces the user table with the given number of rows, ids start at 1
+    public static void seedUsers(JdbcTemplate jdbcTemplate, int rows) {
+        jdbcTemplate.update("DELETE FROM \"user\"");
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{(long) i, "User " + i, "user" + i + "@example.com"});
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("INSERT INTO \"user\" (id, name, email) VALUES (?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO \"user\" (id, name, email) VALUES (?, ?, ?)", batch);
+        }
+        checkCount(jdbcTemplate, "\"user\"", rows);
+        jdbcTemplate.execute("ALTER SEQUENCE user_seq RESTART WITH " + (rows + SEQUENCE_INCREMENT));
+    }
+
+    // A benchmark over a table that was not seeded measures nothing, fail its setup instead
+    private static void checkCount(JdbcTemplate jdbcTemplate, String table, int rows) {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+        if (count == null || count != rows) {
+            throw new IllegalStateException("Seeded " + count + " rows into " + table + " instead of " + rows);
+        }
+    }
+
+    private static void insertProducts(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO product (id, name, description, price, quantity) VALUES (?, ?, ?, ?, ?)", batch);
+    }
+}
@@ -0,0 +1,111 @@
+package com.socialhub.benchmark;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Clients polling unchanged products, with and without If-None-Match. Reports response bytes and CPU per request;
+// client and server share the JVM, so the CPU figure covers both sides.
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=false")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConditionalGetBenchmark {
+    private static final int ROWS = 1_000;
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 100);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.seconds", 15));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String[] etags = new String[ROWS + 1];
+
+    @BeforeAll
+    void seed() throws Exception {
+        CatalogSeeder.seedProducts(jdbcTemplate, ROWS);
+        for (int id = 1; id <= ROWS; id++) {
+            HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(uri(id)).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            etags[id] = response.headers().firstValue("ETag").orElseThrow();
+        }
+    }
+
+    @Test
+    void pollingWithAndWithoutEtags() throws Exception {
+        poll("warmup", false);
+        poll("warmup", true);
+
+        Measurement full = poll("unconditional", false);
+        Measurement conditional = poll("if-none-match", true);
+
+        System.out.println(full);
+        System.out.println(conditional);
+        assertThat(conditional.notModified).isEqualTo(conditional.load.requests());
+        assertThat(conditional.bytesPerRequest()).isLessThan(full.bytesPerRequest());
+    }
+
+    private Measurement poll(String name, boolean conditional) throws Exception {
+        LongAdder bytes = new LongAdder();
+        LongAdder notModified = new LongAdder();
+        long cpuBefore = processCpuNanos();
+        LoadGenerator.Result load = LoadGenerator.closedLoop(name, CLIENTS, DURATION, (client, iteration) -> {
+            int id = 1 + (int) ((client * 7919L + iteration * 104_729L) % ROWS);
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri(id)).GET();
+            if (conditional) {
+                request.header("If-None-Match", etags[id]);
+            }
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            bytes.add(response.body().length);
+            if (response.statusCode() == 304) {
+                notModified.increment();
+            }
+            return response.statusCode();
+        });
+        return new Measurement(load, bytes.sum(), notModified.sum(), processCpuNanos() - cpuBefore);
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    private URI uri(int id) {
+        return URI.create("http://localhost:" + port + "/api/v1/products/" + id);
+    }
+
+    private record Measurement(LoadGenerator.Result load, long bytes, long notModified, long cpuNanos) {
+
+        double bytesPerRequest() {
+            return (double) bytes / Math.max(load.requests(), 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s body-bytes/req=%.1f not-modified=%d cpu-us/req=%.1f", load, bytesPerRequest(),
+                    notModified, cpuNanos / 1e3 / Math.max(load.requests(), 1));
+        }
+    }
+}
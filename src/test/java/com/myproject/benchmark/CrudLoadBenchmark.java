@@ -0,0 +1,98 @@
+package com.socialhub.benchmark;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Mixed CRUD load against the running server, subclasses choose platform or virtual request threads
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class CrudLoadBenchmark {
+    private static final int ROWS = 10_000;
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.seconds", 20));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    // Responses other than the expected ones, counted per "METHOD /path-prefix status"
+    private final Map<String, LongAdder> unexpected = new ConcurrentHashMap<>();
+
+    protected abstract String threadingMode();
+
+    @BeforeAll
+    void seed() {
+        CatalogSeeder.seedProducts(jdbcTemplate, ROWS);
+        CatalogSeeder.seedUsers(jdbcTemplate, ROWS);
+    }
+
+    @Test
+    void mixedCrud() throws Exception {
+        // Warm up
+        LoadGenerator.closedLoop("warmup", CLIENTS, Duration.ofSeconds(5), this::send);
+
+        unexpected.clear();
+        LoadGenerator.Result result = LoadGenerator.closedLoop(threadingMode(), CLIENTS, DURATION, this::send);
+
+        System.out.println(result);
+        assertThat(result.requests()).isPositive();
+        assertThat(result.errors()).isZero();
+        // A 404 or 400 is cheap to serve and would flatter the numbers
+        assertThat(unexpected).isEmpty();
+    }
+
+    // 70% product reads, 20% user reads, 10% product updates
+    private int send(int client, long iteration) throws Exception {
+        long id = 1 + (client * 7919L + iteration * 104_729L) % ROWS;
+        int bucket = (int) (iteration % 10);
+        HttpRequest request;
+        String endpoint;
+        if (bucket < 7) {
+            request = HttpRequest.newBuilder(uri("/api/v1/products/" + id)).GET().build();
+            endpoint = "GET /api/v1/products";
+        } else if (bucket < 9) {
+            request = HttpRequest.newBuilder(uri("/api/users/" + id)).GET().build();
+            endpoint = "GET /api/users";
+        } else {
+            String body = "{\"name\":\"Product " + id + "\",\"description\":\"Updated under load\",\"price\":"
+                    + (1 + id % 500) + ",\"quantity\":" + (id % 40) + "}";
+            request = HttpRequest.newBuilder(uri("/api/v1/products/" + id))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            endpoint = "PUT /api/v1/products";
+        }
+        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        // Two clients can update the same product at once, the loser gets the optimistic locking conflict
+        if (status != 200 && !(status == 409 && endpoint.startsWith("PUT"))) {
+            unexpected.computeIfAbsent(endpoint + " " + status, key -> new LongAdder()).increment();
+        }
+        return status;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,112 @@
+package com.socialhub.benchmark;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Updates of products and users that each client keeps coming back to, then a run of deletes. Reports SQL statements
+// per request from http.server.requests.sql.statements; subclasses run it with and without the second-level cache.
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class EntityRoundTripBenchmark {
+    private static final int ROWS = 10_000;
+    private static final int ROWS_PER_CLIENT = 20;
+    private static final int DELETES = 1_000;
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 32);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.seconds", 15));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    protected abstract String mode();
+
+    @BeforeAll
+    void seed() {
+        CatalogSeeder.seedProducts(jdbcTemplate, ROWS);
+        CatalogSeeder.seedUsers(jdbcTemplate, ROWS);
+        // The rows were replaced behind Hibernate's back
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void updatesAndDeletes() throws Exception {
+        LoadGenerator.closedLoop("warmup", CLIENTS, Duration.ofSeconds(5), this::update);
+        Statements productsBefore = statements("PUT", "/api/v1/products/{id}");
+        Statements usersBefore = statements("PUT", "/api/users/{id}");
+
+        LoadGenerator.Result result = LoadGenerator.closedLoop(mode(), CLIENTS, DURATION, this::update);
+
+        Statements deletesBefore = statements("DELETE", "/api/v1/products/{id}");
+        for (int i = 0; i < DELETES; i++) {
+            HttpRequest request = HttpRequest.newBuilder(uri("/api/v1/products/" + (ROWS - i))).DELETE().build();
+            assertThat(httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(204);
+        }
+
+        System.out.println(result);
+        System.out.printf("round-trips mode=%s productUpdate=%.2f userUpdate=%.2f productDelete=%.2f statements/request%n",
+                mode(), statements("PUT", "/api/v1/products/{id}").perRequestSince(productsBefore),
+                statements("PUT", "/api/users/{id}").perRequestSince(usersBefore),
+                statements("DELETE", "/api/v1/products/{id}").perRequestSince(deletesBefore));
+        assertThat(result.errors()).isZero();
+    }
+
+    // Half product, half user updates, each client on its own rows so there are no version conflicts
+    private int update(int client, long iteration) throws Exception {
+        long id = 1 + (client * ROWS_PER_CLIENT + iteration / 2 % ROWS_PER_CLIENT) % (ROWS - DELETES);
+        HttpRequest.Builder request = HttpRequest.newBuilder().header("Content-Type", "application/json");
+        if (iteration % 2 == 0) {
+            request.uri(uri("/api/v1/products/" + id)).PUT(HttpRequest.BodyPublishers.ofString(
+                    "{\"name\":\"Product " + id + "\",\"description\":\"Updated " + iteration + "\",\"price\":"
+                            + (1 + iteration % 500) + ",\"quantity\":" + (iteration % 40) + "}"));
+        } else {
+            request.uri(uri("/api/users/" + id)).PUT(HttpRequest.BodyPublishers.ofString(
+                    "{\"name\":\"User " + iteration + "\",\"email\":\"user" + id + "@example.com\",\"password\":\"secret\"}"));
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private Statements statements(String method, String uri) {
+        DistributionSummary summary = meterRegistry.find("http.server.requests.sql.statements")
+                .tag("method", method).tag("uri", uri).summary();
+        return summary == null ? new Statements(0, 0) : new Statements(summary.count(), summary.totalAmount());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private record Statements(long requests, double total) {
+
+        double perRequestSince(Statements before) {
+            return (total - before.total) / Math.max(1, requests - before.requests);
+        }
+    }
+}
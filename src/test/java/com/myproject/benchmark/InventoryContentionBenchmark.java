@@ -0,0 +1,91 @@
+package com.socialhub.benchmark;
+
+import com.socialhub.exception.InsufficientStockException;
+import com.socialhub.service.InventoryService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Many threads reserving the same product until it sells out: product 1 through the conditional UPDATE,
+// product 2 through the striped in-memory front. Prints reservations per second for 1..cores threads and
+// checks that every run sold exactly the seeded stock.
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "app.inventory.hot-skus=2",
+        "app.inventory.flush-interval-ms=3600000",
+        "spring.jpa.properties.hibernate.generate_statistics=false"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class InventoryContentionBenchmark {
+    private static final int STOCK = Integer.getInteger("benchmark.stock", 50_000);
+    private static final long DIRECT = 1L;
+    private static final long HOT = 2L;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        CatalogSeeder.seedProducts(jdbcTemplate, 10);
+    }
+
+    @Test
+    void reservationThroughputAndNoOversell() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            for (long id : new long[]{DIRECT, HOT}) {
+                run(id, threads);
+            }
+        }
+    }
+
+    private void run(long id, int threads) throws Exception {
+        inventoryService.flush();
+        jdbcTemplate.update("UPDATE product SET quantity = ? WHERE id = ?", STOCK, id);
+
+        LongAdder reserved = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long started;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int thread = 0; thread < threads; thread++) {
+                executor.submit(() -> {
+                    start.await();
+                    while (true) {
+                        try {
+                            inventoryService.reserve(id, 1);
+                            reserved.increment();
+                        } catch (InsufficientStockException soldOut) {
+                            return null;
+                        }
+                    }
+                });
+            }
+            started = System.nanoTime();
+            start.countDown();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        inventoryService.flush();
+        Integer left = jdbcTemplate.queryForObject("SELECT quantity FROM product WHERE id = ?", Integer.class, id);
+
+        System.out.printf("inventory mode=%s threads=%d reserved=%d left=%d reservations/s=%.0f%n",
+                id == HOT ? "striped" : "conditional-update", threads, reserved.sum(), left, reserved.sum() / seconds);
+        assertThat(reserved.sum()).isEqualTo(STOCK);
+        assertThat(left).isZero();
+    }
+}
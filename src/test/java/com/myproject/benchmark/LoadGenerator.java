@@ -0,0 +1,87 @@
+package com.socialhub.benchmark;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Closed-loop load generator: a fixed number of clients, each sending its next request as soon as the previous one returns
+public final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    // One request of the workload, returns the HTTP status code
+    @FunctionalInterface
+    public interface Request {
+        int send(int client, long iteration) throws Exception;
+    }
+
+    public record Result(String name, long requests, long errors, double seconds, long[] sortedLatencyNanos) {
+
+        public double throughput() {
+            return requests / seconds;
+        }
+
+        public double percentileMillis(double percentile) {
+            if (sortedLatencyNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sortedLatencyNanos.length - 1, Math.ceil(percentile / 100 * sortedLatencyNanos.length) - 1);
+            return sortedLatencyNanos[Math.max(index, 0)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("load name=%s requests=%d errors=%d req/s=%.0f p50ms=%.2f p99ms=%.2f p999ms=%.2f",
+                    name, requests, errors, throughput(), percentileMillis(50), percentileMillis(99), percentileMillis(99.9));
+        }
+    }
+
+    public static Result closedLoop(String name, int clients, Duration duration, Request request) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        long start = System.nanoTime();
+        List<Future<long[]>> futures = new ArrayList<>(clients);
+        long[] errors = new long[clients];
+        // Virtual threads on the client side so thousands of clients do not need thousands of platform threads
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                int clientId = client;
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    for (long iteration = 0; System.nanoTime() < deadline; iteration++) {
+                        long sent = System.nanoTime();
+                        int status;
+                        try {
+                            status = request.send(clientId, iteration);
+                        } catch (Exception ex) {
+                            status = -1;
+                        }
+                        if (status < 0 || status >= 500) {
+                            errors[clientId]++;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            long[] all = new long[0];
+            for (Future<long[]> future : futures) {
+                long[] latencies = future.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(all);
+            return new Result(name, all.length, Arrays.stream(errors).sum(), seconds, all);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.socialhub.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A burst of lookups by id with the product cache off: most requests go to a small hot set, the rest spread over the
+// catalog. Subclasses run it with and without the batching window and report how many queries the loaders sent.
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class LookupBurstBenchmark {
+    private static final int ROWS = 10_000;
+    private static final int HOT_ROWS = 50;
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 800);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.seconds", 15));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    protected abstract String mode();
+
+    @BeforeAll
+    void seed() {
+        CatalogSeeder.seedProducts(jdbcTemplate, ROWS);
+        CatalogSeeder.seedUsers(jdbcTemplate, ROWS);
+    }
+
+    @Test
+    void burstOfLookups() throws Exception {
+        LoadGenerator.closedLoop("warmup", CLIENTS, Duration.ofSeconds(5), this::send);
+        double requestsBefore = counter("loader.requests");
+        double queriesBefore = counter("loader.queries");
+
+        LoadGenerator.Result result = LoadGenerator.closedLoop(mode(), CLIENTS, DURATION, this::send);
+
+        double requests = counter("loader.requests") - requestsBefore;
+        double queries = counter("loader.queries") - queriesBefore;
+        System.out.println(result);
+        System.out.printf("loader mode=%s keys=%.0f queries=%.0f keys/query=%.1f%n", mode(), requests, queries,
+                requests / Math.max(queries, 1));
+        assertThat(result.errors()).isZero();
+    }
+
+    // 80% hot products, 10% other products, 10% users
+    private int send(int client, long iteration) throws Exception {
+        long spread = client * 7919L + iteration * 104_729L;
+        int bucket = (int) (iteration % 10);
+        String path;
+        if (bucket < 8) {
+            path = "/api/v1/products/" + (1 + spread % HOT_ROWS);
+        } else if (bucket < 9) {
+            path = "/api/v1/products/" + (1 + spread % ROWS);
+        } else {
+            path = "/api/users/" + (1 + spread % ROWS);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.find(name).counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+}
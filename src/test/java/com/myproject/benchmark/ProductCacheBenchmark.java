@@ -0,0 +1,88 @@
+package com.socialhub.benchmark;
+
+import com.socialhub.config.CacheConfiguration;
+import com.socialhub.service.ProductService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// getProductById latency over a small hot set, with the cache and with every lookup forced to the database
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=false")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductCacheBenchmark {
+    private static final int ROWS = 100_000;
+    private static final int HOT_SET = 1_000;
+    private static final int CALLS = 200_000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        CatalogSeeder.seedProducts(jdbcTemplate, ROWS);
+    }
+
+    @Test
+    void latencyWithAndWithoutCache() {
+        Cache cache = cacheManager.getCache(CacheConfiguration.PRODUCTS);
+        long[] keys = hotSetKeys();
+
+        // Warm up the JIT and the cache
+        measure(keys, null);
+        long[] uncached = measure(keys, cache);
+        long[] cached = measure(keys, null);
+
+        report("without-cache", uncached);
+        report("with-cache", cached);
+    }
+
+    // 95% of the calls go to the hot set, the rest are spread over the whole table
+    private static long[] hotSetKeys() {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] keys = new long[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            keys[i] = random.nextInt(100) < 95 ? 1 + random.nextInt(HOT_SET) : 1 + random.nextInt(ROWS);
+        }
+        return keys;
+    }
+
+    // Evicting the key before each call forces the database path through the same service method
+    private long[] measure(long[] keys, Cache evictBeforeCall) {
+        long[] nanos = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            if (evictBeforeCall != null) {
+                evictBeforeCall.evict(keys[i]);
+            }
+            long start = System.nanoTime();
+            productService.getProductById(keys[i]);
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private static void report(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).average().orElse(0);
+        System.out.printf("cache mode=%s calls=%d meanUs=%.2f p50Us=%.2f p99Us=%.2f%n", name, sorted.length,
+                mean / 1e3, sorted[sorted.length / 2] / 1e3, sorted[(int) (sorted.length * 0.99)] / 1e3);
+    }
+}
@@ -0,0 +1,89 @@
+package com.socialhub.benchmark;
+
+import com.socialhub.service.ProductExportService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Export throughput and retained heap, run with: mvn -Pbenchmarks test -Dbenchmark.rows=1000000
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=false")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductExportBenchmark {
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void seed() {
+        CatalogSeeder.seedProducts(jdbcTemplate, ROWS);
+    }
+
+    @Test
+    void ndjsonExport() throws IOException {
+        run("ndjson", productExportService::exportNdjson);
+    }
+
+    @Test
+    void csvExport() throws IOException {
+        run("csv", productExportService::exportCsv);
+    }
+
+    private void run(String format, Export export) throws IOException {
+        // Warm up once so the measured run is not dominated by JIT compilation
+        export.to(new CountingOutputStream());
+
+        long heapBefore = usedHeapAfterGc();
+        CountingOutputStream out = new CountingOutputStream();
+        long start = System.nanoTime();
+        long rows = export.to(out);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long heapAfter = usedHeapAfterGc();
+
+        System.out.printf("export format=%s rows=%d bytes=%d seconds=%.3f rows/s=%.0f MB/s=%.1f heapDeltaMB=%.1f%n",
+                format, rows, out.count, seconds, rows / seconds, out.count / seconds / 1e6,
+                (heapAfter - heapBefore) / 1e6);
+        assertThat(rows).isEqualTo(ROWS);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        long to(OutputStream out) throws IOException;
+    }
+
+    // Discards the output, only counting bytes, so the benchmark measures the export itself
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.socialhub.benchmark;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Clients fetching the full product listing with each Accept-Encoding. Reports body bytes on the wire and CPU per
+// request; client and server share the JVM, so the CPU figure covers both sides (the client never decompresses).
+// Run once more with -Dapp.response-cache.enabled=false for the uncached, uncompressed baseline.
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=false")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ResponseCacheBenchmark {
+    private static final int ROWS = 10_000;
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 50);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.seconds", 15));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @BeforeAll
+    void seed() {
+        CatalogSeeder.seedProducts(jdbcTemplate, ROWS);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"identity", "gzip", "zstd"})
+    void fullListing(String acceptEncoding) throws Exception {
+        LongAdder bytes = new LongAdder();
+        LoadGenerator.Request request = (client, iteration) -> {
+            HttpResponse<byte[]> response = httpClient.send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/products"))
+                            .header("Accept-Encoding", acceptEncoding).GET().build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            bytes.add(response.body().length);
+            return response.statusCode();
+        };
+        LoadGenerator.closedLoop("warmup", CLIENTS, Duration.ofSeconds(5), request);
+        bytes.reset();
+
+        long cpuBefore = processCpuNanos();
+        LoadGenerator.Result result = LoadGenerator.closedLoop(acceptEncoding, CLIENTS, DURATION, request);
+        long cpuNanos = processCpuNanos() - cpuBefore;
+
+        long requests = Math.max(result.requests(), 1);
+        System.out.printf("%s body-bytes/req=%.0f cpu-us/req=%.1f%n", result, (double) bytes.sum() / requests,
+                cpuNanos / 1e3 / requests);
+        assertThat(result.errors()).isZero();
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+}
@@ -0,0 +1,78 @@
+package com.socialhub.benchmark;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Throughput of the serialization-heavy endpoints (the cached product list and multi-gets) for each response format.
+// Run once more with -Dapp.json.dto-serializers=false to compare with Jackson's bean serializers.
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=false")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SerializationThroughputBenchmark {
+    private static final int ROWS = 10_000;
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 50);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.seconds", 15));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @BeforeAll
+    void seed() {
+        CatalogSeeder.seedProducts(jdbcTemplate, ROWS);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"application/json", "application/cbor", "application/x-jackson-smile"})
+    void listAndMultiGet(String accept) throws Exception {
+        LongAdder bytes = new LongAdder();
+        LoadGenerator.Request request = (client, iteration) -> {
+            String path;
+            if (iteration % 2 == 0) {
+                path = "/api/v1/products";
+            } else {
+                long first = 1 + (client * 7919L + iteration * 104_729L) % (ROWS - 100);
+                path = "/api/v1/products?ids=" + LongStream.range(first, first + 100)
+                        .mapToObj(Long::toString).collect(Collectors.joining(","));
+            }
+            HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                    .header("Accept", accept).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+            bytes.add(response.body().length);
+            return response.statusCode();
+        };
+        LoadGenerator.closedLoop("warmup", CLIENTS, Duration.ofSeconds(5), request);
+        bytes.reset();
+
+        LoadGenerator.Result result = LoadGenerator.closedLoop(accept, CLIENTS, DURATION, request);
+
+        System.out.printf("%s body-bytes/req=%.0f%n", result, (double) bytes.sum() / Math.max(result.requests(), 1));
+        assertThat(result.errors()).isZero();
+    }
+}
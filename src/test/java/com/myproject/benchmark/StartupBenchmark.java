@@ -0,0 +1,107 @@
+package com.socialhub.benchmark;
+
+import com.socialhub.MyProjectApplication;
+import com.socialhub.snapshot.CatalogSnapshotService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Time from launch until the first response faster than benchmark.fast-ms, without and with the catalog snapshot.
+// Every run is a fresh application context on the same in-memory database, so JIT and caches start cold each time.
+@Tag("benchmark")
+class StartupBenchmark {
+    private static final int ROWS = 100_000;
+    private static final long FAST_NANOS = Duration.ofMillis(Long.getLong("benchmark.fast-ms", 2)).toNanos();
+    private static final Duration GIVE_UP = Duration.ofSeconds(60);
+
+    @TempDir
+    Path snapshotDirectory;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private record Measurement(String name, double startupMillis, double firstResponseMillis, double firstFastMillis,
+                               int requestsUntilFast) {
+
+        @Override
+        public String toString() {
+            return String.format("startup mode=%s context-ms=%.0f first-response-ms=%.0f first-fast-response-ms=%.0f requests-until-fast=%d",
+                    name, startupMillis, firstResponseMillis, firstFastMillis, requestsUntilFast);
+        }
+    }
+
+    @Test
+    void timeToFirstFastResponse() throws Exception {
+        try (ConfigurableApplicationContext seeding = start(true)) {
+            JdbcTemplate jdbcTemplate = seeding.getBean(JdbcTemplate.class);
+            CatalogSeeder.seedProducts(jdbcTemplate, ROWS);
+            CatalogSeeder.seedUsers(jdbcTemplate, ROWS);
+            seeding.getBean(CatalogSnapshotService.class).writeSnapshot();
+        }
+
+        Measurement cold = measure("database", false);
+        Measurement warm = measure("snapshot", true);
+
+        System.out.println(cold);
+        System.out.println(warm);
+        assertThat(warm.requestsUntilFast()).isPositive();
+    }
+
+    private Measurement measure(String name, boolean snapshot) throws Exception {
+        long launched = System.nanoTime();
+        try (ConfigurableApplicationContext context = start(snapshot)) {
+            long started = System.nanoTime();
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            SplittableRandom random = new SplittableRandom(3);
+            long firstResponse = 0;
+            long deadline = System.nanoTime() + GIVE_UP.toNanos();
+            for (int requests = 1; System.nanoTime() < deadline; requests++) {
+                String path = (requests % 2 == 0 ? "/api/users/" : "/api/v1/products/") + (1 + random.nextInt(ROWS));
+                long sent = System.nanoTime();
+                HttpResponse<Void> response = httpClient.send(
+                        HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build(),
+                        HttpResponse.BodyHandlers.discarding());
+                long received = System.nanoTime();
+                assertThat(response.statusCode()).isEqualTo(200);
+                if (firstResponse == 0) {
+                    firstResponse = received;
+                }
+                if (received - sent < FAST_NANOS) {
+                    return new Measurement(name, (started - launched) / 1e6, (firstResponse - launched) / 1e6,
+                            (received - launched) / 1e6, requests);
+                }
+            }
+            return new Measurement(name, (started - launched) / 1e6, (firstResponse - launched) / 1e6, Double.NaN, -1);
+        }
+    }
+
+    private ConfigurableApplicationContext start(boolean snapshot) {
+        String[] properties = Stream.of(
+                // Keep the in-memory database and its rows between contexts
+                "spring.jpa.hibernate.ddl-auto=update",
+                "server.port=0",
+                "spring.jpa.properties.hibernate.generate_statistics=false",
+                "app.snapshot.enabled=" + snapshot,
+                "app.snapshot.dir=" + snapshotDirectory,
+                "app.snapshot.reconcile-interval-ms=3600000",
+                "app.snapshot.interval-ms=3600000"
+        ).toArray(String[]::new);
+        return new SpringApplicationBuilder(MyProjectApplication.class)
+                .profiles("test")
+                .properties(properties)
+                .run();
+    }
+}
@@ -0,0 +1,17 @@
+package com.socialhub.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.cache.type=none",
+        "app.response-cache.enabled=false"
+})
+@ActiveProfiles("test")
+class UncachedEntityRoundTripBenchmark extends EntityRoundTripBenchmark {
+
+    @Override
+    protected String mode() {
+        return "no-l2cache";
+    }
+}
@@ -0,0 +1,19 @@
+package com.socialhub.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "app.jdbc-gate.enabled=true",
+        "app.cache.type=none",
+        "spring.jpa.properties.hibernate.generate_statistics=false"
+})
+@ActiveProfiles("test")
+class VirtualThreadsLoadBenchmark extends CrudLoadBenchmark {
+
+    @Override
+    protected String threadingMode() {
+        return "virtual-threads";
+    }
+}
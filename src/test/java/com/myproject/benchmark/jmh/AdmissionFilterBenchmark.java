@@ -0,0 +1,88 @@
+package com.socialhub.benchmark.jmh;
+
+import com.socialhub.admission.AdmissionFilter;
+import com.socialhub.admission.AdmissionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the admission filter alone, against calling the rest of the chain directly. Limits are set high enough
+// that every request is admitted, so the numbers are the overhead paid by every request in normal operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class AdmissionFilterBenchmark {
+    private static final FilterChain NO_OP = (request, response) -> {
+    };
+
+    // Distinct client addresses, spread over the threads
+    @Param({"1", "10000"})
+    private int clients;
+
+    private AdmissionFilter filter;
+
+    @State(Scope.Thread)
+    public static class Requests {
+        private MockHttpServletRequest[] requests;
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+        private int next;
+
+        @Setup
+        public void setUp(AdmissionFilterBenchmark benchmark) {
+            requests = new MockHttpServletRequest[benchmark.clients];
+            for (int i = 0; i < requests.length; i++) {
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products/" + (i + 1));
+                request.setRemoteAddr("10.0." + (i / 256) + "." + (i % 256));
+                requests[i] = request;
+            }
+        }
+
+        MockHttpServletRequest next() {
+            MockHttpServletRequest request = requests[next];
+            next = next + 1 == requests.length ? 0 : next + 1;
+            return request;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        AdmissionProperties properties = new AdmissionProperties("X-API-Key", Set.of(), 100_000, List.of(
+                new AdmissionProperties.Route("users", "/api/users/**", 1e9, 1_000_000),
+                new AdmissionProperties.Route("products", "/api/v1/products/**", 1e9, 1_000_000)),
+                new AdmissionProperties.Concurrency(true, 10_000, 10_000, 10_000, Duration.ofSeconds(10), 0.9,
+                        Duration.ofMillis(100)));
+        filter = new AdmissionFilter(properties, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void withoutFilter(Requests requests) throws Exception {
+        NO_OP.doFilter(requests.next(), requests.response);
+    }
+
+    @Benchmark
+    public void withFilter(Requests requests) throws Exception {
+        filter.doFilter(requests.next(), requests.response, NO_OP);
+    }
+}
@@ -0,0 +1,76 @@
+package com.socialhub.benchmark.jmh;
+
+import com.socialhub.dto.UserResponse;
+import com.socialhub.model.User;
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.mapper.ProductMapper;
+import com.socialhub.model.Product;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// MapStruct list mapping versus the hand-written UserResponse.fromEntity
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class MappingBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int size;
+
+    private final ProductMapper productMapper = Mappers.getMapper(ProductMapper.class);
+    private List<Product> products;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        products = new ArrayList<>(size);
+        users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setName("Product " + i);
+            product.setDescription("Description of product " + i);
+            product.setPrice(i * 0.5);
+            product.setQuantity(i % 100);
+            products.add(product);
+            users.add(User.builder().id((long) i).name("User " + i).email("user" + i + "@example.com").build());
+        }
+    }
+
+    @Benchmark
+    public List<ProductBasicDTO> productBasicDTOs() {
+        return productMapper.toProductBasicDTOs(products);
+    }
+
+    @Benchmark
+    public List<ProductDetailDTO> productDetailDTOs() {
+        return productMapper.toProductDetailDTOs(products);
+    }
+
+    @Benchmark
+    public List<UserResponse> userResponses() {
+        List<UserResponse> responses = new ArrayList<>(users.size());
+        for (User user : users) {
+            responses.add(UserResponse.fromEntity(user));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,98 @@
+package com.socialhub.benchmark.jmh;
+
+import com.socialhub.MyProjectApplication;
+import com.socialhub.benchmark.CatalogSeeder;
+import com.socialhub.dto.ProductSearchResultDTO;
+import com.socialhub.model.Product;
+import com.socialhub.service.ProductSearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// In-memory index search versus a LIKE scan in the database. Use -p rows=1000000 for the full catalog size.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class ProductSearchBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    // A selective query and one that matches the whole catalog
+    @Param({"product 4242", "synthetic"})
+    private String query;
+
+    private ConfigurableApplicationContext context;
+    private ProductSearchIndex productSearchIndex;
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(MyProjectApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.jpa.properties.hibernate.generate_statistics=false")
+                .run();
+        CatalogSeeder.seedProducts(context.getBean(JdbcTemplate.class), rows);
+        productSearchIndex = context.getBean(ProductSearchIndex.class);
+        productSearchIndex.build();
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductSearchResultDTO invertedIndex() {
+        return productSearchIndex.search(query, null, null, 20);
+    }
+
+    @Benchmark
+    public ProductSearchResultDTO invertedIndexWithPriceRange() {
+        return productSearchIndex.search(query, 100.0, 500.0, 20);
+    }
+
+    // What the storefront did before: every term as a LIKE pattern over name and description
+    @Benchmark
+    public List<Product> likeQuery() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            StringBuilder jpql = new StringBuilder("select p from Product p where 1 = 1");
+            String[] terms = query.split(" ");
+            for (int i = 0; i < terms.length; i++) {
+                jpql.append(" and (lower(p.name) like :t").append(i).append(" or lower(p.description) like :t").append(i).append(')');
+            }
+            var typedQuery = entityManager.createQuery(jpql.toString(), Product.class).setMaxResults(20);
+            for (int i = 0; i < terms.length; i++) {
+                typedQuery.setParameter("t" + i, "%" + terms[i] + "%");
+            }
+            return typedQuery.getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.socialhub.benchmark.jmh;
+
+import com.socialhub.MyProjectApplication;
+import com.socialhub.benchmark.CatalogSeeder;
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.mapper.ProductMapper;
+import com.socialhub.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Before/after for the read paths: managed entities in a read-write transaction plus MapStruct,
+// versus DTO projections in a read-only transaction. Run with the gc profiler for allocation per operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    @Param({"1000", "50000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private ProductMapper productMapper;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(MyProjectApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.jpa.properties.hibernate.generate_statistics=false")
+                .run();
+        CatalogSeeder.seedProducts(context.getBean(JdbcTemplate.class), rows);
+        productRepository = context.getBean(ProductRepository.class);
+        productMapper = context.getBean(ProductMapper.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductBasicDTO> listEntitiesReadWrite() {
+        return readWrite.execute(status -> productMapper.toProductBasicDTOs(productRepository.findAll()));
+    }
+
+    @Benchmark
+    public List<ProductBasicDTO> listProjectionReadOnly() {
+        return readOnly.execute(status -> productRepository.findAllBasic());
+    }
+
+    @Benchmark
+    public ProductDetailDTO detailEntityReadWrite() {
+        long id = 1 + random.nextInt(rows);
+        return readWrite.execute(status -> productMapper.toProductDetailDTO(productRepository.findById(id).orElseThrow()));
+    }
+
+    @Benchmark
+    public ProductDetailDTO detailProjectionReadOnly() {
+        long id = 1 + random.nextInt(rows);
+        return readOnly.execute(status -> productRepository.findDetailById(id).orElseThrow());
+    }
+}
@@ -0,0 +1,87 @@
+package com.socialhub.benchmark.jmh;
+
+import com.socialhub.MyProjectApplication;
+import com.socialhub.benchmark.CatalogSeeder;
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.service.JpaProductReadModel;
+import com.socialhub.service.OffHeapProductReadModel;
+import com.socialhub.service.ProductReadModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Price-range and top-N queries against the database and against the off-heap columns.
+// The gc profiler (on in the benchmarks profile) reports allocation per operation and GC counts for each.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class ReadModelBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"jpa", "offheap"})
+    private String readModel;
+
+    private ConfigurableApplicationContext context;
+    private ProductReadModel model;
+    private final SplittableRandom random = new SplittableRandom(5);
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = new SpringApplicationBuilder(MyProjectApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.jpa.properties.hibernate.generate_statistics=false",
+                        "app.read-model=" + readModel,
+                        "app.read-model.dir=" + Files.createTempDirectory("read-model"))
+                .run();
+        CatalogSeeder.seedProducts(context.getBean(JdbcTemplate.class), rows);
+        if (readModel.equals("offheap")) {
+            OffHeapProductReadModel offHeap = context.getBean(OffHeapProductReadModel.class);
+            offHeap.build();
+            model = offHeap;
+        } else {
+            model = context.getBean(JpaProductReadModel.class);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    // Seeded prices run from 1 to 1000 in steps of 0.5, a 5-unit band holds about 1% of the catalog
+    @Benchmark
+    public List<ProductBasicDTO> priceRange() {
+        double min = 1 + random.nextInt(990);
+        return model.findByPriceRange(min, min + 5, 50);
+    }
+
+    @Benchmark
+    public List<ProductBasicDTO> topTenByPrice() {
+        return model.findTopByPrice(10, true);
+    }
+}
@@ -0,0 +1,110 @@
+package com.socialhub.benchmark.jmh;
+
+import com.socialhub.dto.UserResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.json.CatalogJsonModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialization of the response DTOs, using the same builder defaults as the application. Compares Jackson's bean
+// serializers with the hand-written ones in CatalogJsonModule, for each format the API can answer in.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    @Param({"bean", "hand-written"})
+    private String serializers;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectWriter basicWriter;
+    private ObjectWriter productWriter;
+    private ObjectWriter userWriter;
+    private List<ProductBasicDTO> basics;
+    private List<ProductDetailDTO> products;
+    private List<UserResponse> users;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json().factory(factory());
+        if ("hand-written".equals(serializers)) {
+            builder.modulesToInstall(new CatalogJsonModule());
+        }
+        ObjectMapper objectMapper = builder.build();
+        basicWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, ProductBasicDTO.class));
+        productWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, ProductDetailDTO.class));
+        userWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, UserResponse.class));
+
+        basics = new ArrayList<>(size);
+        products = new ArrayList<>(size);
+        users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ProductDetailDTO product = new ProductDetailDTO();
+            product.setId((long) i);
+            product.setName("Product " + i);
+            product.setDescription("Description of product " + i);
+            product.setPrice(i * 0.5);
+            product.setQuantity(i % 100);
+            products.add(product);
+            basics.add(new ProductBasicDTO(product.getId(), product.getName(), product.getPrice()));
+
+            UserResponse user = new UserResponse();
+            user.setId((long) i);
+            user.setName("User " + i);
+            user.setEmail("user" + i + "@example.com");
+            users.add(user);
+        }
+    }
+
+    @Benchmark
+    public byte[] productBasicDTOs() throws JsonProcessingException {
+        return basicWriter.writeValueAsBytes(basics);
+    }
+
+    @Benchmark
+    public byte[] productDetailDTOs() throws JsonProcessingException {
+        return productWriter.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] userResponses() throws JsonProcessingException {
+        return userWriter.writeValueAsBytes(users);
+    }
+
+    private JsonFactory factory() {
+        return switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.socialhub.benchmark.jmh;
+
+import com.socialhub.dto.UserResponse;
+import com.socialhub.service.UserService;
+import com.socialhub.MyProjectApplication;
+import com.socialhub.benchmark.CatalogSeeder;
+import com.socialhub.dto.CursorPageDTO;
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Service methods against the embedded database, with the product cache disabled so every call reaches the database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private UserService userService;
+    private final SplittableRandom random = new SplittableRandom(7);
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(MyProjectApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("app.cache.type=none", "spring.jpa.properties.hibernate.generate_statistics=false")
+                .run();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        CatalogSeeder.seedProducts(jdbcTemplate, rows);
+        CatalogSeeder.seedUsers(jdbcTemplate, rows);
+        productService = context.getBean(ProductService.class);
+        userService = context.getBean(UserService.class);
+        // Fail the trial rather than timing lookups that throw
+        if (productService.getProductById((long) rows) == null || userService.getUserById((long) rows) == null) {
+            throw new IllegalStateException("Seeded rows are not visible to the services");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductDetailDTO getProductById() {
+        return productService.getProductById(1L + random.nextInt(rows));
+    }
+
+    @Benchmark
+    public CursorPageDTO<ProductBasicDTO> getProductsPage() {
+        return productService.getProductsAfter(null, ProductService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<ProductBasicDTO> getAllProductsBasic() {
+        return productService.getAllProductsBasic();
+    }
+
+    @Benchmark
+    public UserResponse getUserById() {
+        return userService.getUserById(1L + random.nextInt(rows));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<UserResponse> getAllUsers() {
+        return userService.getAllUsers();
+    }
+}
@@ -0,0 +1,272 @@
+package com.socialhub.catalogimport;
+
+import com.socialhub.config.CacheConfiguration;
+import com.socialhub.dto.ImportJobDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.dto.ProductSearchHitDTO;
+import com.socialhub.event.ProductBatchChangedEvent;
+import com.socialhub.event.ProductChangedEvent;
+import com.socialhub.exception.BadRequestException;
+import com.socialhub.model.ImportJob;
+import com.socialhub.model.Product;
+import com.socialhub.repository.ProductRepository;
+import com.socialhub.service.ProductSearchIndex;
+import com.socialhub.service.ProductService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Tiny chunks and batches, so a few dozen rows already span several of each
+@SpringBootTest(properties = {
+        "app.import.dir=target/import-test/uploads",
+        "app.import.source-dir=target/import-test/source",
+        "app.import.chunk-size=200B",
+        "app.import.batch-size=3"})
+@ActiveProfiles("test")
+class CatalogImportServiceTest {
+    private static final Path SOURCE = Path.of("target/import-test/source");
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ImportEvents importEvents;
+
+    // Import chunks run on their own threads, which @RecordApplicationEvents does not see
+    static class ImportEvents {
+        private final List<Object> published = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        public void onProductChanged(ProductChangedEvent event) {
+            published.add(event);
+        }
+
+        @EventListener
+        public void onProductsChanged(ProductBatchChangedEvent event) {
+            published.add(event);
+        }
+    }
+
+    @TestConfiguration
+    static class EventCapture {
+        @Bean
+        ImportEvents importEvents() {
+            return new ImportEvents();
+        }
+    }
+
+    @BeforeEach
+    void createSourceDirectory() throws IOException {
+        Files.createDirectories(SOURCE);
+    }
+
+    @Test
+    void csvRowsAreUpsertedAndRejectedRowsReported() throws Exception {
+        Long lampId = productService.createProduct(new ProductDetailDTO(null, "Lamp", "Floor lamp", 40, 1, null)).getId();
+        StringBuilder csv = new StringBuilder("id,name,description,price,quantity,color\n")
+                .append(lampId).append(",Lamp v2,\"Desk lamp, \"\"LED\"\"\",45.5,3,red\n")
+                .append(",Chair,\"Wooden\nchair\",80,12,\n")
+                .append(",,Nameless,1,1,\n")
+                .append(",Table,Oak,-5,2,\n")
+                .append(",Shelf,Pine,abc,2,\n");
+        for (int i = 0; i < 40; i++) {
+            csv.append(",Import item ").append(i).append(",Row ").append(i).append(',').append(i).append(".25,").append(i).append(",\n");
+        }
+        Files.writeString(SOURCE.resolve("catalog.csv"), csv);
+
+        ImportJobDTO job = awaitFinished(catalogImportService.importFile("catalog.csv", null).getId());
+
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(job.getChunks()).isGreaterThan(1).isEqualTo(job.getChunksDone());
+        assertThat(job.getProcessedBytes()).isEqualTo(job.getTotalBytes());
+        assertThat(job.getRowsImported()).isEqualTo(42);
+        assertThat(job.getRowsFailed()).isEqualTo(3);
+        assertThat(job.getErrors()).hasSize(3)
+                .anyMatch(error -> error.endsWith("name must not be blank"))
+                .anyMatch(error -> error.endsWith("price must be greater than or equal to 0"))
+                .anyMatch(error -> error.endsWith("price is not a number"));
+
+        ProductDetailDTO lamp = productService.getProductById(lampId);
+        assertThat(lamp.getName()).isEqualTo("Lamp v2");
+        assertThat(lamp.getDescription()).isEqualTo("Desk lamp, \"LED\"");
+        assertThat(lamp.getPrice()).isEqualTo(45.5);
+        assertThat(productRepository.findByName("Chair")).singleElement()
+                .extracting(Product::getDescription).isEqualTo("Wooden\nchair");
+        assertThat(productRepository.findByName("Import item 7")).singleElement()
+                .satisfies(product -> assertThat(product.getPrice()).isEqualTo(7.25));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from product where name like 'Import item %'", Long.class))
+                .isEqualTo(40);
+    }
+
+    @Test
+    void eachChunkPublishesOneEventForAllItsRows() throws Exception {
+        StringBuilder csv = new StringBuilder("name,price,quantity\n");
+        for (int i = 0; i < 30; i++) {
+            csv.append("Bulk kettle ").append(i).append(',').append(i).append(",1\n");
+        }
+        Files.writeString(SOURCE.resolve("bulk.csv"), csv);
+        importEvents.published.clear();
+
+        ImportJobDTO job = awaitFinished(catalogImportService.importFile("bulk.csv", null).getId());
+
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(importEvents.published).hasSize(job.getChunks()).allSatisfy(event ->
+                assertThat(event).isInstanceOf(ProductBatchChangedEvent.class));
+        assertThat(importEvents.published).flatMap(event -> ((ProductBatchChangedEvent) event).changes())
+                .hasSize(30)
+                .allSatisfy(change -> assertThat(change.type()).isEqualTo(ProductChangedEvent.Type.CREATED));
+        assertThat(productSearchIndex.search("kettle", null, null, 50).getHits())
+                .extracting(ProductSearchHitDTO::getName).hasSize(30);
+    }
+
+    @Test
+    void reimportedProductsCarryTheirTypeAndVersion() throws Exception {
+        Long deletedId = productService.createProduct(new ProductDetailDTO(null, "Gone teapot", null, 10, 1, null)).getId();
+        productService.deleteProduct(deletedId);
+        Long keptId = productService.createProduct(new ProductDetailDTO(null, "Kept teapot", null, 10, 1, null)).getId();
+        Files.writeString(SOURCE.resolve("reimport.csv"), "id,name,price,quantity\n"
+                + deletedId + ",Back teapot,12,2\n" + keptId + ",Kept teapot v2,11,1\n");
+        importEvents.published.clear();
+
+        assertThat(awaitFinished(catalogImportService.importFile("reimport.csv", null).getId()).getStatus())
+                .isEqualTo("COMPLETED");
+
+        List<ProductChangedEvent> changes = importEvents.published.stream()
+                .flatMap(event -> ((ProductBatchChangedEvent) event).changes().stream())
+                .toList();
+        assertThat(changes).extracting(ProductChangedEvent::productId, ProductChangedEvent::type).containsExactly(
+                tuple(deletedId, ProductChangedEvent.Type.CREATED), tuple(keptId, ProductChangedEvent.Type.UPDATED));
+        for (ProductChangedEvent change : changes) {
+            assertThat(change.product().getVersion()).isEqualTo(jdbcTemplate.queryForObject(
+                    "select version from product where id = ?", Long.class, change.productId()));
+        }
+        // The index had the deleted product marked as deleted, the re-import brings it back
+        assertThat(productSearchIndex.search("teapot", null, null, 10).getHits())
+                .extracting(ProductSearchHitDTO::getName).containsExactlyInAnyOrder("Back teapot", "Kept teapot v2");
+    }
+
+    @Test
+    void importUpdatesOnlyItsOwnProductsInTheCache() throws Exception {
+        ProductDetailDTO gone = productService.createProduct(new ProductDetailDTO(null, "Gone mug", null, 5, 1, null));
+        productService.deleteProduct(gone.getId());
+        Long backId = productService.createProduct(new ProductDetailDTO(null, "Back mug", null, 5, 1, null)).getId();
+        productService.deleteProduct(backId);
+        Files.writeString(SOURCE.resolve("mugs.csv"), "id,name,price,quantity\n" + backId + ",Back mug v2,6,3\n");
+
+        assertThat(awaitFinished(catalogImportService.importFile("mugs.csv", null).getId()).getStatus())
+                .isEqualTo("COMPLETED");
+
+        assertThat(products().get(backId, ProductDetailDTO.class))
+                .extracting(ProductDetailDTO::getName).isEqualTo("Back mug v2");
+        // A reader that loaded the other product before its delete puts it last, its tombstone is still there
+        products().put(gone.getId(), gone);
+        assertThatThrownBy(() -> productService.getProductById(gone.getId())).isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    void malformedNdjsonLinesAreSkipped() throws Exception {
+        String ndjson = """
+                {"name":"Pen","price":1.5,"quantity":100,"extra":{"tags":["a","b"]}}
+                {"name":"Broken",
+                {"name":"Ink","description":null,"price":3,"quantity":7}
+                [1,2]
+                {"name":"Paper","price":"cheap","quantity":1}
+                """;
+
+        ImportJobDTO started = catalogImportService.importUpload(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ImportJob.Format.NDJSON);
+        ImportJobDTO job = awaitFinished(started.getId());
+
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(job.getRowsImported()).isEqualTo(2);
+        assertThat(job.getRowsFailed()).isEqualTo(3);
+        assertThat(productRepository.findByName("Ink")).singleElement().extracting(Product::getQuantity).isEqualTo(7);
+        // The spooled upload is gone once the import completed
+        assertThat(Path.of(job.getSource())).doesNotExist();
+    }
+
+    @Test
+    void resumeRunsOnlyTheChunksThatAreNotDone() throws Exception {
+        StringBuilder csv = new StringBuilder("id,name,price,quantity\n");
+        for (int i = 1; i <= 60; i++) {
+            csv.append(900_000 + i).append(",Resumable ").append(i).append(",9.99,5\n");
+        }
+        Files.writeString(SOURCE.resolve("resumable.csv"), csv);
+        long id = awaitFinished(catalogImportService.importFile("resumable.csv", ImportJob.Format.CSV).getId()).getId();
+
+        // As if the odd chunks had not committed when the instance went down
+        jdbcTemplate.update("update product set quantity = -1 where id between 900001 and 900060");
+        jdbcTemplate.update("update import_chunk set done = false, rows_imported = 0 where job_id = ? and mod(chunk_index, 2) = 1", id);
+        jdbcTemplate.update("update import_job set status = 'INTERRUPTED' where id = ?", id);
+        Long kept = jdbcTemplate.queryForObject("select sum(rows_imported) from import_chunk where job_id = ? and done = true", Long.class, id);
+        assertThat(kept).isBetween(1L, 59L);
+
+        ImportJobDTO job = awaitFinished(catalogImportService.resume(id).getId());
+
+        assertThat(job.getStatus()).isEqualTo("COMPLETED");
+        assertThat(job.getRowsImported()).isEqualTo(60);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from product where id between 900001 and 900060 and quantity = -1",
+                Long.class)).isEqualTo(kept);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from product where id between 900001 and 900060 and quantity = 5",
+                Long.class)).isEqualTo(60 - kept);
+        assertThatThrownBy(() -> catalogImportService.resume(id)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void pathsOutsideTheSourceDirectoryAreRejected() {
+        assertThatThrownBy(() -> catalogImportService.importFile("../../../pom.xml", ImportJob.Format.CSV))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private Cache products() {
+        return cacheManager.getCache(CacheConfiguration.PRODUCTS);
+    }
+
+    private ImportJobDTO awaitFinished(long id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        ImportJobDTO job = catalogImportService.getJob(id);
+        while ("RUNNING".equals(job.getStatus())) {
+            assertThat(System.nanoTime()).as("import %d still running", id).isLessThan(deadline);
+            Thread.sleep(50);
+            job = catalogImportService.getJob(id);
+        }
+        return job;
+    }
+}
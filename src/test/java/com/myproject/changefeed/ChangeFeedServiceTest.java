@@ -0,0 +1,95 @@
+package com.socialhub.changefeed;
+
+import com.socialhub.dto.UserRequest;
+import com.socialhub.dto.UserResponse;
+import com.socialhub.service.UserService;
+import com.socialhub.dto.ChangeDTO;
+import com.socialhub.dto.ChangeFeedDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = "app.changes.settle-ms=0")
+@ActiveProfiles("test")
+class ChangeFeedServiceTest {
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String start;
+
+    @BeforeEach
+    void takeHead() {
+        start = changeFeedService.head().getCursor();
+    }
+
+    @Test
+    void repeatedChangesToOneProductAreCompactedToTheLatest() {
+        ProductDetailDTO created = productService.createProduct(new ProductDetailDTO(null, "Lamp", "Desk lamp", 20, 5, null));
+        ProductDetailDTO renamed = new ProductDetailDTO(null, "Lamp v2", "Desk lamp", 25, 5, null);
+        productService.updateProduct(created.getId(), renamed, null);
+        productService.updateProduct(created.getId(), renamed, null);
+        UserResponse user = userService.createUser(new UserRequest("Ada", "ada@example.com", "secret"));
+
+        ChangeFeedDTO feed = changeFeedService.read(start, null, 100);
+
+        assertThat(feed.getChanges())
+                .extracting(ChangeDTO::getEntity, ChangeDTO::getId, ChangeDTO::getType)
+                .containsExactly(tuple("product", created.getId(), "CREATED"), tuple("user", user.getId(), "CREATED"));
+        assertThat(feed.getChanges().get(0).getData()).contains("\"Lamp v2\"");
+        assertThat(feed.isHasMore()).isFalse();
+    }
+
+    @Test
+    void cursorResumesAfterTheLastDeliveredChange() {
+        ProductDetailDTO first = productService.createProduct(new ProductDetailDTO(null, "A", "first", 1, 1, null));
+        ChangeFeedDTO before = changeFeedService.read(start, null, 100);
+
+        productService.deleteProduct(first.getId());
+        ChangeFeedDTO after = changeFeedService.read(before.getCursor(), null, 100);
+
+        assertThat(after.getChanges())
+                .extracting(ChangeDTO::getId, ChangeDTO::getType, ChangeDTO::getData)
+                .containsExactly(tuple(first.getId(), "DELETED", null));
+        assertThat(changeFeedService.read(after.getCursor(), null, 100).getChanges()).isEmpty();
+    }
+
+    @Test
+    void entityFilterStillMovesTheCursorPastOtherEntities() {
+        userService.createUser(new UserRequest("Grace", "grace@example.com", "secret"));
+
+        ChangeFeedDTO products = changeFeedService.read(start, "product", 100);
+
+        assertThat(products.getChanges()).isEmpty();
+        assertThat(products.getCursor()).isNotEqualTo(start);
+    }
+
+    @Test
+    void rolledBackMutationsAreNotRecorded() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            productService.createProduct(new ProductDetailDTO(null, "Ghost", "never committed", 1, 1, null));
+            status.setRollbackOnly();
+        });
+
+        assertThat(changeFeedService.read(start, null, 100).getChanges()).isEmpty();
+    }
+}
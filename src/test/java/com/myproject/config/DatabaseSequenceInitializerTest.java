@@ -0,0 +1,43 @@
+package com.socialhub.config;
+
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.db.sync-sequences=true")
+@ActiveProfiles("test")
+class DatabaseSequenceInitializerTest {
+
+    @Autowired
+    private DatabaseSequenceInitializer databaseSequenceInitializer;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sequencesMovePastRowsInsertedWithoutThem() {
+        // A row written by hand, e.g. from a dump, far ahead of product_seq
+        long planted = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from product", Long.class) + 1_000;
+        jdbcTemplate.update("insert into product (id, name, description, price, quantity, version) "
+                + "values (?, 'Planted', 'Inserted without the sequence', 1, 1, 0)", planted);
+
+        databaseSequenceInitializer.initializeSequences();
+
+        Long created = productService.createProduct(new ProductDetailDTO(null, "After sync", null, 2, 2, null)).getId();
+        assertThat(created).isGreaterThan(planted);
+        long sequenceValue = jdbcTemplate.queryForObject("select nextval('product_seq')", Long.class);
+
+        // Running it again never moves a sequence backwards
+        databaseSequenceInitializer.initializeSequences();
+        assertThat(jdbcTemplate.queryForObject("select nextval('product_seq')", Long.class)).isGreaterThan(sequenceValue);
+    }
+}
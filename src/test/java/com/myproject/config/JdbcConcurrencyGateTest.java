@@ -0,0 +1,45 @@
+package com.socialhub.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.jdbc-gate.enabled=true",
+        "app.jdbc-gate.permits=3"
+})
+@ActiveProfiles("test")
+class JdbcConcurrencyGateTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void poolIsGatedOnceAndMetersNameIt() throws Exception {
+        assertThat(dataSource).isInstanceOf(JdbcConcurrencyGate.class);
+        assertThat(((JdbcConcurrencyGate) dataSource).getTargetDataSource()).isInstanceOf(HikariDataSource.class);
+
+        try (Connection held = dataSource.getConnection()) {
+            assertThat(meterRegistry.get("jdbc.gate.permits.in-use").tag("pool", "dataSource").gauge().value())
+                    .isEqualTo(1);
+        }
+        assertThat(jdbcTemplate.queryForObject("select 1", Integer.class)).isEqualTo(1);
+        assertThat(meterRegistry.get("jdbc.gate.permits.in-use").tag("pool", "dataSource").gauge().value()).isZero();
+        assertThat(meterRegistry.find("jdbc.gate.wait").timers()).hasSize(1);
+    }
+}
@@ -0,0 +1,139 @@
+package com.socialhub.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.repository.ProductRepository;
+import com.socialhub.service.ProductService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class VersionedProductCacheTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void putOfAnOlderVersionIsDropped() {
+        ProductDetailDTO created = productService.createProduct(new ProductDetailDTO(null, "Cached lamp", null, 10, 5, null));
+        ProductDetailDTO updated = productService.updateProduct(created.getId(),
+                new ProductDetailDTO(null, "Cached lamp v2", null, 11, 5, null), null);
+
+        // A reader that loaded the product before the update committed puts its copy last
+        products().put(created.getId(), created);
+
+        assertThat(productService.getProductById(created.getId()).getVersion()).isEqualTo(updated.getVersion());
+        assertThat(productService.getProductById(created.getId()).getName()).isEqualTo("Cached lamp v2");
+    }
+
+    @Test
+    void stockChangesReplaceTheCachedProduct() {
+        Long id = productService.createProduct(new ProductDetailDTO(null, "Stocked lamp", null, 10, 5, null)).getId();
+        ProductDetailDTO before = productService.getProductById(id);
+
+        assertThat(productService.takeStock(id, 2)).isTrue();
+        products().put(id, before);
+
+        assertThat(productService.getProductById(id).getQuantity()).isEqualTo(3);
+    }
+
+    @Test
+    void deletedProductIsNotCachedAgain() {
+        ProductDetailDTO created = productService.createProduct(new ProductDetailDTO(null, "Deleted lamp", null, 10, 5, null));
+
+        productService.deleteProduct(created.getId());
+        products().put(created.getId(), created);
+
+        assertThatThrownBy(() -> productService.getProductById(created.getId()))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    void reinstatedProductReplacesTheTombstone() {
+        VersionedProductCache cache = new VersionedProductCache("products", Caffeine.newBuilder().build(), true);
+        cache.put(1L, new ProductDetailDTO(1L, "Returning lamp", null, 10, 5, 3L));
+        cache.evict(1L);
+
+        ProductDetailDTO recreated = new ProductDetailDTO(1L, "Returning lamp", null, 12, 1, 0L);
+        cache.put(1L, recreated);
+        assertThat(cache.get(1L)).isNull();
+
+        cache.reinstate(1L, recreated);
+        assertThat(cache.get(1L, ProductDetailDTO.class)).isEqualTo(recreated);
+        // Over a cached product it is a plain put and keeps the newer version
+        cache.reinstate(1L, new ProductDetailDTO(1L, "Returning lamp", null, 10, 5, 3L));
+        cache.reinstate(1L, recreated);
+        assertThat(cache.get(1L, ProductDetailDTO.class).getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void concurrentUpdatesAndReadsLeaveTheLatestVersionCached() throws Exception {
+        Long id = productService.createProduct(new ProductDetailDTO(null, "Busy lamp", null, 10, 5, null)).getId();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> readers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(9)) {
+            for (int i = 0; i < 8; i++) {
+                readers.add(executor.submit(() -> {
+                    while (writing.get()) {
+                        // What a cache miss does: load, then put, racing the writer's commits and puts
+                        productRepository.findDetailById(id).ifPresent(loaded -> products().put(id, loaded));
+                    }
+                }));
+            }
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    productService.updateProduct(id, new ProductDetailDTO(null, "Busy lamp " + i, null, 10 + i, 5, null), null);
+                    if (i % 10 == 0) {
+                        productService.takeStock(id, 1);
+                        productService.returnStock(id, 1);
+                    }
+                }
+            });
+            try {
+                writer.get();
+            } finally {
+                writing.set(false);
+            }
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        }
+
+        Long committed = jdbcTemplate.queryForObject("select version from product where id = ?", Long.class, id);
+        assertThat(products().get(id, ProductDetailDTO.class)).isNotNull()
+                .satisfies(cached -> {
+                    assertThat(cached.getVersion()).isEqualTo(committed);
+                    assertThat(cached.getName()).isEqualTo("Busy lamp 199");
+                });
+    }
+
+    private Cache products() {
+        return cacheManager.getCache(CacheConfiguration.PRODUCTS);
+    }
+}
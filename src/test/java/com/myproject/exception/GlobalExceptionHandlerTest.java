@@ -0,0 +1,149 @@
+package com.socialhub.exception;
+
+import com.socialhub.controller.EntityTags;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.model.Product;
+import com.socialhub.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Status codes as the client sees them, through the real filter chain and controller advice
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(GlobalExceptionHandlerTest.FailingController.class)
+class GlobalExceptionHandlerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void invalidCursorIsABadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/products/scroll").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid cursor"));
+    }
+
+    @Test
+    void tooManyIdsIsABadRequest() throws Exception {
+        String ids = LongStream.rangeClosed(1, 501).mapToObj(Long::toString).collect(Collectors.joining(","));
+        mockMvc.perform(get("/api/v1/products").param("ids", ids))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unknownProductIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/v1/products/{id}", 987_654_321L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void libraryArgumentErrorsAreNotEchoed() {
+        ResponseEntity<?> response = new GlobalExceptionHandler()
+                .handleIllegalArgument(new IllegalArgumentException("Unexpected char 0x0a at 4 in Content-Type"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).isEqualTo(Map.of("error", "Invalid request"));
+    }
+
+    @Test
+    void exceptionsWithoutAMessageGetAFixedText() {
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+        assertThat(handler.handleBadRequest(new BadRequestException(null)).getBody())
+                .isEqualTo(Map.of("error", "Invalid request"));
+        assertThat(handler.handleNotFound(new ResourceNotFoundException(null)).getBody())
+                .isEqualTo(Map.of("error", "Resource not found"));
+    }
+
+    @Test
+    void staleIfMatchIsAFailedPrecondition() throws Exception {
+        ProductDetailDTO product = productService.createProduct(new ProductDetailDTO(null, "Etag lamp", null, 30, 4, null));
+
+        mockMvc.perform(put("/api/v1/products/{id}", product.getId())
+                        .header(HttpHeaders.IF_MATCH, EntityTags.of(product.getVersion() + 1))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Etag lamp v2\",\"price\":31,\"quantity\":4}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void concurrentUpdateIsAConflict() throws Exception {
+        mockMvc.perform(get("/test/failures/{kind}", "optimistic-lock"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void reservingMoreThanIsInStockIsAConflict() throws Exception {
+        Long id = productService.createProduct(new ProductDetailDTO(null, "Scarce lamp", null, 30, 2, null)).getId();
+
+        mockMvc.perform(post("/api/v1/products/{id}/reserve", id).param("quantity", "3"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/v1/products/{id}/reserve", id).param("quantity", "2"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void fullWriteQueueIsTooManyRequestsWithRetryAfter() throws Exception {
+        mockMvc.perform(get("/test/failures/{kind}", "write-queue-full"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    void purgedChangeFeedCursorIsGone() throws Exception {
+        mockMvc.perform(get("/test/failures/{kind}", "cursor-expired"))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    void noDatabaseConnectionIsServiceUnavailable() throws Exception {
+        mockMvc.perform(get("/test/failures/{kind}", "no-connection"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    // Raises the exceptions that are hard to provoke through the real endpoints
+    @RestController
+    static class FailingController {
+
+        @GetMapping("/test/failures/{kind}")
+        void fail(@PathVariable String kind) {
+            throw switch (kind) {
+                case "optimistic-lock" -> new ObjectOptimisticLockingFailureException(Product.class, 1L);
+                case "write-queue-full" -> new WriteBehindQueueFullException("Write queue is full");
+                case "cursor-expired" -> new CursorExpiredException("Cursor is older than the retained change log");
+                case "no-connection" -> new CannotCreateTransactionException("Could not open JDBC Connection");
+                default -> new IllegalStateException("Unknown failure " + kind);
+            };
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.socialhub.json;
+
+import com.socialhub.dto.UserResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The hand-written serializers must produce exactly what Jackson's bean serializers produce
+class CatalogJsonModuleTest {
+    private final ObjectMapper beanMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper moduleMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new CatalogJsonModule()).build();
+
+    @Test
+    void productBasicMatchesBeanSerializer() throws Exception {
+        assertSameJson(List.of(new ProductBasicDTO(1L, "Lamp \"deluxe\"", 19.99), new ProductBasicDTO(null, null, 0)));
+    }
+
+    @Test
+    void productDetailMatchesBeanSerializerAndLeavesOutVersion() throws Exception {
+        List<ProductDetailDTO> products = List.of(new ProductDetailDTO(7L, "Chair", "Wooden\nchair", 45.5, 3, 12L),
+                new ProductDetailDTO(8L, null, null, 1e-3, 0, null));
+
+        assertSameJson(products);
+        assertThat(moduleMapper.writeValueAsString(products)).doesNotContain("version");
+    }
+
+    @Test
+    void userResponseMatchesBeanSerializer() throws Exception {
+        assertSameJson(List.of(new UserResponse(1L, "Ada", "ada@example.com", 4L), new UserResponse(2L, "Grace", null, null)));
+    }
+
+    private void assertSameJson(Object value) throws Exception {
+        assertThat(moduleMapper.writeValueAsString(value)).isEqualTo(beanMapper.writeValueAsString(value));
+    }
+}
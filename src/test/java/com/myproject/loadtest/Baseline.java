@@ -0,0 +1,83 @@
+package com.socialhub.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Stored results per workload that later runs are compared against. Only meaningful on the machine that recorded
+// them, record a new one with -Dloadtest.update-baseline=true after an intended change in performance.
+public final class Baseline {
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<String, Entry> entries;
+
+    public record Entry(double rate, double throughput, double p50Millis, double p99Millis, double errorRate) {
+
+        static Entry of(FixedRateLoad.Result result) {
+            return new Entry(result.rate(), result.throughput(), result.percentileMillis(50), result.percentileMillis(99),
+                    result.errorRate());
+        }
+    }
+
+    private Baseline(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    public static Baseline empty() {
+        return new Baseline(new TreeMap<>());
+    }
+
+    public static Baseline load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return empty();
+        }
+        return new Baseline(new TreeMap<>(MAPPER.readValue(file.toFile(), new TypeReference<Map<String, Entry>>() {
+        })));
+    }
+
+    public void save(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        MAPPER.writeValue(file.toFile(), entries);
+    }
+
+    public Entry get(String workload) {
+        return entries.get(workload);
+    }
+
+    public void put(String workload, FixedRateLoad.Result result) {
+        entries.put(workload, Entry.of(result));
+    }
+
+    // Empty when the result is within the tolerances, p99 may grow by maxP99Increase and throughput drop by
+    // maxThroughputDrop (both fractions of the baseline); a run at a different rate is not compared
+    public List<String> regressions(String workload, FixedRateLoad.Result result, double maxP99Increase,
+                                    double maxThroughputDrop, double maxErrorRate) {
+        List<String> regressions = new ArrayList<>();
+        if (result.errorRate() > maxErrorRate) {
+            regressions.add(String.format("%s: error rate %.2f%% is above %.2f%%", workload, result.errorRate() * 100,
+                    maxErrorRate * 100));
+        }
+        Entry baseline = entries.get(workload);
+        if (baseline == null || baseline.rate() != result.rate()) {
+            return regressions;
+        }
+        double p99 = result.percentileMillis(99);
+        if (p99 > baseline.p99Millis() * (1 + maxP99Increase)) {
+            regressions.add(String.format("%s: p99 %.2f ms is more than %.0f%% above the baseline %.2f ms", workload, p99,
+                    maxP99Increase * 100, baseline.p99Millis()));
+        }
+        if (result.throughput() < baseline.throughput() * (1 - maxThroughputDrop)) {
+            regressions.add(String.format("%s: throughput %.0f req/s is more than %.0f%% below the baseline %.0f req/s",
+                    workload, result.throughput(), maxThroughputDrop * 100, baseline.throughput()));
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,100 @@
+package com.socialhub.loadtest;
+
+import com.socialhub.benchmark.LoadGenerator;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop load generator: requests start on a fixed schedule whether or not earlier ones returned, each on its own
+// virtual thread. Latency is measured from the scheduled start, so a stalled server shows up in the percentiles
+// instead of just slowing the generator down (coordinated omission). Requests that would exceed maxInFlight are
+// dropped and counted.
+public final class FixedRateLoad {
+
+    private FixedRateLoad() {
+    }
+
+    public record Result(String name, double rate, long completed, long errors, long dropped, double seconds,
+                         Histogram latencyNanos) {
+
+        public double throughput() {
+            return completed / seconds;
+        }
+
+        public double percentileMillis(double percentile) {
+            return latencyNanos.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        // Errors and dropped requests per scheduled request
+        public double errorRate() {
+            long scheduled = completed + dropped;
+            return scheduled == 0 ? 0 : (double) (errors + dropped) / scheduled;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("loadtest name=%s rate=%.0f completed=%d errors=%d dropped=%d req/s=%.0f p50ms=%.2f "
+                            + "p99ms=%.2f p999ms=%.2f maxms=%.2f",
+                    name, rate, completed, errors, dropped, throughput(), percentileMillis(50), percentileMillis(99),
+                    percentileMillis(99.9), latencyNanos.getMaxValue() / 1e6);
+        }
+    }
+
+    public static Result run(String name, double ratePerSecond, Duration duration, int maxInFlight,
+                             LoadGenerator.Request request) {
+        Recorder recorder = new Recorder(3);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long dropped = 0;
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long iteration = 0; ; iteration++) {
+                long scheduled = start + (long) (iteration * intervalNanos);
+                if (scheduled >= end) {
+                    break;
+                }
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (!inFlight.tryAcquire()) {
+                    dropped++;
+                    continue;
+                }
+                long current = iteration;
+                executor.execute(() -> {
+                    try {
+                        if (isError(request.send(0, current))) {
+                            errors.increment();
+                        }
+                    } catch (Exception ex) {
+                        errors.increment();
+                    } finally {
+                        recorder.recordValue(System.nanoTime() - scheduled);
+                        completed.increment();
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new Result(name, ratePerSecond, completed.sum(), errors.sum(), dropped, seconds,
+                recorder.getIntervalHistogram());
+    }
+
+    // Any status a correct server would not answer counts, so a workload hitting unmapped paths or unknown ids fails
+    // the error-rate gate. 409 is the expected answer to reserving stock that has run out.
+    static boolean isError(int status) {
+        return status < 200 || status >= 400 && status != 409;
+    }
+}
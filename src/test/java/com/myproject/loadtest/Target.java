@@ -0,0 +1,79 @@
+package com.socialhub.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// The application under test plus the request bodies the workloads send to it
+public final class Target {
+    static final int BULK_BATCH_SIZE = 1_000;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final int products;
+    private final int users;
+    // Keeps emails unique across runs against the same database
+    private final long runId = System.currentTimeMillis();
+
+    public Target(int port, int products, int users) {
+        this.baseUrl = "http://localhost:" + port;
+        this.products = products;
+        this.users = users;
+    }
+
+    public int send(HttpRequest request) throws Exception {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    long productId(long iteration) {
+        return 1 + Math.floorMod(iteration * 104_729L, (long) products);
+    }
+
+    long userId(long iteration) {
+        return 1 + Math.floorMod(iteration * 104_729L, (long) users);
+    }
+
+    HttpRequest get(String path) {
+        return builder(path).GET().build();
+    }
+
+    HttpRequest post(String path, String json) {
+        return builder(path).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    HttpRequest put(String path, String json) {
+        return builder(path).header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    String product(long iteration) {
+        return "{\"name\":\"Product " + iteration + "\",\"description\":\"Synthetic product written under load\",\"price\":"
+                + (1 + iteration % 500) + ",\"quantity\":" + (50 + iteration % 50) + "}";
+    }
+
+    String products(long iteration, int count) {
+        StringBuilder json = new StringBuilder(count * 100).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(product(iteration * count + i));
+        }
+        return json.append(']').toString();
+    }
+
+    String user(long iteration) {
+        return "{\"name\":\"Load user " + iteration + "\",\"email\":\"load-" + runId + "-" + iteration
+                + "@example.com\",\"password\":\"secret\"}";
+    }
+
+    private HttpRequest.Builder builder(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+    }
+}
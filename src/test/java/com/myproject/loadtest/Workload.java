@@ -0,0 +1,70 @@
+package com.socialhub.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
+
+// Named request mixes. Which request an iteration sends, and for which id, follows from the iteration number alone,
+// so every run of a mix sends the same sequence.
+public enum Workload {
+    READ_HEAVY(1_000, List.of(
+            new Operation(55, (target, i) -> target.get("/api/v1/products/" + target.productId(i))),
+            new Operation(15, (target, i) -> target.get("/api/users/" + target.userId(i))),
+            new Operation(10, (target, i) -> target.get("/api/v1/products/page?page=" + i % 50 + "&size=20")),
+            new Operation(10, (target, i) -> target.get("/api/v1/products?ids=" + target.productId(i) + ","
+                    + target.productId(i + 1) + "," + target.productId(i + 2))),
+            new Operation(5, (target, i) -> target.get("/api/v1/products/scroll?size=50")),
+            new Operation(5, (target, i) -> target.put("/api/v1/products/" + target.productId(i), target.product(i))))),
+    WRITE_HEAVY(300, List.of(
+            new Operation(35, (target, i) -> target.put("/api/v1/products/" + target.productId(i), target.product(i))),
+            new Operation(20, (target, i) -> target.post("/api/v1/products", target.product(i))),
+            new Operation(15, (target, i) -> target.post("/api/users", target.user(i))),
+            new Operation(10, (target, i) -> target.post("/api/v1/products/" + target.productId(i) + "/reserve?quantity=1", "")),
+            new Operation(10, (target, i) -> target.post("/api/v1/products/" + target.productId(i) + "/release?quantity=1", "")),
+            new Operation(10, (target, i) -> target.get("/api/v1/products/" + target.productId(i))))),
+    SEARCH(500, List.of(
+            new Operation(50, (target, i) -> target.get("/api/v1/products/search?q=product+" + i % 1_000 + "&limit=20")),
+            new Operation(20, (target, i) -> target.get("/api/v1/products/search?q=synthetic&minPrice=" + i % 500
+                    + "&maxPrice=" + (i % 500 + 50) + "&limit=20")),
+            new Operation(20, (target, i) -> target.get("/api/v1/products/price-range?minPrice=" + i % 900
+                    + "&maxPrice=" + (i % 900 + 10) + "&limit=50")),
+            new Operation(10, (target, i) -> target.get("/api/v1/products/top-priced?limit=20")))),
+    // Each request creates BULK_BATCH_SIZE products through the batch endpoint
+    BULK_IMPORT(5, List.of(
+            new Operation(100, (target, i) -> target.post("/api/v1/products/batch", target.products(i, Target.BULK_BATCH_SIZE)))));
+
+    private final double defaultRate;
+    private final List<Operation> operations;
+    private final int totalWeight;
+
+    record Operation(int weight, BiFunction<Target, Long, HttpRequest> request) {
+    }
+
+    Workload(double defaultRate, List<Operation> operations) {
+        this.defaultRate = defaultRate;
+        this.operations = operations;
+        this.totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    // Requests per second, -Dloadtest.rate overrides it for every mix
+    public double rate() {
+        return Double.parseDouble(System.getProperty("loadtest.rate", Double.toString(defaultRate)));
+    }
+
+    // Name used in the baseline and on the command line, e.g. read-heavy
+    public String id() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    public HttpRequest request(Target target, long iteration) {
+        int bucket = (int) Math.floorMod(iteration * 7_919L, (long) totalWeight);
+        for (Operation operation : operations) {
+            bucket -= operation.weight();
+            if (bucket < 0) {
+                return operation.request().apply(target, iteration);
+            }
+        }
+        throw new IllegalStateException("Weights do not add up");
+    }
+}
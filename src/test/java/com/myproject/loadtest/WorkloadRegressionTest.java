@@ -0,0 +1,130 @@
+package com.socialhub.loadtest;
+
+import com.socialhub.benchmark.CatalogSeeder;
+import com.socialhub.service.ProductSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.abort;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Runs each workload mix at its fixed rate against the application on a seeded embedded database and fails when p99,
+// throughput or the error rate regressed past the stored baseline. mvn -Ploadtest test runs it, see README.
+@Slf4j
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "app.instrumentation.enabled=false"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class WorkloadRegressionTest {
+    private static final int PRODUCTS = Integer.getInteger("loadtest.products", 100_000);
+    private static final int USERS = Integer.getInteger("loadtest.users", 20_000);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.seconds", 30));
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("loadtest.max-in-flight", 2_000);
+    private static final double MAX_P99_INCREASE = Double.parseDouble(System.getProperty("loadtest.max-p99-increase", "0.25"));
+    private static final double MAX_THROUGHPUT_DROP = Double.parseDouble(System.getProperty("loadtest.max-throughput-drop", "0.10"));
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+    private static final boolean UPDATE_BASELINE = Boolean.getBoolean("loadtest.update-baseline");
+    private static final Path BASELINE = Path.of(System.getProperty("loadtest.baseline", "src/test/resources/loadtest/baseline.json"));
+    private static final Path RESULTS = Path.of(System.getProperty("loadtest.results-dir", "target/loadtest"));
+    // Comma-separated workload ids, e.g. read-heavy,search; all when empty
+    private static final List<String> SELECTED = Arrays.stream(System.getProperty("loadtest.workloads", "").split(","))
+            .map(String::trim).filter(id -> !id.isEmpty()).toList();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    private Target target;
+    private Baseline baseline;
+    private Baseline results;
+
+    @BeforeAll
+    void seed() throws IOException {
+        CatalogSeeder.seedProducts(jdbcTemplate, PRODUCTS);
+        CatalogSeeder.seedUsers(jdbcTemplate, USERS);
+        // The index was built at startup, before the seeded rows existed
+        productSearchIndex.build();
+        target = new Target(port, PRODUCTS, USERS);
+        baseline = Baseline.load(BASELINE);
+        results = Baseline.empty();
+        Files.createDirectories(RESULTS);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Workload.class)
+    void workload(Workload workload) throws IOException {
+        assumeTrue(SELECTED.isEmpty() || SELECTED.contains(workload.id()), "not selected");
+
+        FixedRateLoad.run(workload.id() + "-warmup", workload.rate(), WARMUP, MAX_IN_FLIGHT,
+                (client, iteration) -> target.send(workload.request(target, iteration)));
+        // Different iterations than the warmup, so the measured run does not only hit what the warmup cached
+        long offset = (long) (workload.rate() * WARMUP.toSeconds());
+        FixedRateLoad.Result result = FixedRateLoad.run(workload.id(), workload.rate(), DURATION, MAX_IN_FLIGHT,
+                (client, iteration) -> target.send(workload.request(target, offset + iteration)));
+
+        log.info("{}", result);
+        try (PrintStream histogram = new PrintStream(RESULTS.resolve(workload.id() + ".hgrm").toFile())) {
+            result.latencyNanos().outputPercentileDistribution(histogram, 1e6);
+        }
+        results.put(workload.id(), result);
+        results.save(RESULTS.resolve("results.json"));
+
+        if (UPDATE_BASELINE) {
+            baseline.put(workload.id(), result);
+            return;
+        }
+        // The error rate is checked with or without a baseline. Only a rate chosen with -Dloadtest.rate may differ from
+        // the recorded one, such a run is checked for errors alone.
+        Baseline.Entry recorded = baseline.get(workload.id());
+        if (recorded != null && recorded.rate() != result.rate()) {
+            assertThat(System.getProperty("loadtest.rate"))
+                    .as("baseline for %s was recorded at %.0f req/s, record a new one", workload.id(), recorded.rate())
+                    .isNotNull();
+            log.warn("loadtest name={} ran at {} req/s, the baseline at {} req/s: only the error rate is checked",
+                    workload.id(), result.rate(), recorded.rate());
+        }
+        assertThat(baseline.regressions(workload.id(), result, MAX_P99_INCREASE, MAX_THROUGHPUT_DROP, MAX_ERROR_RATE))
+                .as("regressions against %s", BASELINE)
+                .isEmpty();
+        // Reported as skipped rather than passed, so a missing baseline cannot go unnoticed
+        if (recorded == null) {
+            abort(String.format("no baseline for %s in %s: p99 and throughput were not compared, record one on the "
+                    + "machine that runs the load tests with -Dloadtest.update-baseline=true", workload.id(), BASELINE));
+        }
+    }
+
+    @AfterAll
+    void saveBaseline() throws IOException {
+        if (UPDATE_BASELINE) {
+            baseline.save(BASELINE);
+        }
+    }
+}
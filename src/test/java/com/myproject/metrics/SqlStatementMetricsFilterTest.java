@@ -0,0 +1,68 @@
+package com.socialhub.metrics;
+
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.service.ProductService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Both routes run their queries off the request thread: the export on the async executor, the lookup in a loader batch
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.cache.type=none",
+        "app.response-cache.enabled=false",
+        "app.loader.window-micros=1000"
+})
+@ActiveProfiles("test")
+class SqlStatementMetricsFilterTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void statementsOnOtherThreadsCountForTheRequest() throws Exception {
+        Long id = productService.createProduct(new ProductDetailDTO(null, "Counted lamp", null, 10, 1, null)).getId();
+
+        assertThat(get("/api/v1/products/export")).isEqualTo(200);
+        assertThat(get("/api/v1/products/" + id)).isEqualTo(200);
+
+        assertThat(statements("/api/v1/products/export").max()).isPositive();
+        assertThat(statements("/api/v1/products/{id}").max()).isPositive();
+    }
+
+    private int get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // An async request is recorded when it completes, which can be just after the client read the response
+    private DistributionSummary statements(String uri) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        DistributionSummary summary = meterRegistry.find("http.server.requests.sql.statements").tag("uri", uri).summary();
+        while (summary == null && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            summary = meterRegistry.find("http.server.requests.sql.statements").tag("uri", uri).summary();
+        }
+        assertThat(summary).as("statements recorded for %s", uri).isNotNull();
+        return summary;
+    }
+}
@@ -0,0 +1,68 @@
+package com.socialhub.repository;
+
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.model.Product;
+import com.socialhub.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles({"test", "l2cache"})
+class SecondLevelCacheTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void resetStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void lookupsByIdAreCachedAndFollowUpdatesAndDeletes() {
+        Long id = productService.createProduct(new ProductDetailDTO(null, "Kettle", "Steel kettle", 30, 10, null)).getId();
+
+        productRepository.findById(id).orElseThrow();
+        productRepository.findById(id).orElseThrow();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+
+        productService.updateProduct(id, new ProductDetailDTO(null, "Kettle v2", "Steel kettle", 35, 10, null), null);
+        assertThat(productRepository.findById(id)).get().extracting(Product::getName).isEqualTo("Kettle v2");
+
+        // Bulk update statement, Hibernate drops the region instead of updating the entry
+        assertThat(productService.takeStock(id, 3)).isTrue();
+        assertThat(productRepository.findById(id)).get().extracting(Product::getQuantity).isEqualTo(7);
+
+        productService.deleteProduct(id);
+        assertThat(productRepository.findById(id)).isEmpty();
+    }
+
+    @Test
+    void queryResultsAreCachedUntilTheTableChanges() {
+        productService.createProduct(new ProductDetailDTO(null, "Teapot", "Clay teapot", 25, 4, null));
+
+        assertThat(productRepository.findByName("Teapot")).hasSize(1);
+        assertThat(productRepository.findByName("Teapot")).hasSize(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        productService.createProduct(new ProductDetailDTO(null, "Teapot", "Cast iron teapot", 60, 2, null));
+        assertThat(productRepository.findByName("Teapot")).hasSize(2);
+    }
+}
@@ -0,0 +1,72 @@
+package com.socialhub.responsecache;
+
+import com.socialhub.event.ProductChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+    private static final String BODY = "[" + "{\"id\":1,\"name\":\"Product\",\"price\":9.5},".repeat(200) + "{}]";
+
+    private final AtomicInteger rendered = new AtomicInteger();
+    private final FilterChain controller = (request, response) -> {
+        rendered.incrementAndGet();
+        response.setContentType("application/json");
+        response.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+    };
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(Set.of("/api/v1/products"), 1 << 20, 1 << 20,
+            Duration.ofMinutes(1), 1024, 1 << 20, true, new SimpleMeterRegistry());
+
+    @Test
+    void repeatedRequestsAreServedFromTheCacheInTheAcceptedEncoding() throws Exception {
+        MockHttpServletResponse first = get(null);
+        MockHttpServletResponse gzip = get("gzip, deflate");
+        MockHttpServletResponse zstd = get("gzip;q=0.5, zstd");
+
+        assertThat(rendered).hasValue(1);
+        assertThat(first.getContentAsString()).isEqualTo(BODY);
+        assertThat(first.getHeader("Content-Encoding")).isNull();
+        assertThat(gzip.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray())).readAllBytes())
+                .asString(StandardCharsets.UTF_8).isEqualTo(BODY);
+        assertThat(zstd.getHeader("Content-Encoding")).isEqualTo("zstd");
+        assertThat(zstd.getContentAsByteArray().length).isLessThan(BODY.length());
+    }
+
+    @Test
+    void gzipRefusedWithZeroQualityIsNotSent() throws Exception {
+        get(null);
+
+        assertThat(get("gzip;q=0").getHeader("Content-Encoding")).isNull();
+    }
+
+    @Test
+    void productChangeDropsCachedResponses() throws Exception {
+        get(null);
+        filter.onProductChanged(ProductChangedEvent.deleted(1L));
+        get(null);
+
+        assertThat(rendered).hasValue(2);
+    }
+
+    private MockHttpServletResponse get(String acceptEncoding) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products");
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, controller);
+        return response;
+    }
+}
@@ -0,0 +1,117 @@
+package com.socialhub.routing;
+
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.config.JdbcConcurrencyGate;
+import com.socialhub.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two embedded databases stand in for primary and replica. "Replication" is a copy of the primary taken in setUp,
+// after which the replica is changed on purpose so the tests can tell which one answered.
+@SpringBootTest(properties = {
+        "app.datasource.replicas.enabled=true",
+        "app.datasource.replicas.pools[0].name=replica",
+        "app.datasource.replicas.pools[0].url=" + ReplicaRoutingTest.REPLICA_URL,
+        "app.datasource.replicas.pools[0].username=sa",
+        "app.datasource.replicas.max-lag=5s",
+        "app.datasource.replicas.heartbeat-interval-ms=3600000",
+        "app.datasource.replicas.check-interval-ms=3600000",
+        "app.cache.type=none",
+        "app.response-cache.enabled=false",
+        "app.jdbc-gate.enabled=true"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    void replicate() {
+        productService.createProduct(new ProductDetailDTO(null, "Shared lamp", "Desk lamp", 20, 5, null));
+        replicaRouting.writeHeartbeat();
+        replica.execute("drop all objects");
+        for (String statement : jdbcTemplate.queryForList("script", String.class)) {
+            if (!statement.startsWith("--")) {
+                replica.execute(statement);
+            }
+        }
+        replica.update("update product set name = 'Replica copy' where name = 'Shared lamp'");
+        replicaRouting.checkReplicas();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplicaAndWritesToThePrimary() {
+        assertThat(replicaRouting.isInRotation("replica")).isTrue();
+        assertThat(names()).contains("Replica copy").doesNotContain("Shared lamp");
+
+        productService.createProduct(new ProductDetailDTO(null, "Primary only", "Floor lamp", 90, 1, null));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from product where name = 'Primary only'", Integer.class))
+                .isEqualTo(1);
+        assertThat(replica.queryForObject("select count(*) from product where name = 'Primary only'", Integer.class))
+                .isZero();
+        assertThat(names()).doesNotContain("Primary only");
+    }
+
+    @Test
+    void pinnedReadsStayOnThePrimary() {
+        assertThat(ReadRouting.onPrimary(this::names)).contains("Shared lamp").doesNotContain("Replica copy");
+    }
+
+    @Test
+    void laggingReplicaLeavesRotationUntilItCatchesUp() {
+        replica.update("update replica_heartbeat set beat_millis = ?", System.currentTimeMillis() - 60_000);
+        replicaRouting.checkReplicas();
+
+        assertThat(replicaRouting.isInRotation("replica")).isFalse();
+        assertThat(names()).contains("Shared lamp");
+
+        replica.update("update replica_heartbeat set beat_millis = ?", System.currentTimeMillis());
+        replicaRouting.checkReplicas();
+
+        assertThat(replicaRouting.isInRotation("replica")).isTrue();
+        assertThat(names()).contains("Replica copy");
+    }
+
+    @Test
+    void onlyThePrimaryPoolIsGated() {
+        assertThat(dataSource).isNotInstanceOf(JdbcConcurrencyGate.class);
+        assertThat(replicaRouting.primary()).isInstanceOf(JdbcConcurrencyGate.class);
+        assertThat(meterRegistry.find("jdbc.gate.wait").timers())
+                .singleElement()
+                .satisfies(timer -> assertThat(timer.getId().getTag("pool")).isEqualTo("primary"));
+    }
+
+    private List<String> names() {
+        return productService.getProductsPage(PageRequest.of(0, 1000)).map(ProductBasicDTO::getName).getContent();
+    }
+}
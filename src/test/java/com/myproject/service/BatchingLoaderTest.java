@@ -0,0 +1,78 @@
+package com.socialhub.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchingLoaderTest {
+    private final List<Collection<Long>> batches = new CopyOnWriteArrayList<>();
+
+    // Even ids exist, odd ids do not
+    private final Function<Collection<Long>, Map<Long, String>> evenIds = ids -> {
+        batches.add(List.copyOf(ids));
+        return ids.stream().filter(id -> id % 2 == 0).collect(Collectors.toMap(Function.identity(), id -> "v" + id));
+    };
+
+    @Test
+    void concurrentLoadsWithinTheWindowShareOneQuery() throws Exception {
+        try (BatchingLoader<Long, String> loader = new BatchingLoader<>("test", evenIds, 200_000, 1_000, new SimpleMeterRegistry());
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> results = new CopyOnWriteArrayList<>();
+            for (long id = 0; id < 100; id++) {
+                long key = id % 10;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return loader.load(key);
+                }));
+            }
+            start.countDown();
+
+            for (int i = 0; i < results.size(); i++) {
+                String value = results.get(i).get();
+                assertThat(value).isIn(null, "v0", "v2", "v4", "v6", "v8");
+            }
+        }
+
+        // 100 loads of 10 keys, each key queried once
+        assertThat(batches.stream().mapToInt(Collection::size).sum()).isEqualTo(10);
+        assertThat(batches.size()).isLessThan(10);
+    }
+
+    @Test
+    void fullBatchGoesOutWithoutWaitingForTheWindow() {
+        try (BatchingLoader<Long, String> loader = new BatchingLoader<>("test", evenIds, 60_000_000, 4, new SimpleMeterRegistry())) {
+            long started = System.nanoTime();
+
+            Map<Long, String> loaded = loader.loadAll(List.of(1L, 2L, 3L, 4L));
+
+            assertThat(loaded).containsExactly(Map.entry(2L, "v2"), Map.entry(4L, "v4"));
+            assertThat(System.nanoTime() - started).isLessThan(30_000_000_000L);
+        }
+        assertThat(batches).containsExactly(List.of(1L, 2L, 3L, 4L));
+    }
+
+    @Test
+    void failedQueryFailsEveryWaitingLoad() {
+        try (BatchingLoader<Long, String> loader = new BatchingLoader<>("test", ids -> {
+            throw new IllegalStateException("database down");
+        }, 0, 100, new SimpleMeterRegistry())) {
+            assertThatThrownBy(() -> loader.load(1L)).hasMessage("database down");
+            // Nothing stays in flight after a failure
+            assertThatThrownBy(() -> loader.load(1L)).hasMessage("database down");
+        }
+    }
+}
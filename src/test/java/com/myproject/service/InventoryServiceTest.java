@@ -0,0 +1,77 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.exception.BadRequestException;
+import com.socialhub.exception.InsufficientStockException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void stockSplitOverStripesStillCoversAReservation() throws Exception {
+        Long id = productService.createProduct(new ProductDetailDTO(null, "Hot lamp", null, 10, 11, null)).getId();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Many stripes, so the two threads below almost surely get different ones
+        InventoryService inventory = new InventoryService(productService, Set.of(id), 1024, 10, meterRegistry);
+
+        // One thread leases the whole row (1 reserved + 10 leased), another releases 5 into its own stripe
+        onOtherThread(() -> inventory.reserve(id, 1));
+        onOtherThread(() -> inventory.release(id, 5));
+        assertThat(quantity(id)).isZero();
+        assertThat(meterRegistry.get("inventory.leased").tag("product", id.toString()).gauge().value()).isEqualTo(15);
+
+        // No stripe holds 12 and the row is empty, but the stripes do between them
+        inventory.reserve(id, 12);
+        assertThat(meterRegistry.get("inventory.leased").gauge().value()).isEqualTo(3);
+
+        // Stripes and row together
+        jdbcTemplate.update("update product set quantity = 2 where id = ?", id);
+        inventory.reserve(id, 4);
+        assertThat(quantity(id)).isEqualTo(1);
+
+        assertThatThrownBy(() -> inventory.reserve(id, 2)).isInstanceOf(InsufficientStockException.class);
+        inventory.flush();
+        assertThat(quantity(id)).isEqualTo(1);
+    }
+
+    @Test
+    void leaseThatWouldOverflowTakesTheExactQuantity() {
+        Long id = productService.createProduct(new ProductDetailDTO(null, "Huge lease lamp", null, 10, 5, null)).getId();
+        InventoryService inventory = new InventoryService(productService, Set.of(id), 4, Integer.MAX_VALUE,
+                new SimpleMeterRegistry());
+
+        inventory.reserve(id, 2);
+
+        assertThat(quantity(id)).isEqualTo(3);
+        assertThatThrownBy(() -> inventory.reserve(id, Integer.MAX_VALUE - 50)).isInstanceOf(BadRequestException.class);
+        assertThat(quantity(id)).isEqualTo(3);
+    }
+
+    private int quantity(Long id) {
+        return jdbcTemplate.queryForObject("select quantity from product where id = ?", Integer.class, id);
+    }
+
+    private static void onOtherThread(Runnable action) throws InterruptedException {
+        Thread thread = new Thread(action);
+        thread.start();
+        thread.join();
+    }
+}
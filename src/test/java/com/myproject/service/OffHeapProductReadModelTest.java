@@ -0,0 +1,114 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.event.ProductBatchChangedEvent;
+import com.socialhub.event.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "app.read-model=offheap",
+        "app.read-model.dir=target/test-read-model"
+})
+@ActiveProfiles("test")
+class OffHeapProductReadModelTest {
+
+    @Autowired
+    private OffHeapProductReadModel readModel;
+
+    @Autowired
+    private ProductService productService;
+
+    // Other test contexts share the database, their changes never reach this context's columns
+    @BeforeEach
+    void build() {
+        readModel.build();
+    }
+
+    @Test
+    void olderVersionArrivingLateIsDropped() {
+        ProductDetailDTO created = productService.createProduct(new ProductDetailDTO(null, "Column lamp", null, 7_001, 1, null));
+        productService.updateProduct(created.getId(), new ProductDetailDTO(null, "Column lamp v2", null, 7_002, 1, null), null);
+
+        readModel.onProductChanged(ProductChangedEvent.updated(created));
+
+        assertThat(priced(7_000, 7_010)).extracting(ProductBasicDTO::getName).containsExactly("Column lamp v2");
+    }
+
+    @Test
+    void updateArrivingAfterTheDeleteIsDropped() {
+        ProductDetailDTO created = productService.createProduct(new ProductDetailDTO(null, "Gone lamp", null, 7_101, 1, null));
+        productService.deleteProduct(created.getId());
+
+        readModel.onProductChanged(ProductChangedEvent.updated(created));
+
+        assertThat(priced(7_100, 7_110)).isEmpty();
+    }
+
+    @Test
+    void singleAndBatchChangesKeepThePriceOrder() {
+        // Ids and prices no other test uses, the events are made up and never reach the database
+        Random random = new Random(42);
+        Map<Long, ProductDetailDTO> expected = new HashMap<>();
+        Map<Long, Long> versions = new HashMap<>();
+        for (int round = 0; round < 200; round++) {
+            List<ProductChangedEvent> changes = new ArrayList<>();
+            for (int i = random.nextInt(1, 12); i > 0; i--) {
+                long id = 60_000_000L + random.nextInt(40);
+                long version = versions.merge(id, 1L, Long::sum);
+                if (expected.containsKey(id) && random.nextInt(4) == 0) {
+                    expected.remove(id);
+                    changes.add(ProductChangedEvent.deleted(id));
+                } else {
+                    // Few distinct prices, so ties are broken by id
+                    ProductDetailDTO product = new ProductDetailDTO(id, "Merged lamp " + id + "." + version, null,
+                            8_000 + random.nextInt(10), 1, version);
+                    changes.add(expected.put(id, product) == null
+                            ? ProductChangedEvent.created(product) : ProductChangedEvent.updated(product));
+                }
+            }
+            if (changes.size() == 1) {
+                readModel.onProductChanged(changes.getFirst());
+            } else {
+                readModel.onProductsChanged(new ProductBatchChangedEvent(changes));
+            }
+        }
+
+        assertThat(readModel.findByPriceRange(8_000, 8_010, 100))
+                .extracting(ProductBasicDTO::getId, ProductBasicDTO::getName, ProductBasicDTO::getPrice)
+                .containsExactlyElementsOf(expected.values().stream()
+                        .sorted(Comparator.comparing(ProductDetailDTO::getPrice).thenComparing(ProductDetailDTO::getId))
+                        .map(product -> tuple(product.getId(), product.getName(), product.getPrice()))
+                        .toList());
+    }
+
+    @Test
+    void staleChangeInABatchIsDropped() {
+        ProductDetailDTO created = productService.createProduct(new ProductDetailDTO(null, "Batch lamp", null, 7_201, 1, null));
+        ProductDetailDTO updated = productService.updateProduct(created.getId(),
+                new ProductDetailDTO(null, "Batch lamp v2", null, 7_202, 1, null), null);
+
+        readModel.onProductsChanged(new ProductBatchChangedEvent(List.of(
+                ProductChangedEvent.updated(created), ProductChangedEvent.updated(updated), ProductChangedEvent.updated(created))));
+
+        assertThat(priced(7_200, 7_210)).extracting(ProductBasicDTO::getName).containsExactly("Batch lamp v2");
+    }
+
+    private List<ProductBasicDTO> priced(double min, double max) {
+        return readModel.findByPriceRange(min, max, 10);
+    }
+}
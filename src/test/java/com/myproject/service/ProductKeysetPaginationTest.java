@@ -0,0 +1,109 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.CursorPageDTO;
+import com.socialhub.dto.ProductBasicDTO;
+import com.socialhub.exception.BadRequestException;
+import com.socialhub.model.Product;
+import com.socialhub.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductKeysetPaginationTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void clearProducts() {
+        productRepository.deleteAllInBatch();
+    }
+
+    // The work done for one page must not depend on how many rows the table holds
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000})
+    void pageLoadsAtMostPageSizeRowsRegardlessOfTableSize(int rows) {
+        seed(rows);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CursorPageDTO<ProductBasicDTO> first = productService.getProductsAfter(null, 100);
+        CursorPageDTO<ProductBasicDTO> second = productService.getProductsAfter(first.getNextCursor(), 100);
+
+        assertThat(first.getItems()).hasSize(100);
+        assertThat(second.getItems()).hasSize(100);
+        assertThat(second.getItems().get(0).getId()).isGreaterThan(first.getItems().get(99).getId());
+        // Pages are DTO projections, no entity is hydrated however large the table is
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void cursorWalkVisitsEveryRowExactlyOnce() {
+        seed(2_345);
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDTO<ProductBasicDTO> page = productService.getProductsAfter(cursor, 500);
+            page.getItems().forEach(product -> seen.add(product.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(2_345).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void pageSizeIsCapped() {
+        seed(ProductService.MAX_PAGE_SIZE + 10);
+
+        CursorPageDTO<ProductBasicDTO> page = productService.getProductsAfter(null, Integer.MAX_VALUE);
+
+        assertThat(page.getItems()).hasSize(ProductService.MAX_PAGE_SIZE);
+        assertThat(page.getNextCursor()).isNotNull();
+    }
+
+    @Test
+    void tamperedCursorIsRejected() {
+        assertThatThrownBy(() -> productService.getProductsAfter("not-a-cursor", 10))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private void seed(int rows) {
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Product product = new Product();
+            product.setName("Product " + i);
+            product.setDescription("Seeded product " + i);
+            product.setPrice(1 + (i % 1000));
+            product.setQuantity(i % 50);
+            batch.add(product);
+            if (batch.size() == 1_000) {
+                productRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        productRepository.saveAll(batch);
+    }
+}
@@ -0,0 +1,95 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.dto.ProductSearchHitDTO;
+import com.socialhub.dto.ProductSearchResultDTO;
+import com.socialhub.event.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductSearchIndexTest {
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Other test contexts share the database, their changes never reach this context's index
+    @BeforeEach
+    void build() {
+        productSearchIndex.build();
+    }
+
+    @Test
+    void olderVersionArrivingLateIsDropped() {
+        ProductDetailDTO created = productService.createProduct(new ProductDetailDTO(null, "Quokka lamp", null, 10, 1, null));
+        ProductDetailDTO updated = productService.updateProduct(created.getId(),
+                new ProductDetailDTO(null, "Wombat lamp", null, 20, 1, null), null);
+
+        productSearchIndex.onProductChanged(ProductChangedEvent.updated(created));
+
+        assertThat(names("wombat")).containsExactly(updated.getName());
+        assertThat(names("quokka")).isEmpty();
+    }
+
+    @Test
+    void updateArrivingAfterTheDeleteIsDropped() {
+        ProductDetailDTO created = productService.createProduct(new ProductDetailDTO(null, "Numbat lamp", null, 10, 1, null));
+        productService.deleteProduct(created.getId());
+
+        productSearchIndex.onProductChanged(ProductChangedEvent.updated(created));
+
+        assertThat(names("numbat")).isEmpty();
+    }
+
+    @Test
+    void browsingCountsEveryProductInTheRange() {
+        for (double price : new double[]{49.99, 50, 99.5, 100, 260, 999, 1000, 4500}) {
+            productService.createProduct(new ProductDetailDTO(null, "Browse item", null, price, 1, null));
+        }
+
+        assertBrowseMatchesDatabase(null, null);
+        assertBrowseMatchesDatabase(50.0, 999.0);
+        assertBrowseMatchesDatabase(75.0, 260.0);
+        assertBrowseMatchesDatabase(100.0, null);
+        assertBrowseMatchesDatabase(null, 99.5);
+    }
+
+    private void assertBrowseMatchesDatabase(Double min, Double max) {
+        ProductSearchResultDTO result = productSearchIndex.search(null, min, max, 3);
+        String range = "price >= " + (min == null ? -1e18 : min) + " and price <= " + (max == null ? 1e18 : max);
+        assertThat(result.getTotal()).isEqualTo(count(range));
+        assertThat(result.getHits()).hasSize((int) Math.min(3, result.getTotal()));
+        assertThat(result.getHits()).extracting(ProductSearchHitDTO::getPrice).isSorted();
+        assertThat(result.getPriceFacets()).containsExactly(
+                Map.entry("0-50", count(range + " and price < 50")),
+                Map.entry("50-100", count(range + " and price >= 50 and price < 100")),
+                Map.entry("100-250", count(range + " and price >= 100 and price < 250")),
+                Map.entry("250-500", count(range + " and price >= 250 and price < 500")),
+                Map.entry("500-1000", count(range + " and price >= 500 and price < 1000")),
+                Map.entry("1000+", count(range + " and price >= 1000")));
+    }
+
+    private List<String> names(String query) {
+        return productSearchIndex.search(query, null, null, 10).getHits().stream().map(ProductSearchHitDTO::getName).toList();
+    }
+
+    private long count(String condition) {
+        return jdbcTemplate.queryForObject("select count(*) from product where " + condition, Long.class);
+    }
+}
@@ -0,0 +1,46 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.event.ProductChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@RecordApplicationEvents
+class ProductServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    void batchUpdateEventsCarryTheFlushedVersion() {
+        Long id = productService.createProduct(new ProductDetailDTO(null, "Batch lamp", null, 10, 1, null)).getId();
+
+        productService.updateProducts(List.of(new ProductDetailDTO(id, "Batch lamp v2", null, 12, 3, null)));
+
+        ProductDetailDTO published = events.stream(ProductChangedEvent.class)
+                .filter(event -> event.type() == ProductChangedEvent.Type.UPDATED && id.equals(event.productId()))
+                .reduce((first, second) -> second)
+                .orElseThrow()
+                .product();
+        assertThat(published.getName()).isEqualTo("Batch lamp v2");
+        assertThat(published.getVersion())
+                .isEqualTo(jdbcTemplate.queryForObject("select version from product where id = ?", Long.class, id));
+    }
+}
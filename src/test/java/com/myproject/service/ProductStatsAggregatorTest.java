@@ -0,0 +1,120 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.BatchItemResultDTO;
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.dto.ProductStatsDTO;
+import com.socialhub.event.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductStatsAggregatorTest {
+
+    @Autowired
+    private ProductStatsAggregator productStatsAggregator;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void recompute() {
+        productStatsAggregator.recompute();
+    }
+
+    @Test
+    void recomputationMatchesTheDatabase() {
+        assertMatchesDatabase(productStatsAggregator.getStats());
+    }
+
+    @Test
+    void incrementalChangesMatchAFullRecomputation() {
+        List<ProductDetailDTO> batch = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            batch.add(new ProductDetailDTO(null, "Stats item " + i, null, i * 45.5, i % 7, null));
+        }
+        List<Long> ids = productService.createProducts(batch).getItems().stream().map(BatchItemResultDTO::getId).toList();
+        Long single = productService.createProduct(new ProductDetailDTO(null, "Stats single", null, 99.99, 2, null)).getId();
+
+        // Moves bands and in and out of low stock
+        productService.updateProduct(ids.get(3), new ProductDetailDTO(null, "Stats item 3 v2", null, 1200, 50, null), null);
+        productService.updateProduct(single, new ProductDetailDTO(null, "Stats single v2", null, 100, 0, null), null);
+        productService.takeStock(ids.get(6), 6);
+        productService.returnStock(ids.get(7), 40);
+        productService.deleteProduct(ids.get(1));
+        productService.deleteProducts(List.of(ids.get(2), ids.get(8), -1L));
+
+        ProductStatsDTO incremental = productStatsAggregator.getStats();
+        assertMatchesDatabase(incremental);
+
+        productStatsAggregator.recompute();
+        ProductStatsDTO recomputed = productStatsAggregator.getStats();
+        assertThat(recomputed.getProductCount()).isEqualTo(incremental.getProductCount());
+        assertThat(recomputed.getTotalQuantity()).isEqualTo(incremental.getTotalQuantity());
+        assertThat(recomputed.getInventoryValue()).isEqualTo(incremental.getInventoryValue());
+        assertThat(recomputed.getPriceBands()).isEqualTo(incremental.getPriceBands());
+        assertThat(recomputed.getLowStock()).isEqualTo(incremental.getLowStock());
+    }
+
+    @Test
+    void eventsArrivingOutOfOrderAreDropped() {
+        ProductDetailDTO created = productService.createProduct(new ProductDetailDTO(null, "Stats late", null, 30, 3, null));
+        productService.updateProduct(created.getId(), new ProductDetailDTO(null, "Stats late v2", null, 300, 30, null), null);
+        ProductDetailDTO deleted = productService.createProduct(new ProductDetailDTO(null, "Stats gone", null, 40, 4, null));
+        productService.deleteProduct(deleted.getId());
+
+        // Commits of the same product can reach the listener in either order
+        productStatsAggregator.onProductChanged(ProductChangedEvent.updated(created));
+        productStatsAggregator.onProductChanged(ProductChangedEvent.updated(deleted));
+
+        assertMatchesDatabase(productStatsAggregator.getStats());
+    }
+
+    private void assertMatchesDatabase(ProductStatsDTO stats) {
+        assertThat(stats).isNotNull();
+        assertThat(stats.getProductCount()).isEqualTo(queryForLong("select count(*) from product"));
+        assertThat(stats.getTotalQuantity()).isEqualTo(queryForLong("select coalesce(sum(quantity), 0) from product"));
+        assertThat(stats.getInventoryValue()).isCloseTo(
+                jdbcTemplate.queryForObject("select coalesce(sum(price * quantity), 0) from product", Double.class), within(0.01));
+        assertThat(stats.getAveragePrice()).isCloseTo(
+                jdbcTemplate.queryForObject("select coalesce(avg(price), 0) from product", Double.class), within(0.0001));
+
+        assertThat(stats.getPriceBands()).containsExactly(
+                Map.entry("0-50", countWhere("price < 50")),
+                Map.entry("50-100", countWhere("price >= 50 and price < 100")),
+                Map.entry("100-250", countWhere("price >= 100 and price < 250")),
+                Map.entry("250-500", countWhere("price >= 250 and price < 500")),
+                Map.entry("500-1000", countWhere("price >= 500 and price < 1000")),
+                Map.entry("1000+", countWhere("price >= 1000")));
+
+        int threshold = stats.getLowStockThreshold();
+        assertThat(stats.getLowStockCount()).isEqualTo(countWhere("quantity <= " + threshold));
+        List<ProductStatsDTO.LowStockProduct> lowest = jdbcTemplate.query(
+                "select id, name, quantity from product where quantity <= ? order by quantity, id limit ?",
+                (rs, rowNum) -> new ProductStatsDTO.LowStockProduct(rs.getLong(1), rs.getString(2), rs.getInt(3)),
+                threshold, 20);
+        assertThat(stats.getLowStock()).isEqualTo(lowest);
+    }
+
+    private long countWhere(String condition) {
+        return queryForLong("select count(*) from product where " + condition);
+    }
+
+    private long queryForLong(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
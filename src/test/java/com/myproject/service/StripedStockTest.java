@@ -0,0 +1,75 @@
+package com.socialhub.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedStockTest {
+
+    @Test
+    void concurrentTakersNeverTakeMoreThanWasAdded() throws Exception {
+        StripedStock stock = new StripedStock(8);
+        stock.add(10_000);
+        AtomicInteger taken = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int thread = 0; thread < 16; thread++) {
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2_000; i++) {
+                        if (stock.tryTake(1)) {
+                            taken.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        assertThat(taken.get()).isEqualTo(10_000);
+        assertThat(stock.available()).isZero();
+    }
+
+    @Test
+    void takeFallsBackToOtherStripes() throws Exception {
+        StripedStock stock = new StripedStock(4);
+        // Stock added from another thread usually lands in a different stripe
+        Thread adder = new Thread(() -> stock.add(5));
+        adder.start();
+        adder.join();
+
+        assertThat(stock.tryTake(5)).isTrue();
+        assertThat(stock.tryTake(1)).isFalse();
+    }
+
+    @Test
+    void takeNeedsTheWholeQuantityInOneStripe() {
+        StripedStock stock = new StripedStock(1);
+        stock.add(3);
+
+        assertThat(stock.tryTake(4)).isFalse();
+        assertThat(stock.drain()).isEqualTo(3);
+        assertThat(stock.available()).isZero();
+    }
+
+    @Test
+    void takeUpToGathersUnitsFromAllStripes() throws Exception {
+        StripedStock stock = new StripedStock(64);
+        stock.add(3);
+        Thread adder = new Thread(() -> stock.add(4));
+        adder.start();
+        adder.join();
+
+        assertThat(stock.takeUpTo(5)).isEqualTo(5);
+        assertThat(stock.available()).isEqualTo(2);
+        assertThat(stock.takeUpTo(5)).isEqualTo(2);
+        assertThat(stock.available()).isZero();
+    }
+}
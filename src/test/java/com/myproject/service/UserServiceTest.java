@@ -0,0 +1,47 @@
+package com.socialhub.service;
+
+import com.socialhub.dto.UserRequest;
+import com.socialhub.dto.UserResponse;
+import com.socialhub.event.UserChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@RecordApplicationEvents
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Test
+    void batchUpdateEventsCarryTheFlushedVersion() {
+        Long id = userService.createUser(new UserRequest("Batch user", "batch-user@example.com", "secret")).getId();
+
+        userService.updateUsers(Map.of(id, new UserRequest("Batch user v2", "batch-user@example.com", "secret")));
+
+        UserResponse published = events.stream(UserChangedEvent.class)
+                .filter(event -> event.type() == UserChangedEvent.Type.UPDATED && id.equals(event.userId()))
+                .reduce((first, second) -> second)
+                .orElseThrow()
+                .user();
+        assertThat(published.getName()).isEqualTo("Batch user v2");
+        assertThat(published.getVersion())
+                .isEqualTo(jdbcTemplate.queryForObject("select version from \"user\" where id = ?", Long.class, id));
+    }
+}
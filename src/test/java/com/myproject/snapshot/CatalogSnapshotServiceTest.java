@@ -0,0 +1,50 @@
+package com.socialhub.snapshot;
+
+import com.socialhub.dto.ProductDetailDTO;
+import com.socialhub.event.ProductChangedEvent;
+import com.socialhub.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.snapshot.enabled=true",
+        "app.snapshot.dir=target/snapshot-test"})
+@ActiveProfiles("test")
+class CatalogSnapshotServiceTest {
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void olderStateRecordedLaterDoesNotReplaceANewerOne() {
+        ProductDetailDTO created = productService.createProduct(new ProductDetailDTO(null, "Snapshot lamp", null, 10, 1, null));
+        ProductDetailDTO updated = productService.updateProduct(created.getId(),
+                new ProductDetailDTO(null, "Snapshot lamp v2", null, 12, 1, null), null);
+
+        // E.g. a reconciler read or another instance's event that arrives after the update
+        catalogSnapshotService.onProductChanged(ProductChangedEvent.updated(created));
+
+        assertThat(catalogSnapshotService.findProduct(created.getId()))
+                .extracting(ProductDetailDTO::getName, ProductDetailDTO::getVersion)
+                .containsExactly("Snapshot lamp v2", updated.getVersion());
+    }
+
+    @Test
+    void deletedProductIsOnlyBroughtBackByACreate() {
+        ProductDetailDTO created = productService.createProduct(new ProductDetailDTO(null, "Snapshot chair", null, 10, 1, null));
+        productService.deleteProduct(created.getId());
+
+        catalogSnapshotService.onProductChanged(ProductChangedEvent.updated(created));
+        assertThat(catalogSnapshotService.findProduct(created.getId())).isNull();
+
+        catalogSnapshotService.onProductChanged(ProductChangedEvent.created(created));
+        assertThat(catalogSnapshotService.findProduct(created.getId())).isNotNull();
+    }
+}
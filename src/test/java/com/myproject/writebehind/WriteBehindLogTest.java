@@ -0,0 +1,66 @@
+package com.socialhub.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialhub.dto.ProductDetailDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindLogTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversOnlyOperationsAfterTheCheckpoint() throws Exception {
+        try (WriteBehindLog log = new WriteBehindLog(directory, objectMapper)) {
+            for (long sequence = 1; sequence <= 5; sequence++) {
+                log.append(update(sequence));
+            }
+            log.sync();
+            log.checkpoint(3);
+        }
+
+        try (WriteBehindLog log = new WriteBehindLog(directory, objectMapper)) {
+            assertThat(log.checkpoint()).isEqualTo(3);
+            assertThat(log.recover()).extracting(WriteOperation::sequence).containsExactly(4L, 5L);
+            assertThat(log.recover().get(0).product().getName()).isEqualTo("Product 4");
+        }
+    }
+
+    @Test
+    void stopsAtATornLastLine() throws Exception {
+        try (WriteBehindLog log = new WriteBehindLog(directory, objectMapper)) {
+            log.append(update(1));
+            log.sync();
+        }
+        Files.writeString(directory.resolve("mutations.log"), "{\"sequence\":2,\"ki", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        try (WriteBehindLog log = new WriteBehindLog(directory, objectMapper)) {
+            assertThat(log.recover()).extracting(WriteOperation::sequence).containsExactly(1L);
+        }
+    }
+
+    @Test
+    void truncatedLogRecoversNothing() throws Exception {
+        try (WriteBehindLog log = new WriteBehindLog(directory, objectMapper)) {
+            log.append(update(1));
+            log.checkpoint(1);
+            log.truncate();
+            assertThat(log.recover()).isEmpty();
+        }
+    }
+
+    private static WriteOperation update(long sequence) {
+        ProductDetailDTO product = new ProductDetailDTO(sequence, "Product " + sequence, "Description", 9.99, 1, null);
+        return new WriteOperation(sequence, WriteOperation.Kind.UPDATE_PRODUCT, sequence, product, null, null);
+    }
+}
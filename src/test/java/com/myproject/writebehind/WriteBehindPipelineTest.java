@@ -0,0 +1,91 @@
+package com.socialhub.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.write-behind.enabled=true",
+        "app.write-behind.dir=target/write-behind-test",
+        "app.write-behind.fsync=false",
+        "app.write-behind.flush-interval-ms=20"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WriteBehindPipelineTest {
+    private static final Path DEAD_LETTERS = Path.of("target/write-behind-test/dead-letter.log");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void queuedUserCreateReachesTheDatabase() throws Exception {
+        String email = "queued-" + System.nanoTime() + "@example.com";
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Queued\",\"email\":\"" + email + "\",\"password\":\"secret\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(WriteBehindPipeline.SEQUENCE_HEADER));
+
+        Map<String, Object> row = awaitUser(email);
+        assertThat(row).containsEntry("name", "Queued");
+    }
+
+    @Test
+    void userWithoutPasswordIsRejectedBeforeItIsQueued() throws Exception {
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Queued\",\"email\":\"no-password@example.com\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void operationTheDatabaseRefusesIsDeadLetteredAndTheQueueMovesOn() throws Exception {
+        // Longer than the name column, only the insert fails
+        String tooLong = "x".repeat(300);
+        String email = "after-bad-" + System.nanoTime() + "@example.com";
+        Files.deleteIfExists(DEAD_LETTERS);
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + tooLong + "\",\"email\":\"bad@example.com\",\"password\":\"secret\"}"))
+                .andExpect(status().isAccepted());
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"After bad\",\"email\":\"" + email + "\",\"password\":\"secret\"}"))
+                .andExpect(status().isAccepted());
+
+        assertThat(awaitUser(email)).containsEntry("name", "After bad");
+        assertThat(Files.readString(DEAD_LETTERS)).contains(tooLong);
+    }
+
+    private Map<String, Object> awaitUser(String email) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+            var rows = jdbcTemplate.queryForList("select name, email from \"user\" where email = ?", email);
+            if (!rows.isEmpty()) {
+                return rows.get(0);
+            }
+            assertThat(System.nanoTime()).as("queued user %s still not written", email).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}